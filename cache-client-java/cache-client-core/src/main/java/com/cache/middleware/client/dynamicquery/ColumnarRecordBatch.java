@@ -0,0 +1,223 @@
+package com.cache.middleware.client.dynamicquery;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解码后的一页记录，按列访问
+ * 列名为服务端 DataRecord 的属性名（如 name、hireDate），未在投影中请求的列不存在
+ */
+public final class ColumnarRecordBatch {
+
+    /**
+     * 列的编码类型
+     */
+    public enum Type {
+        INT32(1), INT64(2), FLOAT64(3), STRING(4), TIMESTAMP(5);
+
+        private final int code;
+
+        Type(int code) {
+            this.code = code;
+        }
+
+        static Type fromCode(int code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("未知的列类型: " + code);
+        }
+    }
+
+    private final int rowCount;
+
+    private final List<Column> columns;
+
+    private final Map<String, Column> byName = new LinkedHashMap<>();
+
+    ColumnarRecordBatch(int rowCount, List<Column> columns) {
+        this.rowCount = rowCount;
+        this.columns = Collections.unmodifiableList(columns);
+        for (Column column : columns) {
+            byName.put(column.name, column);
+        }
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 按属性名取列，不存在时返回 null
+     */
+    public Column getColumn(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * 转换为逐行的属性映射（与 JSON 结果中的属性名一致），空值保留为 null
+     * 逐行访问方便但会为每个值创建对象，大结果集应直接按列读取
+     */
+    public List<Map<String, Object>> toRows() {
+        List<Map<String, Object>> rows = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (Column column : columns) {
+                values.put(column.name, column.get(row));
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    /**
+     * 一列数据：按类型只持有对应的原始类型数组，字符串列为字典与各行序号
+     */
+    public static final class Column {
+
+        private final String name;
+
+        private final Type type;
+
+        private final byte[] nulls;
+
+        private final int[] ints;
+
+        private final long[] longs;
+
+        private final double[] doubles;
+
+        private final String[] dictionary;
+
+        private final int[] codes;
+
+        Column(String name, Type type, byte[] nulls, int[] ints, long[] longs, double[] doubles,
+               String[] dictionary, int[] codes) {
+            this.name = name;
+            this.type = type;
+            this.nulls = nulls;
+            this.ints = ints;
+            this.longs = longs;
+            this.doubles = doubles;
+            this.dictionary = dictionary;
+            this.codes = codes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public boolean isNull(int row) {
+            return nulls != null && (nulls[row >>> 3] & (1 << (row & 7))) != 0;
+        }
+
+        /**
+         * INT32 列的值，空值为 0
+         */
+        public int getInt(int row) {
+            requireType(Type.INT32);
+            return ints[row];
+        }
+
+        /**
+         * INT64 列的值，空值为 0
+         */
+        public long getLong(int row) {
+            requireType(Type.INT64);
+            return longs[row];
+        }
+
+        /**
+         * FLOAT64 列的值，空值为 0
+         */
+        public double getDouble(int row) {
+            requireType(Type.FLOAT64);
+            return doubles[row];
+        }
+
+        /**
+         * TIMESTAMP 列的毫秒数（本地时间按 UTC 换算），空值为 0
+         */
+        public long getTimestampMillis(int row) {
+            requireType(Type.TIMESTAMP);
+            return longs[row];
+        }
+
+        /**
+         * TIMESTAMP 列的本地时间，与 JSON 结果中的时间文本一致
+         */
+        public LocalDateTime getDateTime(int row) {
+            requireType(Type.TIMESTAMP);
+            if (isNull(row)) {
+                return null;
+            }
+            long millis = longs[row];
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                    (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+        }
+
+        public String getString(int row) {
+            requireType(Type.STRING);
+            return isNull(row) ? null : dictionary[codes[row]];
+        }
+
+        /**
+         * 字符串列的字典（各不相同的值），配合 {@link #getCode(int)} 可不经字符串比较完成分组计数
+         */
+        public List<String> getDictionary() {
+            requireType(Type.STRING);
+            return Collections.unmodifiableList(Arrays.asList(dictionary));
+        }
+
+        /**
+         * 字符串列中该行值在字典中的序号，空值为 -1
+         */
+        public int getCode(int row) {
+            requireType(Type.STRING);
+            return isNull(row) ? -1 : codes[row];
+        }
+
+        /**
+         * 装箱后的值（Integer / Long / Double / String / LocalDateTime），空值为 null
+         */
+        public Object get(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            switch (type) {
+                case INT32:
+                    return ints[row];
+                case INT64:
+                    return longs[row];
+                case FLOAT64:
+                    return doubles[row];
+                case TIMESTAMP:
+                    return getDateTime(row);
+                default:
+                    return dictionary[codes[row]];
+            }
+        }
+
+        private void requireType(Type expected) {
+            if (type != expected) {
+                throw new IllegalStateException("列 " + name + " 的类型为 " + type + "，不是 " + expected);
+            }
+        }
+    }
+}
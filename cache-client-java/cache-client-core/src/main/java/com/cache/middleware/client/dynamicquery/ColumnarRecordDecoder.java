@@ -0,0 +1,153 @@
+package com.cache.middleware.client.dynamicquery;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 动态查询列式二进制结果的解码器
+ * 请求 /api/data/query 时在 Accept 中加入 {@link #MEDIA_TYPE}，服务端即按列返回一页记录，
+ * 格式定义见服务端 ColumnarRecordEncoder，两端需保持一致：
+ * <pre>
+ * int    魔数 0x44514331（"DQC1"）
+ * int    行数 n
+ * short  列数
+ * 每列依次为：
+ *   short + UTF-8  属性名
+ *   byte           类型：1=INT32 2=INT64 3=FLOAT64 4=STRING 5=TIMESTAMP
+ *   byte           0=无空值；1=后跟 (n+7)/8 字节空值位图，第 i 行对应第 i/8 字节的第 i%8 位，置位表示空值
+ *   值             INT32 为 n 个 int，INT64 为 n 个 long，FLOAT64 为 n 个 double，
+ *                  TIMESTAMP 为 n 个 long（本地时间按 UTC 换算的毫秒数），
+ *                  STRING 为 int 字典大小 + 各词条（int 字节数 + UTF-8），byte 编码宽度（1/2/4）+ n 个无符号字典序号
+ * </pre>
+ * 整数均为大端序。数值列解码为原始类型数组，字符串列保留字典与序号，不为每行创建对象
+ */
+public final class ColumnarRecordDecoder {
+
+    public static final String MEDIA_TYPE = "application/vnd.dynamic-query.columnar";
+
+    public static final int MAGIC = 0x44514331;
+
+    private ColumnarRecordDecoder() {
+    }
+
+    /**
+     * 读取输入流中的全部数据并解码（不关闭输入流）
+     */
+    public static ColumnarRecordBatch decode(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024);
+        byte[] chunk = new byte[8 * 1024];
+        int read;
+        while ((read = inputStream.read(chunk)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        return decode(out.toByteArray());
+    }
+
+    /**
+     * 解码一页记录，数据不完整或格式不符时抛出 IllegalArgumentException
+     */
+    public static ColumnarRecordBatch decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            int magic = buffer.getInt();
+            if (magic != MAGIC) {
+                throw new IllegalArgumentException("不是列式查询结果: 魔数 0x" + Integer.toHexString(magic));
+            }
+            int rows = buffer.getInt();
+            if (rows < 0) {
+                throw new IllegalArgumentException("列式查询结果行数无效: " + rows);
+            }
+            int columnCount = buffer.getShort() & 0xFFFF;
+            List<ColumnarRecordBatch.Column> columns = new ArrayList<>(columnCount);
+            for (int c = 0; c < columnCount; c++) {
+                columns.add(readColumn(buffer, rows));
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("列式查询结果末尾有 " + buffer.remaining() + " 字节多余数据");
+            }
+            return new ColumnarRecordBatch(rows, columns);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("列式查询结果不完整", e);
+        }
+    }
+
+    private static ColumnarRecordBatch.Column readColumn(ByteBuffer buffer, int rows) {
+        String name = readString(buffer, buffer.getShort() & 0xFFFF);
+        ColumnarRecordBatch.Type type = ColumnarRecordBatch.Type.fromCode(buffer.get());
+        // 每行至少占一个字节，先按剩余长度校验，避免按损坏的行数分配数组
+        if (rows > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] nulls = null;
+        if (buffer.get() != 0) {
+            nulls = new byte[(rows + 7) / 8];
+            buffer.get(nulls);
+        }
+
+        switch (type) {
+            case INT32: {
+                int[] values = new int[rows];
+                buffer.asIntBuffer().get(values);
+                buffer.position(buffer.position() + rows * Integer.BYTES);
+                return new ColumnarRecordBatch.Column(name, type, nulls, values, null, null, null, null);
+            }
+            case INT64:
+            case TIMESTAMP: {
+                long[] values = new long[rows];
+                buffer.asLongBuffer().get(values);
+                buffer.position(buffer.position() + rows * Long.BYTES);
+                return new ColumnarRecordBatch.Column(name, type, nulls, null, values, null, null, null);
+            }
+            case FLOAT64: {
+                double[] values = new double[rows];
+                buffer.asDoubleBuffer().get(values);
+                buffer.position(buffer.position() + rows * Double.BYTES);
+                return new ColumnarRecordBatch.Column(name, type, nulls, null, null, values, null, null);
+            }
+            default: {
+                int dictionarySize = buffer.getInt();
+                if (dictionarySize < 0 || dictionarySize > buffer.remaining() / Integer.BYTES) {
+                    throw new BufferUnderflowException();
+                }
+                String[] dictionary = new String[dictionarySize];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = readString(buffer, buffer.getInt());
+                }
+                int width = buffer.get();
+                int[] codes = new int[rows];
+                for (int i = 0; i < rows; i++) {
+                    int code;
+                    if (width == 1) {
+                        code = buffer.get() & 0xFF;
+                    } else if (width == 2) {
+                        code = buffer.getShort() & 0xFFFF;
+                    } else if (width == 4) {
+                        code = buffer.getInt();
+                    } else {
+                        throw new IllegalArgumentException("列 " + name + " 的字典序号宽度无效: " + width);
+                    }
+                    if (code < 0 || (code >= dictionary.length && code != 0)) {
+                        throw new IllegalArgumentException("列 " + name + " 的字典序号越界: " + code);
+                    }
+                    codes[i] = code;
+                }
+                return new ColumnarRecordBatch.Column(name, type, nulls, null, null, null, dictionary, codes);
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
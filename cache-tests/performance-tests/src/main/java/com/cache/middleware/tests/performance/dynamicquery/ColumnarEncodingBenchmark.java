@@ -0,0 +1,139 @@
+package com.cache.middleware.tests.performance.dynamicquery;
+
+import com.cache.middleware.client.dynamicquery.ColumnarRecordBatch;
+import com.cache.middleware.client.dynamicquery.ColumnarRecordDecoder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mycompany.dynamicquery.dto.ColumnarRecords;
+import com.mycompany.dynamicquery.dto.Projection;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.util.ColumnarRecordEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一页查询结果的 JSON 与列式二进制编码对比：编码、解码耗时（配合 -prof gc 看分配量），
+ * 载荷大小作为编码基准的辅助计数器（jsonBytes / columnarBytes）出现在结果中
+ * <p>
+ * JSON 解码按通用客户端的方式读成属性映射列表；列式解码分为只解码（按列访问）与解码后转成逐行映射两种
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnarEncodingBenchmark {
+
+    /**
+     * 默认页大小与最大页大小
+     */
+    @Param({"100", "1000"})
+    public int rows;
+
+    /**
+     * all 为全部字段，narrow 为 fields=name,department,salary 的投影
+     */
+    @Param({"all", "narrow"})
+    public String columns;
+
+    private List<DataRecord> records;
+
+    private List<DataRecordField> columnList;
+
+    private ObjectWriter jsonWriter;
+
+    private ObjectReader jsonReader;
+
+    private byte[] json;
+
+    private byte[] columnar;
+
+    @Setup
+    public void setUp() throws IOException {
+        records = DynamicQueryFixtures.dataRecords(rows);
+        Projection projection = "narrow".equals(columns)
+                ? new Projection(EnumSet.of(DataRecordField.NAME, DataRecordField.DEPARTMENT, DataRecordField.SALARY))
+                : null;
+        columnList = new ColumnarRecords(records, projection).getColumns();
+
+        ObjectMapper objectMapper = DynamicQueryFixtures.objectMapper();
+        jsonWriter = objectMapper.writer(projection != null ? projection.getFilters() : Projection.ALL_FIELDS);
+        jsonReader = objectMapper.readerFor(new TypeReference<List<Map<String, Object>>>() {
+        });
+
+        json = writeJson();
+        columnar = writeColumnar();
+    }
+
+    /**
+     * 载荷大小（字节）。EVENTS 计数器在各次测量迭代间求和，因此只在第一次测量迭代中记录
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long jsonBytes;
+
+        public long columnarBytes;
+
+        private boolean reported;
+
+        @Setup(Level.Iteration)
+        public void setUp(ColumnarEncodingBenchmark benchmark, IterationParams iteration) {
+            jsonBytes = 0;
+            columnarBytes = 0;
+            if (iteration.getType() == IterationType.MEASUREMENT && !reported) {
+                jsonBytes = benchmark.json.length;
+                columnarBytes = benchmark.columnar.length;
+                reported = true;
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeJson(PayloadSize payloadSize) throws IOException {
+        return writeJson();
+    }
+
+    @Benchmark
+    public byte[] encodeColumnar(PayloadSize payloadSize) throws IOException {
+        return writeColumnar();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> decodeJson() throws IOException {
+        return jsonReader.readValue(json);
+    }
+
+    @Benchmark
+    public ColumnarRecordBatch decodeColumnar() {
+        return ColumnarRecordDecoder.decode(columnar);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> decodeColumnarRows() {
+        return ColumnarRecordDecoder.decode(columnar).toRows();
+    }
+
+    private byte[] writeJson() throws IOException {
+        return jsonWriter.writeValueAsBytes(records);
+    }
+
+    private byte[] writeColumnar() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024);
+        ColumnarRecordEncoder.encode(records, columnList, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,34 @@
+package com.cache.middleware.tests.performance.dynamicquery;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 动态查询基准入口，默认开启分配剖析（等价于 -prof gc）
+ * <p>
+ * 也可打包后通过命令行运行：
+ * <pre>
+ * mvn -f cache-tests/performance-tests/pom.xml package
+ * java -jar cache-tests/performance-tests/target/benchmarks.jar "dynamicquery" -prof gc
+ * </pre>
+ * 可附加正则只运行部分基准，如 {@code QueryExpressionParserBenchmark}
+ */
+public final class DynamicQueryBenchmarkRunner {
+
+    private DynamicQueryBenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0
+                ? args[0]
+                : DynamicQueryBenchmarkRunner.class.getPackage().getName() + ".*Benchmark";
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
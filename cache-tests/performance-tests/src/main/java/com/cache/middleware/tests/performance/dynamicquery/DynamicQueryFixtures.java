@@ -0,0 +1,211 @@
+package com.cache.middleware.tests.performance.dynamicquery;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mycompany.dynamicquery.dto.FilterConfigSnapshot;
+import com.mycompany.dynamicquery.dto.Projection;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.entity.FilterConfig;
+import com.mycompany.dynamicquery.service.FilterConfigRegistry;
+import com.mycompany.dynamicquery.util.CompiledExpressionCache;
+import com.mycompany.dynamicquery.util.DynamicQueryMetrics;
+import com.mycompany.dynamicquery.util.QueryConditionBuilder;
+import com.mycompany.dynamicquery.util.QueryConditionOptimizer;
+import com.mycompany.dynamicquery.util.QueryExpressionParser;
+import com.mycompany.dynamicquery.util.SqlPlanCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 动态查询基准测试的公共夹具
+ * 手工装配组件，不启动Spring上下文，也不访问数据库
+ */
+final class DynamicQueryFixtures {
+
+    private DynamicQueryFixtures() {
+    }
+
+    /**
+     * 覆盖各种表达式形式的筛选配置（含别名与中文名）
+     */
+    static List<FilterConfig> filterConfigs() {
+        LocalDateTime updated = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<FilterConfig> configs = new ArrayList<>();
+        configs.add(config(1L, "age", "userAge", "年龄", "18 < age <= 65", "INTEGER", updated));
+        configs.add(config(2L, "salary", "sal", "薪资", "5000 <= salary <= 10000", "DOUBLE", updated));
+        configs.add(config(3L, "score", "userScore", "分数", "score >= 60", "DOUBLE", updated));
+        configs.add(config(4L, "department", "dept", "部门", "department = IT", "STRING", updated));
+        configs.add(config(5L, "status", "state", "状态", "status != inactive", "STRING", updated));
+        configs.add(config(6L, "phone", "mobile", "手机", "phone NA", "STRING", updated));
+        configs.add(config(7L, "name", "userName", "姓名", "name = 张三", "STRING", updated));
+        configs.add(config(8L, "id", "ids", "编号", "id IN", "INTEGER", updated));
+        configs.add(config(9L, "email", "excludedEmails", "排除邮箱", "email NOT IN", "STRING", updated));
+        return configs;
+    }
+
+    /**
+     * 按场景名构造查询参数
+     */
+    static Map<String, List<String>> queryParams(String scenario) {
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        switch (scenario) {
+            case "single":
+                params.put("age", List.of("25,35"));
+                break;
+            case "mixed":
+                params.put("userAge", List.of("20,30", "40,50"));
+                params.put("部门", List.of("IT", "HR"));
+                params.put("status", List.of("active"));
+                params.put("手机", List.of("NA"));
+                break;
+            case "wide":
+                params.put("年龄", List.of("20,25", "30,35", "40,45", "50,55"));
+                params.put("sal", List.of("5000,8000", "9000,12000"));
+                params.put("score", List.of("60", "70", "80", "90"));
+                params.put("dept", List.of("IT", "HR", "Finance", "Sales", "Legal", "Ops"));
+                params.put("state", List.of("inactive", "locked"));
+                params.put("mobile", List.of("NA"));
+                params.put("姓名", List.of("张三", "李四", "王五"));
+                params.put("unknownField", List.of("x"));
+                break;
+            case "overlapping":
+                // 十个相互重叠的年龄区间与五十个分数等值
+                List<String> ranges = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    ranges.add((20 + i * 3) + "," + (26 + i * 3));
+                }
+                List<String> scores = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    scores.add(String.valueOf(50 + i % 25));
+                }
+                params.put("age", ranges);
+                params.put("score", scores);
+                break;
+            case "largeIn":
+                // 一万个编号（超过连接阈值）与两千个邮箱（分块的占位符列表）
+                StringJoiner ids = new StringJoiner(",");
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(String.valueOf(100_000 + i * 7));
+                }
+                List<String> emails = new ArrayList<>();
+                for (int i = 0; i < 2_000; i++) {
+                    emails.add("user" + i + "@example.com");
+                }
+                params.put("ids", List.of(ids.toString()));
+                params.put("excludedEmails", emails);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+        return params;
+    }
+
+    /**
+     * 固定种子生成的记录：部门、状态取值少，姓名、邮箱、手机基本不重复，约一成手机与分数为空
+     */
+    static List<DataRecord> dataRecords(int count) {
+        String[] departments = {"IT", "HR", "Finance", "Sales", "Marketing", "Legal", "Ops", "研发部"};
+        String[] statuses = {"active", "inactive", "locked"};
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 8, 0);
+        List<DataRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DataRecord record = new DataRecord();
+            record.setId(100_000L + i);
+            record.setName("用户" + i);
+            record.setAge(18 + random.nextInt(48));
+            record.setStatus(statuses[random.nextInt(statuses.length)]);
+            record.setScore(random.nextInt(10) == 0 ? null : random.nextInt(10_000) / 100.0);
+            record.setDepartment(departments[random.nextInt(departments.length)]);
+            record.setEmail("user" + i + "@example.com");
+            record.setPhone(random.nextInt(10) == 0 ? null : String.valueOf(13_000_000_000L + random.nextInt(1_000_000_000)));
+            record.setSalary(3000 + random.nextInt(9_700_000) / 100.0);
+            record.setHireDate(start.toLocalDate().minusDays(random.nextInt(3650)).atStartOfDay());
+            record.setCreatedTime(start.plusSeconds(i * 37L));
+            record.setUpdatedTime(start.plusSeconds(i * 37L + random.nextInt(86_400)));
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * 与Spring Boot默认配置一致的 ObjectMapper（Java时间模块、日期不写成时间戳），并注册投影过滤器
+     */
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .addMixIn(DataRecord.class, Projection.FilterMixin.class)
+                .setFilterProvider(Projection.ALL_FIELDS);
+    }
+
+    /**
+     * 返回固定快照的配置注册表桩
+     */
+    static FilterConfigRegistry stubRegistry(List<FilterConfig> configs) {
+        FilterConfigSnapshot snapshot = new FilterConfigSnapshot(1L, configs, configs.size(), null);
+        return new FilterConfigRegistry() {
+            @Override
+            public FilterConfigSnapshot snapshot() {
+                return snapshot;
+            }
+        };
+    }
+
+    static QueryConditionBuilder conditionBuilder(QueryExpressionParser parser) {
+        // 与生产环境一样记录指标，基准结果包含埋点开销
+        DynamicQueryMetrics metrics = new DynamicQueryMetrics(new SimpleMeterRegistry());
+
+        CompiledExpressionCache expressionCache = new CompiledExpressionCache();
+        inject(expressionCache, "expressionParser", parser);
+        inject(expressionCache, "dynamicQueryMetrics", metrics);
+
+        QueryConditionBuilder builder = new QueryConditionBuilder();
+        inject(builder, "filterConfigRegistry", stubRegistry(filterConfigs()));
+        inject(builder, "compiledExpressionCache", expressionCache);
+        inject(builder, "queryConditionOptimizer", new QueryConditionOptimizer());
+        inject(builder, "dynamicQueryMetrics", metrics);
+        return builder;
+    }
+
+    static SqlPlanCache sqlPlanCache(int maxSize) {
+        SqlPlanCache cache = new SqlPlanCache(maxSize);
+        inject(cache, "inListChunkSize", 1000);
+        inject(cache, "inListJoinThreshold", 2000);
+        inject(cache, "inListCollation", "utf8mb4_unicode_ci");
+        return cache;
+    }
+
+    /**
+     * 按Spring的方式注入 {@code @Autowired}/{@code @Value} 字段
+     */
+    static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + fieldName + " into " + target.getClass().getName(), e);
+        }
+    }
+
+    private static FilterConfig config(Long id, String fieldName, String alias, String chineseName,
+                                       String expression, String fieldType, LocalDateTime updated) {
+        FilterConfig config = new FilterConfig();
+        config.setId(id);
+        config.setFieldName(fieldName);
+        config.setFieldAlias(alias);
+        config.setFieldChineseName(chineseName);
+        config.setFilterExpression(expression);
+        config.setFieldType(fieldType);
+        config.setIsActive(true);
+        config.setUpdatedTime(updated);
+        return config;
+    }
+}
@@ -0,0 +1,46 @@
+package com.cache.middleware.tests.performance.dynamicquery;
+
+import com.mycompany.dynamicquery.util.DynamicXmlConditionGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyBatis XML 条件片段生成基准
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicXmlConditionGeneratorBenchmark {
+
+    /**
+     * 数值字段、小数字段与字符串字段
+     */
+    @Param({"age", "salary", "email"})
+    public String fieldName;
+
+    private DynamicXmlConditionGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new DynamicXmlConditionGenerator();
+    }
+
+    @Benchmark
+    public String fieldConditions() {
+        return generator.generateFieldConditions(fieldName, "condition");
+    }
+
+    @Benchmark
+    public String fieldQueryBlock() {
+        return generator.generateFieldQueryBlock(fieldName, "conditionsMap." + fieldName, "condition");
+    }
+
+    @Benchmark
+    public String compositeFieldCondition() {
+        return generator.generateCompositeFieldCondition(fieldName, "condition", "2");
+    }
+}
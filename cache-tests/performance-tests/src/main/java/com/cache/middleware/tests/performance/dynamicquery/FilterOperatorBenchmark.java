@@ -0,0 +1,29 @@
+package com.cache.middleware.tests.performance.dynamicquery;
+
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 操作符查找基准：fromString 按枚举顺序线性查找
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterOperatorBenchmark {
+
+    /**
+     * 位于枚举首位、中间与末位的操作符
+     */
+    @Param({"=", "<=", "NA"})
+    public String operator;
+
+    @Benchmark
+    public FilterOperator fromString() {
+        return FilterOperator.fromString(operator);
+    }
+}
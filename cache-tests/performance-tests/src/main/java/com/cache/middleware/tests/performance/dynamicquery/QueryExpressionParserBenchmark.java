@@ -0,0 +1,121 @@
+package com.cache.middleware.tests.performance.dynamicquery;
+
+import com.mycompany.dynamicquery.dto.FilterExpression;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import com.mycompany.dynamicquery.util.QueryExpressionParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 表达式解析基准：手写单遍解析器与原正则解析器对比
+ * 覆盖单值、默认字段、四种区间、空值及非法表达式，ASCII 与中文字段名各一组
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryExpressionParserBenchmark {
+
+    @Param({
+            "age > 18",
+            "> 18",
+            "status != active",
+            "5000 <= salary <= 10000",
+            "18 < age <= 65",
+            "60 <= score < 100",
+            "1 < experience < 5",
+            "phone NA",
+            "年龄 >= 18",
+            "姓名 = 张三",
+            "18 <= 年龄 < 65",
+            "手机 NA",
+            "age >= 18 且"
+    })
+    public String expression;
+
+    private QueryExpressionParser parser;
+
+    @Setup
+    public void setUp() {
+        parser = new QueryExpressionParser();
+    }
+
+    @Benchmark
+    public FilterExpression handwritten() {
+        return parser.parseExpression(expression);
+    }
+
+    @Benchmark
+    public FilterExpression regexBaseline() {
+        return RegexExpressionParser.parse(expression);
+    }
+
+    /**
+     * 原正则实现：依次尝试空值、四种区间和单值模式，作为手写解析器的性能基线
+     */
+    static final class RegexExpressionParser {
+
+        private static final Pattern SINGLE = Pattern.compile("^(?:([\\w\\u4e00-\\u9fa5]+)\\s*)?(>=|<=|!=|>|<|=)\\s*([\\w\\u4e00-\\u9fa5.-]+)$");
+        private static final Pattern RANGE_CLOSED = Pattern.compile("^([\\w\\u4e00-\\u9fa5.-]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5.-]+)$");
+        private static final Pattern RANGE_LEFT_OPEN = Pattern.compile("^([\\w\\u4e00-\\u9fa5.-]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5.-]+)$");
+        private static final Pattern RANGE_RIGHT_OPEN = Pattern.compile("^([\\w\\u4e00-\\u9fa5.-]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5.-]+)$");
+        private static final Pattern RANGE_OPEN = Pattern.compile("^([\\w\\u4e00-\\u9fa5.-]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5.-]+)$");
+        private static final Pattern NA = Pattern.compile("^(?:([\\w\\u4e00-\\u9fa5]+)\\s+)?(NA)$");
+
+        private RegexExpressionParser() {
+        }
+
+        static FilterExpression parse(String expression) {
+            FilterExpression result = new FilterExpression();
+            if (expression == null || expression.trim().isEmpty()) {
+                result.setValid(false);
+                result.setErrorMessage("表达式不能为空");
+                return result;
+            }
+            expression = expression.trim();
+
+            Matcher matcher = NA.matcher(expression);
+            if (matcher.matches()) {
+                result.setFieldName(matcher.group(1) != null ? matcher.group(1) : "field");
+                result.setOperator(FilterOperator.NA);
+                result.setValid(true);
+                return result;
+            }
+            if (range(RANGE_CLOSED, FilterOperator.RANGE_CLOSED, expression, result)
+                    || range(RANGE_LEFT_OPEN, FilterOperator.RANGE_LEFT_OPEN, expression, result)
+                    || range(RANGE_RIGHT_OPEN, FilterOperator.RANGE_RIGHT_OPEN, expression, result)
+                    || range(RANGE_OPEN, FilterOperator.RANGE_OPEN, expression, result)) {
+                return result;
+            }
+            matcher = SINGLE.matcher(expression);
+            if (matcher.matches()) {
+                result.setFieldName(matcher.group(1) != null ? matcher.group(1) : "field");
+                result.setOperator(FilterOperator.fromString(matcher.group(2)));
+                result.setValue1(matcher.group(3));
+                result.setValid(true);
+                return result;
+            }
+            result.setValid(false);
+            result.setErrorMessage("表达式格式不正确");
+            return result;
+        }
+
+        private static boolean range(Pattern pattern, FilterOperator operator, String expression, FilterExpression result) {
+            Matcher matcher = pattern.matcher(expression);
+            if (!matcher.matches()) {
+                return false;
+            }
+            result.setFieldName(matcher.group(2));
+            result.setOperator(operator);
+            result.setValue1(matcher.group(1));
+            result.setValue2(matcher.group(3));
+            result.setValid(true);
+            return true;
+        }
+    }
+}
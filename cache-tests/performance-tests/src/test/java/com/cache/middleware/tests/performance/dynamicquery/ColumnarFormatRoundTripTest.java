@@ -0,0 +1,77 @@
+package com.cache.middleware.tests.performance.dynamicquery;
+
+import com.cache.middleware.client.dynamicquery.ColumnarRecordBatch;
+import com.cache.middleware.client.dynamicquery.ColumnarRecordDecoder;
+import com.mycompany.dynamicquery.dto.ColumnarRecords;
+import com.mycompany.dynamicquery.dto.Projection;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.util.ColumnarRecordEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 服务端列式编码与 cache-client-core 解码器的往返测试
+ */
+class ColumnarFormatRoundTripTest {
+
+    @Test
+    void testRoundTripsAllFields() throws IOException {
+        // 1000 行的姓名超过 256 个不同值，覆盖两字节字典序号；手机与分数含空值
+        List<DataRecord> records = DynamicQueryFixtures.dataRecords(1000);
+        ColumnarRecordBatch batch = ColumnarRecordDecoder.decode(encode(records, null));
+
+        assertEquals(records.size(), batch.getRowCount());
+        assertEquals(DataRecordField.values().length, batch.getColumns().size());
+        for (DataRecordField field : DataRecordField.values()) {
+            ColumnarRecordBatch.Column column = batch.getColumn(field.getProperty());
+            assertNotNull(column, field.getProperty());
+            for (int row = 0; row < records.size(); row++) {
+                assertEquals(field.readValue(records.get(row)), column.get(row), field.getProperty() + "[" + row + "]");
+            }
+        }
+        assertEquals(3, batch.getColumn("status").getDictionary().size());
+        assertEquals(ColumnarRecordBatch.Type.TIMESTAMP, batch.getColumn("createdTime").getType());
+    }
+
+    @Test
+    void testRoundTripsProjectionAndEmptyPage() throws IOException {
+        Projection projection = new Projection(EnumSet.of(DataRecordField.SALARY, DataRecordField.NAME));
+        List<DataRecord> records = DynamicQueryFixtures.dataRecords(10);
+        records.get(3).setName(null);
+
+        ColumnarRecordBatch batch = ColumnarRecordDecoder.decode(encode(records, projection));
+        assertEquals(List.of("name", "salary"), batch.getColumns().stream().map(ColumnarRecordBatch.Column::getName).toList());
+        assertNull(batch.getColumn("id"));
+        assertTrue(batch.getColumn("name").isNull(3));
+        assertEquals(-1, batch.getColumn("name").getCode(3));
+        Map<String, Object> row = batch.toRows().get(0);
+        assertEquals(records.get(0).getName(), row.get("name"));
+        assertEquals(records.get(0).getSalary(), row.get("salary"));
+
+        ColumnarRecordBatch empty = ColumnarRecordDecoder.decode(encode(List.of(), null));
+        assertEquals(0, empty.getRowCount());
+        assertTrue(empty.toRows().isEmpty());
+    }
+
+    @Test
+    void testRejectsTruncatedOrForeignData() throws IOException {
+        byte[] data = encode(DynamicQueryFixtures.dataRecords(5), null);
+        assertThrows(IllegalArgumentException.class, () -> ColumnarRecordDecoder.decode(Arrays.copyOf(data, data.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> ColumnarRecordDecoder.decode("[{\"id\":1}]".getBytes()));
+    }
+
+    private static byte[] encode(List<DataRecord> records, Projection projection) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarRecordEncoder.encode(records, new ColumnarRecords(records, projection).getColumns(), out);
+        return out.toByteArray();
+    }
+}
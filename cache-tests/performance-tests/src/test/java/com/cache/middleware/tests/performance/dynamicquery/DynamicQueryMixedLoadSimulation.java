@@ -0,0 +1,86 @@
+package com.cache.middleware.tests.performance.dynamicquery;
+
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * 平台线程 / 虚拟线程两种执行模式的对比压测
+ * <p>
+ * 慢查询（宽区间过滤 + 计数）持续占用数据库连接，同时以固定速率发送按主键读取的快请求，
+ * 观察快请求的延迟是否被慢请求拖累，以及慢请求超出隔舱后是否快速返回 503 而不是堆积超时。
+ * 服务端分别以两种模式启动后各运行一次，比较报告中两个场景的 p50/p99 与 503 比例：
+ * <pre>
+ * VIRTUAL_THREADS_ENABLED=false java -jar dynamic-query-system.jar
+ * VIRTUAL_THREADS_ENABLED=true  java -jar dynamic-query-system.jar   # 需 JDK 21
+ * mvn -f cache-tests/performance-tests/pom.xml gatling:test \
+ *     -Dgatling.simulationClass=com.cache.middleware.tests.performance.dynamicquery.DynamicQueryMixedLoadSimulation \
+ *     -DbaseUrl=http://localhost:8080 -DslowUsers=400 -DfastRps=200 -DdurationSeconds=120
+ * </pre>
+ * 两次运行需使用相同的连接池大小与 dynamic-query.bulkhead 配置，
+ * 平台线程模式下 Tomcat 工作线程数（server.tomcat.threads.max，默认 200）即在途请求上限
+ */
+public class DynamicQueryMixedLoadSimulation extends Simulation {
+
+    private static final String BASE_URL = System.getProperty("baseUrl", "http://localhost:8080");
+
+    private static final int SLOW_USERS = Integer.getInteger("slowUsers", 400);
+
+    private static final int FAST_RPS = Integer.getInteger("fastRps", 200);
+
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("durationSeconds", 120));
+
+    private static final long MAX_ID = Long.getLong("maxId", 10_000L);
+
+    private final Iterator<Map<String, Object>> ids = Stream.generate(
+            () -> Map.<String, Object>of("id", ThreadLocalRandom.current().nextLong(1, MAX_ID + 1))).iterator();
+
+    /**
+     * 区间下界随机，避免慢查询命中结果缓存
+     */
+    private final Iterator<Map<String, Object>> ranges = Stream.generate(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Map.<String, Object>of("minAge", random.nextInt(18, 30), "minSalary", random.nextInt(1000, 5000));
+    }).iterator();
+
+    private final HttpProtocolBuilder httpProtocol = http
+            .baseUrl(BASE_URL)
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json")
+            .shareConnections();
+
+    private final ScenarioBuilder slowQueries = scenario("slow-filter-query")
+            .feed(ranges)
+            .exec(http("filter-query")
+                    .post("/api/data/query?pageSize=1000")
+                    .body(StringBody("{\"ageRange\":[\"#{minAge},90\"],\"salary\":[\"#{minSalary},100000\"]}"))
+                    .check(status().in(200, 503)))
+            .exec(http("filter-count")
+                    .post("/api/data/count")
+                    .body(StringBody("{\"salary\":[\"#{minSalary},100000\"]}"))
+                    .check(status().in(200, 503)));
+
+    private final ScenarioBuilder fastLookups = scenario("fast-lookup")
+            .feed(ids)
+            .exec(http("get-by-id")
+                    .get("/api/data/#{id}")
+                    .check(status().in(200, 404, 503)));
+
+    {
+        setUp(
+                slowQueries.injectClosed(constantConcurrentUsers(SLOW_USERS).during(DURATION)),
+                fastLookups.injectOpen(constantUsersPerSec(FAST_RPS).during(DURATION))
+        ).protocols(httpProtocol)
+                .assertions(details("get-by-id").responseTime().percentile(99.0).lt(1000));
+    }
+}
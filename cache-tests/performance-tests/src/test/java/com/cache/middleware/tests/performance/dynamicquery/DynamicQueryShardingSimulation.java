@@ -0,0 +1,72 @@
+package com.cache.middleware.tests.performance.dynamicquery;
+
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * 主键区间分片执行的加速比压测
+ * <p>
+ * 以少量并发用户反复执行命中率低的宽过滤分页与计数（单条SQL需扫描大部分数据），
+ * 服务端依次以不同分片数启动后各运行一次，比较报告中 filter-page / filter-count 的平均值与 p50，
+ * 以分片数 1（不分片）为基准计算加速比：
+ * <pre>
+ * DYNAMIC_QUERY_SHARDING_ENABLED=false                          java -jar dynamic-query-system.jar
+ * DYNAMIC_QUERY_SHARDING_ENABLED=true DYNAMIC_QUERY_SHARDS=2    java -jar dynamic-query-system.jar
+ * DYNAMIC_QUERY_SHARDING_ENABLED=true DYNAMIC_QUERY_SHARDS=4    java -jar dynamic-query-system.jar
+ * DYNAMIC_QUERY_SHARDING_ENABLED=true DYNAMIC_QUERY_SHARDS=8    java -jar dynamic-query-system.jar
+ * mvn -f cache-tests/performance-tests/pom.xml gatling:test \
+ *     -Dgatling.simulationClass=com.cache.middleware.tests.performance.dynamicquery.DynamicQueryShardingSimulation \
+ *     -DbaseUrl=http://localhost:8080 -Dusers=4 -DdurationSeconds=120
+ * </pre>
+ * 数据量需远大于 dynamic-query.sharding.min-rows-per-shard × 分片数，否则实际分片数会被截断（见 /api/data/sharding/stats）；
+ * 并发用户数 × 分片数不宜超过连接池大小，否则测到的是数据库并发隔舱的排队时间。
+ * 关闭结果缓存（dynamic-query.result-cache.enabled=false）与列式副本，保证每次请求都执行SQL
+ */
+public class DynamicQueryShardingSimulation extends Simulation {
+
+    private static final String BASE_URL = System.getProperty("baseUrl", "http://localhost:8080");
+
+    private static final int USERS = Integer.getInteger("users", 4);
+
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("durationSeconds", 120));
+
+    /**
+     * 薪资下界取高位随机值：匹配行少且分散，单条SQL需扫描大部分数据才能凑满一页
+     */
+    private final Iterator<Map<String, Object>> filters = Stream.generate(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Map.<String, Object>of("minSalary", random.nextInt(90000, 99000), "minAge", random.nextInt(50, 60));
+    }).iterator();
+
+    private final HttpProtocolBuilder httpProtocol = http
+            .baseUrl(BASE_URL)
+            .acceptHeader("application/json")
+            .contentTypeHeader("application/json");
+
+    private final ScenarioBuilder shardedFilters = scenario("sharded-filter")
+            .feed(filters)
+            .exec(http("filter-page")
+                    .post("/api/data/query?pageSize=100")
+                    .body(StringBody("{\"salary\":[\"#{minSalary},100000\"],\"ageRange\":[\"#{minAge},90\"]}"))
+                    .check(status().is(200)))
+            .exec(http("filter-count")
+                    .post("/api/data/count")
+                    .body(StringBody("{\"salary\":[\"#{minSalary},100000\"]}"))
+                    .check(status().is(200)));
+
+    {
+        setUp(shardedFilters.injectClosed(constantConcurrentUsers(USERS).during(DURATION)))
+                .protocols(httpProtocol);
+    }
+}
@@ -3,9 +3,11 @@ package com.mycompany.dynamicquery;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.mycompany.dynamicquery.mapper")
+@EnableScheduling
 public class DynamicQueryApplication {
 
     public static void main(String[] args) {
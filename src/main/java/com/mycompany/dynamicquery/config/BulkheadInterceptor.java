@@ -0,0 +1,48 @@
+package com.mycompany.dynamicquery.config;
+
+import com.mycompany.dynamicquery.util.DataSourceBulkhead;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 所有 MyBatis 语句执行前经过数据库并发隔舱（由 MyBatis 自动配置注册）
+ * 许可在取得连接之前获取，覆盖整个语句执行（流式查询覆盖整个逐行回调过程）；
+ * 事务内的语句已持有连接，不再获取许可，避免持有连接的事务与持有许可的请求相互等待
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class BulkheadInterceptor implements Interceptor {
+
+    @Autowired
+    private DataSourceBulkhead dataSourceBulkhead;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return invocation.proceed();
+        }
+        dataSourceBulkhead.acquire();
+        try {
+            return invocation.proceed();
+        } finally {
+            dataSourceBulkhead.release();
+        }
+    }
+}
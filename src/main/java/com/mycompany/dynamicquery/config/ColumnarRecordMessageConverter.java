@@ -0,0 +1,84 @@
+package com.mycompany.dynamicquery.config;
+
+import com.mycompany.dynamicquery.dto.ColumnarRecords;
+import com.mycompany.dynamicquery.util.ColumnarRecordEncoder;
+import com.mycompany.dynamicquery.util.DynamicQueryMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 以列式二进制格式写出查询结果（只写不读），耗时与 JSON 一样计入 serialize 阶段
+ * 由 Spring Boot 自动加入消息转换器列表，只处理 {@link ColumnarRecords}
+ */
+@Component
+public class ColumnarRecordMessageConverter extends AbstractHttpMessageConverter<ColumnarRecords> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(ColumnarRecordEncoder.MEDIA_TYPE_VALUE);
+
+    @Autowired
+    private DynamicQueryMetrics dynamicQueryMetrics;
+
+    public ColumnarRecordMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    /**
+     * Accept 中显式列出列式格式（不含通配符匹配）时才返回列式结果，其余客户端仍得到 JSON；
+     * Accept 格式错误时同样按 JSON 处理，不抛出异常
+     */
+    public static boolean isAccepted(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return false;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() > 0 && MEDIA_TYPE.equalsTypeAndSubtype(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ColumnarRecords.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ColumnarRecords readInternal(Class<? extends ColumnarRecords> clazz, HttpInputMessage inputMessage)
+            throws HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("列式格式只用于输出", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ColumnarRecords body, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        Timer.Sample sample = Timer.start();
+        try {
+            ColumnarRecordEncoder.encode(body.getRecords(), body.getColumns(), outputMessage.getBody());
+        } finally {
+            sample.stop(dynamicQueryMetrics.stageTimer(DynamicQueryMetrics.STAGE_SERIALIZE));
+        }
+    }
+}
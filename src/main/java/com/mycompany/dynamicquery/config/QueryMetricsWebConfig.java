@@ -0,0 +1,94 @@
+package com.mycompany.dynamicquery.config;
+
+import com.mycompany.dynamicquery.util.DynamicQueryMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * 在默认 JSON 消息转换器之前加入记录序列化耗时（serialize 阶段）的转换器，
+ * 只写出 {@link TimedSerialization} 标注接口的响应，其余响应仍由默认转换器写出、不计入该阶段
+ */
+@Configuration
+public class QueryMetricsWebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private DynamicQueryMetrics dynamicQueryMetrics;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            HttpMessageConverter<?> converter = converters.get(i);
+            if (converter.getClass() == MappingJackson2HttpMessageConverter.class) {
+                converters.add(i, new TimedJacksonConverter((MappingJackson2HttpMessageConverter) converter,
+                        dynamicQueryMetrics.stageTimer(DynamicQueryMetrics.STAGE_SERIALIZE)));
+                return;
+            }
+        }
+    }
+
+    private static final class TimedJacksonConverter extends MappingJackson2HttpMessageConverter {
+
+        private final Timer timer;
+
+        private TimedJacksonConverter(MappingJackson2HttpMessageConverter delegate, Timer timer) {
+            super(delegate.getObjectMapper());
+            setSupportedMediaTypes(delegate.getSupportedMediaTypes());
+            this.timer = timer;
+        }
+
+        @Override
+        public boolean canRead(Class<?> clazz, MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+            return isTimedHandler() && super.canWrite(clazz, mediaType);
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                throws IOException, HttpMessageNotWritableException {
+            Timer.Sample sample = Timer.start();
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                sample.stop(timer);
+            }
+        }
+
+        /**
+         * 当前请求匹配的接口是否标注了 {@link TimedSerialization}（异步接口结果在重新分派的请求中写出，同样可取到）
+         */
+        private static boolean isTimedHandler() {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes == null) {
+                return false;
+            }
+            Object handler = attributes.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                    RequestAttributes.SCOPE_REQUEST);
+            return handler instanceof HandlerMethod handlerMethod
+                    && handlerMethod.hasMethodAnnotation(TimedSerialization.class);
+        }
+    }
+}
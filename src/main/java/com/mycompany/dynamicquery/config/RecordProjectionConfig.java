@@ -0,0 +1,22 @@
+package com.mycompany.dynamicquery.config;
+
+import com.mycompany.dynamicquery.dto.Projection;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 为 DataRecord 注册投影属性过滤器：默认输出全部属性，
+ * 按投影查询时由 {@link Projection#getFilters()} 只保留请求的字段
+ */
+@Configuration
+public class RecordProjectionConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer recordProjectionCustomizer() {
+        return builder -> builder
+                .mixIn(DataRecord.class, Projection.FilterMixin.class)
+                .filters(Projection.ALL_FIELDS);
+    }
+}
@@ -0,0 +1,40 @@
+package com.mycompany.dynamicquery.config;
+
+import com.mycompany.dynamicquery.util.QueryDeadline;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+
+/**
+ * 执行中的语句登记到当前线程的查询截止时间（由 MyBatis 自动配置注册）
+ * 截止时间到期或客户端断开时这些语句被取消；已取消的请求不再执行新的语句
+ */
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class})
+})
+public class StatementCancellationInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        QueryDeadline deadline = QueryDeadline.current();
+        if (deadline == null) {
+            return invocation.proceed();
+        }
+        deadline.checkActive();
+        Statement statement = (Statement) invocation.getArgs()[0];
+        deadline.register(statement);
+        try {
+            return invocation.proceed();
+        } finally {
+            deadline.unregister(statement);
+        }
+    }
+}
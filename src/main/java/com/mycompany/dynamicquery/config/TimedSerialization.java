@@ -0,0 +1,17 @@
+package com.mycompany.dynamicquery.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注返回动态查询结果的接口：响应的 JSON 序列化耗时计入 serialize 阶段（见 {@link QueryMetricsWebConfig}），
+ * 未标注的接口（配置管理、统计信息等）不计入
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TimedSerialization {
+}
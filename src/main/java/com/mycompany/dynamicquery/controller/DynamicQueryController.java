@@ -1,39 +1,299 @@
 package com.mycompany.dynamicquery.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mycompany.dynamicquery.config.ColumnarRecordMessageConverter;
+import com.mycompany.dynamicquery.config.TimedSerialization;
+import com.mycompany.dynamicquery.dto.BatchWriteResult;
+import com.mycompany.dynamicquery.dto.ColumnarRecords;
+import com.mycompany.dynamicquery.dto.FacetRequest;
+import com.mycompany.dynamicquery.dto.FacetResult;
+import com.mycompany.dynamicquery.dto.MultiQueryItem;
+import com.mycompany.dynamicquery.dto.MultiQueryResult;
+import com.mycompany.dynamicquery.dto.PageResult;
+import com.mycompany.dynamicquery.dto.Projection;
 import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.service.DataRecordBatchService;
 import com.mycompany.dynamicquery.service.DynamicQueryService;
+import com.mycompany.dynamicquery.service.FacetService;
+import com.mycompany.dynamicquery.service.MultiQueryService;
+import com.mycompany.dynamicquery.service.RecordSubscriptionService;
+import com.mycompany.dynamicquery.util.DataSourceBulkhead;
+import com.mycompany.dynamicquery.util.QueryConditionBuilder;
+import com.mycompany.dynamicquery.util.QueryDeadline;
+import com.mycompany.dynamicquery.util.QueryTimeoutManager;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.mybatis.spring.MyBatisSystemException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/data")
 public class DynamicQueryController {
 
+    /**
+     * 下一页游标响应头，没有更多数据时不返回
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * 实时订阅ID响应头，用于注销订阅
+     */
+    public static final String SUBSCRIPTION_ID_HEADER = "X-Subscription-Id";
+
     @Autowired
     private DynamicQueryService dynamicQueryService;
 
+    @Autowired
+    private DataRecordBatchService dataRecordBatchService;
+
+    @Autowired
+    private MultiQueryService multiQueryService;
+
+    @Autowired
+    private FacetService facetService;
+
+    @Autowired
+    private RecordSubscriptionService recordSubscriptionService;
+
+    @Autowired
+    private QueryConditionBuilder queryConditionBuilder;
+
+    @Autowired
+    private DataSourceBulkhead dataSourceBulkhead;
+
+    @Autowired
+    private QueryTimeoutManager queryTimeoutManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${dynamic-query.export.flush-rows:1000}")
+    private int exportFlushRows;
+
+    /**
+     * 分页查询
+     * @param fields 列投影（如 fields=name,department,salary），只读取并返回这些字段，不传时返回全部字段
+     * @param accept 显式接受 application/vnd.dynamic-query.columnar 时以列式二进制格式返回，否则返回 JSON
+     */
     @PostMapping("/query")
-    public ResponseEntity<List<DataRecord>> queryData(@RequestBody Map<String, List<String>> queryParams) {
+    @TimedSerialization
+    public WebAsyncTask<ResponseEntity<?>> queryData(@RequestBody Map<String, List<String>> queryParams,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer pageSize,
+                                                    @RequestParam(required = false) List<String> fields,
+                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean columnar = ColumnarRecordMessageConverter.isAccepted(accept);
+        return withDeadline("query", () -> {
+            Projection projection;
+            try {
+                projection = dynamicQueryService.resolveProjection(fields);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+            try {
+                PageResult<DataRecord> page = dynamicQueryService.queryPageByConditions(queryParams, projection, cursor, pageSize);
+                return pageResponse(page, projection, columnar);
+            } catch (Exception e) {
+                return failureResponse(e);
+            }
+        });
+    }
+
+    /**
+     * 流式导出查询结果（NDJSON，每行一条记录）
+     * 结果逐行从数据库读取并写入响应，首行写出后立即刷新，内存占用与结果集大小无关；
+     * 条件与投影在返回响应前解析校验，不合法时返回 400，响应体中只流式写出记录
+     * @param fields 列投影，只读取并写出这些字段，不传时写出全部字段
+     */
+    @PostMapping(value = "/export", produces = NDJSON_VALUE)
+    public ResponseEntity<?> exportData(@RequestBody Map<String, List<String>> queryParams,
+                                        @RequestParam(required = false) List<String> fields) {
+        Projection projection;
+        Map<String, Object> buildResult;
         try {
-            List<DataRecord> results = dynamicQueryService.queryByConditions(queryParams);
-            return ResponseEntity.ok(results);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+            projection = dynamicQueryService.resolveProjection(fields);
+            buildResult = queryConditionBuilder.buildQueryConditions(queryParams);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
         }
+        // 由本方法控制刷新时机，关闭每次写值后的自动刷新
+        ObjectWriter recordWriter = objectMapper.writerFor(DataRecord.class)
+                .with(projection != null ? projection.getFilters() : Projection.ALL_FIELDS)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            QueryDeadline deadline = queryTimeoutManager.start("export");
+            int[] written = {0};
+            try {
+                deadline.run(() -> dynamicQueryService.stream(buildResult, projection, record -> {
+                    try {
+                        recordWriter.writeValue(generator, record);
+                        generator.writeRaw('\n');
+                        written[0]++;
+                        // flush-rows 不大于 0 时只在首行和结束时刷新
+                        if (written[0] == 1 || (exportFlushRows > 0 && written[0] % exportFlushRows == 0)) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        // 写出失败即客户端已断开：先取消语句，否则关闭流式结果集时驱动会读完剩余的行
+                        queryTimeoutManager.cancel(deadline, QueryDeadline.Reason.CLIENT_DISCONNECTED);
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            } finally {
+                queryTimeoutManager.finish(deadline);
+                generator.close();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
     }
 
     @PostMapping("/count")
-    public ResponseEntity<Integer> countData(@RequestBody Map<String, List<String>> queryParams) {
-        try {
-            int count = dynamicQueryService.countByConditions(queryParams);
-            return ResponseEntity.ok(count);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+    @TimedSerialization
+    public WebAsyncTask<ResponseEntity<?>> countData(@RequestBody Map<String, List<String>> queryParams) {
+        return withDeadline("count", () -> {
+            try {
+                int count = dynamicQueryService.countByConditions(queryParams);
+                return ResponseEntity.ok(count);
+            } catch (Exception e) {
+                return failureResponse(e);
+            }
+        });
+    }
+
+    /**
+     * 一次请求执行多个查询/计数：共用配置快照，相同查询只执行一次，去重后并发执行
+     */
+    @PostMapping("/multi-query")
+    @TimedSerialization
+    public WebAsyncTask<ResponseEntity<?>> multiQuery(@RequestBody List<MultiQueryItem> items) {
+        return withDeadline("multi-query", () -> {
+            try {
+                MultiQueryResult result = multiQueryService.execute(items);
+                return ResponseEntity.ok(result);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 分面统计：满足条件的记录在多个字段上的值分布 / 直方图，一次请求一次扫描
+     */
+    @PostMapping("/facets")
+    @TimedSerialization
+    public WebAsyncTask<ResponseEntity<?>> facets(@RequestBody FacetRequest request) {
+        return withDeadline("facets", () -> {
+            try {
+                FacetResult result = facetService.facet(request);
+                return ResponseEntity.ok(result);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 实时订阅：登记查询条件后以 SSE 推送进入（enter）、变更（change）、离开（leave）结果集的记录，
+     * 批量写入后推送 resync（需重新查询）；订阅ID在 subscribed 事件与 X-Subscription-Id 响应头中返回
+     * @param fields 事件中记录的列投影，不传时输出全部字段
+     */
+    @PostMapping(value = "/subscriptions", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@RequestBody Map<String, List<String>> queryParams,
+                                                @RequestParam(required = false) List<String> fields) {
+        return subscriptionResponse(queryParams, fields);
+    }
+
+    /**
+     * 以查询字符串传递条件的实时订阅（浏览器 EventSource 只能发起 GET），如 ?department=IT&amp;age=18,30；
+     * 参数 fields 为列投影（逗号分隔），不作为条件
+     */
+    @GetMapping(value = "/subscriptions", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeByQueryString(@RequestParam MultiValueMap<String, String> params) {
+        Map<String, List<String>> queryParams = new LinkedHashMap<>(params);
+        List<String> fields = null;
+        List<String> fieldValues = queryParams.remove("fields");
+        if (fieldValues != null) {
+            fields = new ArrayList<>();
+            for (String value : fieldValues) {
+                fields.addAll(Arrays.asList(value.split(",")));
+            }
         }
+        return subscriptionResponse(queryParams, fields);
+    }
+
+    @DeleteMapping("/subscriptions/{id}")
+    public ResponseEntity<Void> unsubscribe(@PathVariable String id) {
+        return recordSubscriptionService.unsubscribe(id) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/subscriptions/stats")
+    public ResponseEntity<Map<String, Object>> getSubscriptionStats() {
+        return ResponseEntity.ok(recordSubscriptionService.getStats());
+    }
+
+    @GetMapping("/sql-plan-cache/stats")
+    public ResponseEntity<Map<String, Object>> getSqlPlanCacheStats() {
+        return ResponseEntity.ok(dynamicQueryService.getSqlPlanCacheStats());
+    }
+
+    @GetMapping("/result-cache/stats")
+    public ResponseEntity<Map<String, Object>> getResultCacheStats() {
+        return ResponseEntity.ok(dynamicQueryService.getResultCacheStats());
+    }
+
+    @GetMapping("/columnar/stats")
+    public ResponseEntity<Map<String, Object>> getColumnarReplicaStats() {
+        return ResponseEntity.ok(dynamicQueryService.getColumnarReplicaStats());
+    }
+
+    @GetMapping("/sharding/stats")
+    public ResponseEntity<Map<String, Object>> getShardingStats() {
+        return ResponseEntity.ok(dynamicQueryService.getShardingStats());
+    }
+
+    @GetMapping("/predicate-cache/stats")
+    public ResponseEntity<Map<String, Object>> getPredicateCacheStats() {
+        return ResponseEntity.ok(dynamicQueryService.getPredicateCacheStats());
+    }
+
+    @GetMapping("/timeouts/stats")
+    public ResponseEntity<Map<String, Object>> getTimeoutStats() {
+        return ResponseEntity.ok(queryTimeoutManager.getStats());
+    }
+
+    @GetMapping("/bulkhead/stats")
+    public ResponseEntity<Map<String, Object>> getBulkheadStats() {
+        return ResponseEntity.ok(dataSourceBulkhead.getStats());
     }
 
     @PostMapping
@@ -42,6 +302,21 @@ public class DynamicQueryController {
         return ResponseEntity.ok(savedRecord);
     }
 
+    /**
+     * 批量新增/更新记录，返回各分块的耗时与失败信息
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchSaveRecords(@RequestBody List<DataRecord> records,
+                                              @RequestParam(required = false) Integer chunkSize,
+                                              @RequestParam(defaultValue = "false") boolean atomic) {
+        try {
+            BatchWriteResult result = dataRecordBatchService.saveRecords(records, chunkSize, atomic);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<DataRecord> updateRecord(@PathVariable Long id, @RequestBody DataRecord record) {
         record.setId(id);
@@ -62,8 +337,123 @@ public class DynamicQueryController {
     }
 
     @GetMapping
-    public ResponseEntity<List<DataRecord>> getAllRecords() {
-        List<DataRecord> records = dynamicQueryService.getAllRecords();
-        return ResponseEntity.ok(records);
+    @TimedSerialization
+    public ResponseEntity<?> getAllRecords(@RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer pageSize) {
+        try {
+            PageResult<DataRecord> page = dynamicQueryService.getRecordPage(cursor, pageSize);
+            return pageResponse(page, null, false);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 未自行捕获异常的接口：数据库并发隔舱拒绝返回 503，其余按服务端错误处理
+     */
+    @ExceptionHandler(MyBatisSystemException.class)
+    public ResponseEntity<Void> handleMyBatisException(MyBatisSystemException e) {
+        if (isBulkheadRejection(e)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        throw e;
+    }
+
+    /**
+     * 异步执行线程池已满时返回 503
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Void> handleTaskRejected(TaskRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    /**
+     * 在接口的截止时间内异步执行（{@link QueryTimeoutManager#getExecutor()} 线程池）：截止时间到期取消执行中的语句并返回 504，
+     * 容器报告连接错误（客户端断开）时同样取消，不再占用连接
+     */
+    private WebAsyncTask<ResponseEntity<?>> withDeadline(String endpoint, Supplier<? extends ResponseEntity<?>> action) {
+        QueryDeadline deadline = queryTimeoutManager.start(endpoint);
+        WebAsyncTask<ResponseEntity<?>> task = new WebAsyncTask<>(queryTimeoutManager.asyncTimeoutMillis(deadline),
+                queryTimeoutManager.getExecutor(), () -> {
+            try {
+                return deadline.call(action);
+            } catch (RuntimeException e) {
+                if (deadline.isTimedOut()) {
+                    return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+                }
+                throw e;
+            } finally {
+                queryTimeoutManager.finish(deadline);
+            }
+        });
+        task.onTimeout(() -> {
+            queryTimeoutManager.cancel(deadline, QueryDeadline.Reason.TIMEOUT);
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        });
+        task.onError(() -> {
+            queryTimeoutManager.cancel(deadline, QueryDeadline.Reason.CLIENT_DISCONNECTED);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+        // 任务被线程池拒绝时不会执行，在请求结束时撤销到期任务
+        task.onCompletion(() -> queryTimeoutManager.finish(deadline));
+        return task;
+    }
+
+    /**
+     * 查询超时返回 504，数据库并发隔舱拒绝返回 503，其余视为请求错误
+     */
+    private static <T> ResponseEntity<T> failureResponse(Exception e) {
+        QueryDeadline deadline = QueryDeadline.current();
+        if (deadline != null && deadline.isTimedOut()) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        }
+        if (isBulkheadRejection(e)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * 隔舱在 MyBatis 拦截器中抛出 RejectedExecutionException，到达控制器时已被包装为 MyBatisSystemException
+     */
+    private static boolean isBulkheadRejection(Exception e) {
+        return ExceptionUtils.indexOfThrowable(e, RejectedExecutionException.class) >= 0;
+    }
+
+    /**
+     * 条件或投影无法解析返回 400，订阅数已满返回 503
+     */
+    private ResponseEntity<SseEmitter> subscriptionResponse(Map<String, List<String>> queryParams, List<String> fields) {
+        RecordSubscriptionService.Subscription subscription;
+        try {
+            subscription = recordSubscriptionService.subscribe(queryParams, dynamicQueryService.resolveProjection(fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .header(SUBSCRIPTION_ID_HEADER, subscription.getId())
+                .body(subscription.getEmitter());
+    }
+
+    /**
+     * 有列投影时只序列化投影字段
+     */
+    private ResponseEntity<?> pageResponse(PageResult<DataRecord> page, Projection projection, boolean columnar) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.isHasMore()) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        if (columnar) {
+            return builder.contentType(ColumnarRecordMessageConverter.MEDIA_TYPE)
+                    .body(new ColumnarRecords(page.getRecords(), projection));
+        }
+        if (projection == null) {
+            return builder.body(page.getRecords());
+        }
+        MappingJacksonValue body = new MappingJacksonValue(page.getRecords());
+        body.setFilters(projection.getFilters());
+        return builder.body(body);
     }
 }
\ No newline at end of file
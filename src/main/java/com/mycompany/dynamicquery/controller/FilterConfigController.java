@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/filter-config")
@@ -66,6 +67,11 @@ public class FilterConfigController {
         return ResponseEntity.ok(examples);
     }
 
+    @GetMapping("/expression-cache/stats")
+    public ResponseEntity<Map<String, Object>> getExpressionCacheStats() {
+        return ResponseEntity.ok(filterConfigService.getExpressionCacheStats());
+    }
+
     @PostMapping("/validate")
     public ResponseEntity<String> validateExpression(@RequestBody String expression) {
         try {
@@ -0,0 +1,61 @@
+package com.mycompany.dynamicquery.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写入结果
+ */
+@Data
+public class BatchWriteResult {
+    
+    private int total;
+    
+    private int inserted;
+    
+    private int upserted;
+    
+    private int failed;
+    
+    /**
+     * 是否整体在同一事务中执行
+     */
+    private boolean atomic;
+    
+    /**
+     * 整体事务是否已回滚（仅原子模式）
+     */
+    private boolean rolledBack;
+    
+    private long elapsedMs;
+    
+    private List<ChunkResult> chunks = new ArrayList<>();
+    
+    /**
+     * 单个分块的执行结果
+     */
+    @Data
+    public static class ChunkResult {
+        
+        private int index;
+        
+        private int size;
+        
+        private int inserted;
+        
+        private int upserted;
+        
+        private boolean success;
+        
+        /**
+         * 分块已写入但随整体事务回滚（仅原子模式）
+         */
+        private boolean rolledBack;
+        
+        private String errorMessage;
+        
+        private long elapsedMs;
+    }
+}
@@ -0,0 +1,30 @@
+package com.mycompany.dynamicquery.dto;
+
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 以列式二进制格式输出的一页记录
+ * 未指定投影时输出全部字段，否则只输出投影请求的字段
+ */
+@Getter
+public class ColumnarRecords {
+
+    private final List<DataRecord> records;
+
+    /**
+     * 输出的列（按字段定义顺序）
+     */
+    private final List<DataRecordField> columns;
+
+    public ColumnarRecords(List<DataRecord> records, Projection projection) {
+        this.records = records;
+        this.columns = projection != null
+                ? List.copyOf(projection.getFields())
+                : Arrays.asList(DataRecordField.values());
+    }
+}
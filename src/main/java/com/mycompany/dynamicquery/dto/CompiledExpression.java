@@ -0,0 +1,70 @@
+package com.mycompany.dynamicquery.dto;
+
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 预编译的筛选表达式（不可变）
+ * 由配置表达式解析一次得到，可在线程间共享
+ */
+@Getter
+public final class CompiledExpression {
+
+    private final Long configId;
+
+    private final LocalDateTime configUpdatedTime;
+
+    private final String source;
+
+    private final String fieldName;
+
+    private final FilterOperator operator;
+
+    private final String value1;
+
+    private final String value2;
+
+    private final boolean valid;
+
+    private final String errorMessage;
+
+    private CompiledExpression(Long configId, LocalDateTime configUpdatedTime, String source,
+                               FilterExpression parsed) {
+        this.configId = configId;
+        this.configUpdatedTime = configUpdatedTime;
+        this.source = source;
+        this.fieldName = parsed.getFieldName();
+        this.operator = parsed.getOperator();
+        this.value1 = parsed.getValue1();
+        this.value2 = parsed.getValue2();
+        this.valid = parsed.isValid();
+        this.errorMessage = parsed.getErrorMessage();
+    }
+
+    public static CompiledExpression of(Long configId, LocalDateTime configUpdatedTime, String source,
+                                        FilterExpression parsed) {
+        return new CompiledExpression(configId, configUpdatedTime, source, parsed);
+    }
+
+    /**
+     * 判断是否由指定版本的配置编译而来
+     */
+    public boolean isCompiledFrom(LocalDateTime updatedTime, String expression) {
+        return Objects.equals(configUpdatedTime, updatedTime) && Objects.equals(source, expression);
+    }
+
+    public boolean isRangeOperator() {
+        return operator != null && operator.isRangeOperator();
+    }
+
+    public boolean isSetOperator() {
+        return operator != null && operator.isSetOperator();
+    }
+
+    public boolean isNaOperator() {
+        return operator == FilterOperator.NA;
+    }
+}
@@ -0,0 +1,23 @@
+package com.mycompany.dynamicquery.dto;
+
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 分面计数的中间结果（内存列式副本与SQL两种来源共用）
+ * 字符串字段的键为值（按排序规则合并后取其中一个写法），数值字段的键为直方图区间序号；null 键表示空值
+ */
+@Getter
+public final class FacetCounts {
+    
+    private final long total;
+    
+    private final Map<DataRecordField, Map<Object, Long>> counts;
+    
+    public FacetCounts(long total, Map<DataRecordField, Map<Object, Long>> counts) {
+        this.total = total;
+        this.counts = counts;
+    }
+}
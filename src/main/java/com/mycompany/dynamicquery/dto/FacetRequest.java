@@ -0,0 +1,28 @@
+package com.mycompany.dynamicquery.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分面统计请求
+ */
+@Data
+public class FacetRequest {
+    
+    /**
+     * 查询参数，与 /api/data/query、/api/data/count 的请求体相同
+     */
+    private Map<String, List<String>> params;
+    
+    /**
+     * 分面字段（data_record 列名或属性名）：字符串字段按值计数，数值字段按区间宽度统计直方图
+     */
+    private List<String> fields;
+    
+    /**
+     * 数值分面字段的直方图区间宽度，键为 fields 中的字段名
+     */
+    private Map<String, Double> intervals;
+}
@@ -0,0 +1,71 @@
+package com.mycompany.dynamicquery.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分面统计结果
+ */
+@Data
+public class FacetResult {
+    
+    /**
+     * 满足查询条件的记录数
+     */
+    private long total;
+    
+    /**
+     * 统计来源：columnar（内存列式副本）、sql，或 none（条件恒假，未执行查询）
+     */
+    private String source;
+    
+    private long elapsedMs;
+    
+    /**
+     * 字符串分面：字段名 → 按计数倒序的值计数
+     */
+    private Map<String, List<ValueCount>> values = new LinkedHashMap<>();
+    
+    /**
+     * 数值分面：字段名 → 按区间升序的直方图，空值区间排在最后
+     */
+    private Map<String, List<Bucket>> histograms = new LinkedHashMap<>();
+    
+    /**
+     * 单个值的计数，value 为 null 表示空值
+     */
+    @Data
+    public static class ValueCount {
+        
+        private String value;
+        
+        private long count;
+        
+        public ValueCount(String value, long count) {
+            this.value = value;
+            this.count = count;
+        }
+    }
+    
+    /**
+     * 直方图区间 [from, to)，from/to 为 null 表示空值
+     */
+    @Data
+    public static class Bucket {
+        
+        private Double from;
+        
+        private Double to;
+        
+        private long count;
+        
+        public Bucket(Double from, Double to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+    }
+}
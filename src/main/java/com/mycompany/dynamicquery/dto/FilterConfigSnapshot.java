@@ -0,0 +1,82 @@
+package com.mycompany.dynamicquery.dto;
+
+import com.mycompany.dynamicquery.entity.FilterConfig;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 筛选配置快照（不可变）
+ * 按字段名、别名、中文名建立索引，发布后只读，可在线程间安全共享
+ */
+@Getter
+public final class FilterConfigSnapshot {
+
+    public static final FilterConfigSnapshot EMPTY =
+            new FilterConfigSnapshot(0L, Collections.emptyList(), 0L, null);
+
+    private final long version;
+
+    private final List<FilterConfig> configs;
+
+    private final Map<String, FilterConfig> configsByKey;
+
+    /**
+     * 水位线：配置表总行数
+     */
+    private final long configCount;
+
+    /**
+     * 水位线：配置表最大更新时间
+     */
+    private final LocalDateTime maxUpdatedTime;
+
+    public FilterConfigSnapshot(long version, List<FilterConfig> activeConfigs,
+                                long configCount, LocalDateTime maxUpdatedTime) {
+        this.version = version;
+        this.configs = Collections.unmodifiableList(new ArrayList<>(activeConfigs));
+        this.configsByKey = Collections.unmodifiableMap(buildConfigMaps(activeConfigs));
+        this.configCount = configCount;
+        this.maxUpdatedTime = maxUpdatedTime;
+    }
+
+    /**
+     * 根据字段键（字段名/别名/中文名）查找配置
+     */
+    public FilterConfig findByKey(String fieldKey) {
+        return fieldKey == null ? null : configsByKey.get(fieldKey);
+    }
+
+    /**
+     * 判断水位线是否与当前快照一致
+     */
+    public boolean matchesWatermark(long count, LocalDateTime updatedTime) {
+        return configCount == count && Objects.equals(maxUpdatedTime, updatedTime);
+    }
+
+    /**
+     * 构建配置映射表（与原查询路径保持相同的覆盖顺序）
+     */
+    private static Map<String, FilterConfig> buildConfigMaps(List<FilterConfig> configs) {
+        Map<String, FilterConfig> result = new HashMap<>();
+
+        for (FilterConfig config : configs) {
+            // 字段名映射
+            result.put(config.getFieldName(), config);
+
+            // 别名映射
+            if (StringUtils.isNotBlank(config.getFieldAlias())) {
+                result.put(config.getFieldAlias(), config);
+            }
+
+            // 中文名映射
+            if (StringUtils.isNotBlank(config.getFieldChineseName())) {
+                result.put(config.getFieldChineseName(), config);
+            }
+        }
+
+        return result;
+    }
+}
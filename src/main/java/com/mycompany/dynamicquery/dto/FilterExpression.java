@@ -22,6 +22,11 @@ public class FilterExpression {
     
     private String errorMessage;
     
+    /**
+     * 错误位置（基于原始表达式的字符下标），-1 表示无位置信息
+     */
+    private int errorPosition = -1;
+    
     public boolean isRangeOperator() {
         return operator != null && operator.isRangeOperator();
     }
@@ -30,7 +35,11 @@ public class FilterExpression {
         return operator == FilterOperator.NA;
     }
     
+    public boolean isSetOperator() {
+        return operator != null && operator.isSetOperator();
+    }
+    
     public boolean isSingleValueOperator() {
-        return !isRangeOperator() && !isNaOperator();
+        return !isRangeOperator() && !isNaOperator() && !isSetOperator();
     }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.mycompany.dynamicquery.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 主键区间 [fromId, toId)，边界为 null 表示该侧不限
+ */
+@Data
+@NoArgsConstructor
+public class IdRange {
+    
+    private Long fromId;
+    
+    private Long toId;
+    
+    public IdRange(Long fromId, Long toId) {
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+}
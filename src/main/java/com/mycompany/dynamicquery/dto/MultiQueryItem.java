@@ -0,0 +1,43 @@
+package com.mycompany.dynamicquery.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多查询批量请求中的单个查询
+ */
+@Data
+public class MultiQueryItem {
+    
+    /**
+     * 查询名称，在同一批次内唯一，用于对应返回结果
+     */
+    private String name;
+    
+    private Type type = Type.QUERY;
+    
+    /**
+     * 查询参数，与 /api/data/query、/api/data/count 的请求体相同
+     */
+    private Map<String, List<String>> params;
+    
+    /**
+     * 分页游标与页大小（仅 QUERY）
+     */
+    private String cursor;
+    
+    private Integer pageSize;
+    
+    public enum Type {
+        /**
+         * 分页查询记录
+         */
+        QUERY,
+        /**
+         * 计数
+         */
+        COUNT
+    }
+}
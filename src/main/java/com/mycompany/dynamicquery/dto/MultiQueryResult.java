@@ -0,0 +1,60 @@
+package com.mycompany.dynamicquery.dto;
+
+import com.mycompany.dynamicquery.entity.DataRecord;
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多查询批量执行结果
+ */
+@Data
+public class MultiQueryResult {
+    
+    private int total;
+    
+    /**
+     * 去重后实际执行的查询数
+     */
+    private int executed;
+    
+    /**
+     * 本批次使用的配置快照版本
+     */
+    private long configVersion;
+    
+    private long elapsedMs;
+    
+    /**
+     * 按请求顺序排列的各查询结果（键为查询名称）
+     */
+    private Map<String, ItemResult> results = new LinkedHashMap<>();
+    
+    /**
+     * 单个查询的执行结果
+     */
+    @Data
+    public static class ItemResult {
+        
+        private MultiQueryItem.Type type;
+        
+        private boolean success;
+        
+        private String errorMessage;
+        
+        /**
+         * 与批次内先出现的相同查询共用一次执行
+         */
+        private boolean deduplicated;
+        
+        private List<DataRecord> records;
+        
+        private Boolean hasMore;
+        
+        private String nextCursor;
+        
+        private Integer count;
+    }
+}
@@ -0,0 +1,24 @@
+package com.mycompany.dynamicquery.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 条件优化结果
+ */
+@Getter
+public final class OptimizedConditions {
+
+    private final List<QueryCondition> conditions;
+
+    /**
+     * 是否存在恒假的字段条件组（整个查询必然无结果）
+     */
+    private final boolean unsatisfiable;
+
+    public OptimizedConditions(List<QueryCondition> conditions, boolean unsatisfiable) {
+        this.conditions = conditions;
+        this.unsatisfiable = unsatisfiable;
+    }
+}
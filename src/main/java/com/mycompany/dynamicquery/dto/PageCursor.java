@@ -0,0 +1,55 @@
+package com.mycompany.dynamicquery.dto;
+
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 键集分页游标：上一页最后一条记录的 (created_time, id)
+ * 对外以不透明的 Base64 字符串传递
+ */
+@Data
+public class PageCursor {
+    
+    private static final String SEPARATOR = "|";
+    
+    private LocalDateTime createdTime;
+    
+    private Long id;
+    
+    public PageCursor(LocalDateTime createdTime, Long id) {
+        this.createdTime = createdTime;
+        this.id = id;
+    }
+    
+    /**
+     * 编码为不透明的游标字符串
+     */
+    public String encode() {
+        String raw = createdTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析游标字符串，空值表示从第一页开始
+     */
+    public static PageCursor decode(String token) {
+        if (StringUtils.isBlank(token)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index <= 0) {
+                throw new IllegalArgumentException("无效的分页游标: " + token);
+            }
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, index)), Long.valueOf(raw.substring(index + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.mycompany.dynamicquery.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 键集分页结果
+ */
+@Data
+public class PageResult<T> {
+    
+    private List<T> records;
+    
+    private int pageSize;
+    
+    private boolean hasMore;
+    
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+    
+    public PageResult(List<T> records, int pageSize, boolean hasMore, String nextCursor) {
+        this.records = records;
+        this.pageSize = pageSize;
+        this.hasMore = hasMore;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,21 @@
+package com.mycompany.dynamicquery.dto;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 已绑定参数的查询：共享的SQL计划 + 本次请求的参数
+ */
+@Getter
+public final class PreparedQuery {
+    
+    private final SqlPlan plan;
+    
+    private final Map<String, Object> params;
+    
+    public PreparedQuery(SqlPlan plan, Map<String, Object> params) {
+        this.plan = plan;
+        this.params = params;
+    }
+}
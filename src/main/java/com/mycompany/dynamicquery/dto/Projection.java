@@ -0,0 +1,65 @@
+package com.mycompany.dynamicquery.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * 查询结果的列投影：SELECT 只读取投影列，响应只序列化请求的字段
+ * 分页排序与游标依赖的 id、created_time 总是读取，未请求时不输出
+ */
+@Getter
+public final class Projection {
+
+    /**
+     * DataRecord 序列化时使用的属性过滤器（由 {@link FilterMixin} 挂到 DataRecord 上）
+     */
+    public static final String FILTER_ID = "dataRecordProjection";
+
+    /**
+     * 未指定投影时输出全部属性
+     */
+    public static final FilterProvider ALL_FIELDS = new SimpleFilterProvider()
+            .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+
+    /**
+     * 请求的字段（按字段定义顺序）
+     */
+    private final Set<DataRecordField> fields;
+
+    /**
+     * 读取的列，按字段定义顺序排列，相同投影得到相同的SQL文本
+     */
+    private final String columnList;
+
+    private final FilterProvider filters;
+
+    public Projection(Collection<DataRecordField> fields) {
+        this.fields = Collections.unmodifiableSet(EnumSet.copyOf(fields));
+
+        Set<DataRecordField> columns = EnumSet.copyOf(fields);
+        columns.add(DataRecordField.ID);
+        columns.add(DataRecordField.CREATED_TIME);
+        StringJoiner columnList = new StringJoiner(", ");
+        for (DataRecordField column : columns) {
+            columnList.add(column.getColumn());
+        }
+        this.columnList = columnList.toString();
+
+        Set<String> properties = new HashSet<>();
+        for (DataRecordField field : fields) {
+            properties.add(field.getProperty());
+        }
+        this.filters = new SimpleFilterProvider()
+                .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(properties));
+    }
+
+    @JsonFilter(FILTER_ID)
+    public interface FilterMixin {
+    }
+}
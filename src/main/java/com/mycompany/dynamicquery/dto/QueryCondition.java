@@ -3,6 +3,8 @@ package com.mycompany.dynamicquery.dto;
 import com.mycompany.dynamicquery.enums.FilterOperator;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class QueryCondition {
     
@@ -14,6 +16,11 @@ public class QueryCondition {
     
     private Object value2;
     
+    /**
+     * 集合操作符（IN / NOT_IN）的值列表
+     */
+    private List<Object> values;
+    
     private String sqlCondition;
     
     public QueryCondition(String fieldName, FilterOperator operator, Object value1) {
@@ -28,4 +35,13 @@ public class QueryCondition {
         this.value1 = value1;
         this.value2 = value2;
     }
+    
+    /**
+     * 集合条件（IN / NOT_IN）；不重载构造方法，避免 null 值实参匹配到列表版本
+     */
+    public static QueryCondition ofValues(String fieldName, FilterOperator operator, List<Object> values) {
+        QueryCondition condition = new QueryCondition(fieldName, operator, null);
+        condition.setValues(values);
+        return condition;
+    }
 }
\ No newline at end of file
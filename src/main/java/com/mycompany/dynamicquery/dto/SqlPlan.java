@@ -0,0 +1,37 @@
+package com.mycompany.dynamicquery.dto;
+
+import lombok.Getter;
+
+/**
+ * 按查询条件形状编译的SQL计划（不可变）
+ * WHERE 子句只包含 #{params.pN} 占位符，相同形状的查询复用同一SQL文本
+ */
+@Getter
+public final class SqlPlan {
+    
+    private final String shapeKey;
+    
+    /**
+     * " WHERE ..." 形式的条件子句，无条件时为空字符串
+     */
+    private final String whereClause;
+    
+    private final int parameterCount;
+    
+    public SqlPlan(String shapeKey, String conditionSql, int parameterCount) {
+        this.shapeKey = shapeKey;
+        this.whereClause = conditionSql.isEmpty() ? "" : " WHERE " + conditionSql;
+        this.parameterCount = parameterCount;
+    }
+    
+    public boolean hasConditions() {
+        return !whereClause.isEmpty();
+    }
+    
+    /**
+     * 在已有条件后追加条件时使用的连接词
+     */
+    public String conditionJoiner() {
+        return hasConditions() ? " AND " : " WHERE ";
+    }
+}
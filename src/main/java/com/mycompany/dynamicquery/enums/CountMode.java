@@ -0,0 +1,17 @@
+package com.mycompany.dynamicquery.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum CountMode {
+    
+    EXACT("精确计数，每次执行 COUNT(*)"),
+    CACHED("写入维护的计数器，超过 TTL 后重新执行 COUNT(*) 校准"),
+    ESTIMATED("表统计信息估算值（information_schema.TABLES），按 TTL 缓存");
+    
+    private final String description;
+    
+    CountMode(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,122 @@
+package com.mycompany.dynamicquery.enums;
+
+import com.mycompany.dynamicquery.entity.DataRecord;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * data_record 表字段定义
+ * 作为动态SQL的列白名单，同时描述字段类型与比较时使用的列表达式
+ */
+@Getter
+public enum DataRecordField {
+    
+    ID("id", "id", Long.class),
+    NAME("name", "name", String.class),
+    AGE("age", "age", Integer.class),
+    STATUS("status", "status", String.class),
+    SCORE("score", "score", Double.class, "ROUND(score, 2)"),
+    DEPARTMENT("department", "department", String.class),
+    EMAIL("email", "email", String.class),
+    PHONE("phone", "phone", String.class),
+    SALARY("salary", "salary", Double.class, "ROUND(salary, 2)"),
+    HIRE_DATE("hire_date", "hireDate", LocalDateTime.class),
+    CREATED_TIME("created_time", "createdTime", LocalDateTime.class),
+    UPDATED_TIME("updated_time", "updatedTime", LocalDateTime.class);
+    
+    private static final Map<String, DataRecordField> BY_NAME = new HashMap<>();
+    
+    static {
+        for (DataRecordField field : values()) {
+            BY_NAME.put(field.column, field);
+            BY_NAME.put(field.property, field);
+        }
+    }
+    
+    private final String column;
+    
+    private final String property;
+    
+    private final Class<?> javaType;
+    
+    /**
+     * 查询值的解析与绑定类型（由实体列类型决定）
+     */
+    private final FieldValueType valueType;
+    
+    /**
+     * 比较条件中使用的列表达式（小数字段按两位小数比较）
+     */
+    private final String comparisonExpression;
+    
+    DataRecordField(String column, String property, Class<?> javaType) {
+        this(column, property, javaType, column);
+    }
+    
+    DataRecordField(String column, String property, Class<?> javaType, String comparisonExpression) {
+        this.column = column;
+        this.property = property;
+        this.javaType = javaType;
+        this.valueType = FieldValueType.of(javaType);
+        this.comparisonExpression = comparisonExpression;
+    }
+    
+    public boolean isStringType() {
+        return javaType == String.class;
+    }
+    
+    public boolean isNumericType() {
+        return Number.class.isAssignableFrom(javaType);
+    }
+    
+    /**
+     * 读取记录中该字段的值
+     */
+    public Object readValue(DataRecord record) {
+        switch (this) {
+            case ID:
+                return record.getId();
+            case NAME:
+                return record.getName();
+            case AGE:
+                return record.getAge();
+            case STATUS:
+                return record.getStatus();
+            case SCORE:
+                return record.getScore();
+            case DEPARTMENT:
+                return record.getDepartment();
+            case EMAIL:
+                return record.getEmail();
+            case PHONE:
+                return record.getPhone();
+            case SALARY:
+                return record.getSalary();
+            case HIRE_DATE:
+                return record.getHireDate();
+            case CREATED_TIME:
+                return record.getCreatedTime();
+            case UPDATED_TIME:
+                return record.getUpdatedTime();
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * 比较前是否按两位小数取整
+     */
+    public boolean isRounded() {
+        return !comparisonExpression.equals(column);
+    }
+    
+    /**
+     * 按列名或属性名查找字段，不存在时返回 null
+     */
+    public static DataRecordField fromName(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+}
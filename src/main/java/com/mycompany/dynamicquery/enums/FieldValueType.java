@@ -0,0 +1,172 @@
+package com.mycompany.dynamicquery.enums;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.type.JdbcType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 查询值类型
+ * 请求中的字符串值在构建条件时解析一次，按对应的 JDBC 类型绑定，不再依赖 MySQL 的隐式转换；
+ * 无法解析的值在访问数据库之前被拒绝
+ */
+@Getter
+public enum FieldValueType {
+    
+    STRING(String.class, JdbcType.VARCHAR, "字符串"),
+    INTEGER(Integer.class, JdbcType.INTEGER, "整数"),
+    LONG(Long.class, JdbcType.BIGINT, "整数"),
+    DOUBLE(Double.class, JdbcType.DOUBLE, "数值"),
+    DATETIME(LocalDateTime.class, JdbcType.TIMESTAMP, "日期时间");
+    
+    private static final Pattern NUMBER = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+    
+    /**
+     * 支持的日期时间格式，只有日期时按当天零点处理（与 MySQL 把日期字符串转为 DATETIME 的结果一致）
+     */
+    private static final List<DateTimeFormatter> DATE_TIME_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+    
+    private final Class<?> javaType;
+    
+    private final JdbcType jdbcType;
+    
+    private final String description;
+    
+    FieldValueType(Class<?> javaType, JdbcType jdbcType, String description) {
+        this.javaType = javaType;
+        this.jdbcType = jdbcType;
+        this.description = description;
+    }
+    
+    /**
+     * 把值转换为本类型（已是本类型时原样返回）
+     * @throws IllegalArgumentException 值无法转换为本类型
+     */
+    public Object parse(Object value) {
+        if (value == null || javaType.isInstance(value)) {
+            return value;
+        }
+        switch (this) {
+            case STRING:
+                return value.toString();
+            case INTEGER:
+                return toInteger(value).intValueExact();
+            case LONG:
+                return toInteger(value).longValueExact();
+            case DOUBLE:
+                return toDecimal(value).doubleValue();
+            case DATETIME:
+                return toDateTime(value);
+            default:
+                throw new IllegalStateException("未知的值类型: " + this);
+        }
+    }
+    
+    /**
+     * 实体列的Java类型对应的值类型
+     */
+    public static FieldValueType of(Class<?> javaType) {
+        for (FieldValueType type : values()) {
+            if (type.javaType == javaType) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("不支持的字段类型: " + javaType.getName());
+    }
+    
+    /**
+     * 过滤配置中声明的字段类型（filter_config.field_type），为空或无法识别时返回 null
+     */
+    public static FieldValueType fromDeclared(String fieldType) {
+        if (StringUtils.isBlank(fieldType)) {
+            return null;
+        }
+        switch (fieldType.trim().toUpperCase(Locale.ROOT)) {
+            case "STRING":
+            case "VARCHAR":
+            case "TEXT":
+                return STRING;
+            case "INTEGER":
+            case "INT":
+                return INTEGER;
+            case "LONG":
+            case "BIGINT":
+                return LONG;
+            case "DOUBLE":
+            case "DECIMAL":
+            case "FLOAT":
+            case "NUMBER":
+                return DOUBLE;
+            case "DATE":
+            case "DATETIME":
+            case "TIMESTAMP":
+                return DATETIME;
+            default:
+                return null;
+        }
+    }
+    
+    private BigDecimal toDecimal(Object value) {
+        String text = value.toString().trim();
+        if (!NUMBER.matcher(text).matches()) {
+            throw invalid(value);
+        }
+        BigDecimal decimal = new BigDecimal(text);
+        if (this == DOUBLE && Double.isInfinite(decimal.doubleValue())) {
+            throw invalid(value);
+        }
+        return decimal;
+    }
+    
+    /**
+     * 整数类型只接受没有小数部分且不超出列范围的值
+     */
+    private BigDecimal toInteger(Object value) {
+        BigDecimal decimal = toDecimal(value);
+        try {
+            BigDecimal integer = decimal.setScale(0);
+            if (this == INTEGER) {
+                integer.intValueExact();
+            } else {
+                integer.longValueExact();
+            }
+            return integer;
+        } catch (ArithmeticException e) {
+            throw invalid(value);
+        }
+    }
+    
+    private LocalDateTime toDateTime(Object value) {
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay();
+        }
+        String text = value.toString().trim();
+        for (DateTimeFormatter format : DATE_TIME_FORMATS) {
+            try {
+                return LocalDateTime.parse(text, format);
+            } catch (DateTimeParseException e) {
+                // 尝试下一种格式
+            }
+        }
+        try {
+            return LocalDate.parse(text).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw invalid(value);
+        }
+    }
+    
+    private IllegalArgumentException invalid(Object value) {
+        return new IllegalArgumentException("值 '" + value + "' 不是有效的" + description);
+    }
+}
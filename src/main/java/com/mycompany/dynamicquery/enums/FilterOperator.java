@@ -17,6 +17,9 @@ public enum FilterOperator {
     RANGE_RIGHT_OPEN(">=<", "左闭右开（>= 值1 且 < 值2）"),
     RANGE_OPEN("><", "开区间（> 值1 且 < 值2）"),
     
+    IN("IN", "在值集合中"),
+    NOT_IN("NOT IN", "不在值集合中"),
+    
     NA("NA", "空值或空字符串");
     
     private final String operator;
@@ -40,4 +43,11 @@ public enum FilterOperator {
         return this == RANGE_CLOSED || this == RANGE_LEFT_OPEN || 
                this == RANGE_RIGHT_OPEN || this == RANGE_OPEN;
     }
+    
+    /**
+     * 集合操作符：查询值作为一个值列表整体匹配
+     */
+    public boolean isSetOperator() {
+        return this == IN || this == NOT_IN;
+    }
 }
\ No newline at end of file
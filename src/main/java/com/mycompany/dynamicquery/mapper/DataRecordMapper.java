@@ -1,8 +1,17 @@
 package com.mycompany.dynamicquery.mapper;
 
+import com.mycompany.dynamicquery.dto.IdRange;
+import com.mycompany.dynamicquery.dto.PageCursor;
+import com.mycompany.dynamicquery.dto.Projection;
+import com.mycompany.dynamicquery.dto.SqlPlan;
 import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
 import java.util.Map;
@@ -14,13 +23,82 @@ public interface DataRecordMapper {
     
     int updateById(DataRecord record);
     
+    int batchInsert(List<DataRecord> records);
+    
+    int batchUpsert(List<DataRecord> records);
+    
     int deleteById(Long id);
     
     DataRecord selectById(Long id);
     
     List<DataRecord> selectAll();
     
-    List<DataRecord> selectByDynamicConditions(@Param("conditions") Map<String, Object> conditions);
+    int countAll();
+    
+    Long estimateRowCount();
+    
+    IdRange selectIdRange();
+    
+    /**
+     * 流式读取
+     * @param projection 列投影，为 null 时读取全部列
+     */
+    @SelectProvider(type = DataRecordSqlProvider.class, method = "selectByPlan")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void streamByPlan(@Param("plan") SqlPlan plan, @Param("params") Map<String, Object> params,
+                      @Param("projection") Projection projection, ResultHandler<DataRecord> handler);
+    
+    /**
+     * 键集分页读取
+     * @param projection 列投影，为 null 时读取全部列
+     */
+    @SelectProvider(type = DataRecordSqlProvider.class, method = "selectPageByPlan")
+    List<DataRecord> selectPageByPlan(@Param("plan") SqlPlan plan,
+                                      @Param("params") Map<String, Object> params,
+                                      @Param("projection") Projection projection,
+                                      @Param("cursor") PageCursor cursor,
+                                      @Param("limit") int limit);
+    
+    @SelectProvider(type = DataRecordSqlProvider.class, method = "countByPlan")
+    int countByPlan(@Param("plan") SqlPlan plan, @Param("params") Map<String, Object> params);
+    
+    /**
+     * 在一个主键区间分片内读取一页（分片并发执行时使用）
+     */
+    @SelectProvider(type = DataRecordSqlProvider.class, method = "selectShardPageByPlan")
+    List<DataRecord> selectShardPageByPlan(@Param("plan") SqlPlan plan,
+                                           @Param("params") Map<String, Object> params,
+                                           @Param("projection") Projection projection,
+                                           @Param("shard") IdRange shard,
+                                           @Param("cursor") PageCursor cursor,
+                                           @Param("limit") int limit);
+    
+    @SelectProvider(type = DataRecordSqlProvider.class, method = "countShardByPlan")
+    int countShardByPlan(@Param("plan") SqlPlan plan, @Param("params") Map<String, Object> params,
+                         @Param("shard") IdRange shard);
+    
+    /**
+     * 按所有分面字段的组合分组计数（一次扫描），列为 g0..gN（分组键）、v0..vN（字符串字段的值）、cnt
+     * @param intervals 与 facets 对应的直方图区间宽度，字符串字段为 null
+     */
+    @SelectProvider(type = DataRecordSqlProvider.class, method = "facetByPlan")
+    List<Map<String, Object>> facetByPlan(@Param("plan") SqlPlan plan, @Param("params") Map<String, Object> params,
+                                          @Param("facets") List<DataRecordField> facets,
+                                          @Param("intervals") List<Double> intervals,
+                                          @Param("limit") int limit);
+    
+    /**
+     * 逐字段分组计数后 UNION ALL（组合数过多时使用），列为 f（字段序号）、g、v、cnt
+     */
+    @SelectProvider(type = DataRecordSqlProvider.class, method = "facetUnionByPlan")
+    List<Map<String, Object>> facetUnionByPlan(@Param("plan") SqlPlan plan, @Param("params") Map<String, Object> params,
+                                               @Param("facets") List<DataRecordField> facets,
+                                               @Param("intervals") List<Double> intervals);
     
-    int countByDynamicConditions(@Param("conditions") Map<String, Object> conditions);
+    /**
+     * 按排序规则比较两个字符串（STRCMP），返回 -1、0 或 1
+     * @param collation utf8mb4 排序规则名称（由调用方校验）
+     */
+    @SelectProvider(type = DataRecordSqlProvider.class, method = "compareStrings")
+    int compareStrings(@Param("left") String left, @Param("right") String right, @Param("collation") String collation);
 }
\ No newline at end of file
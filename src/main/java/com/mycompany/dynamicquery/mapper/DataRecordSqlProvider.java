@@ -0,0 +1,156 @@
+package com.mycompany.dynamicquery.mapper;
+
+import com.mycompany.dynamicquery.dto.IdRange;
+import com.mycompany.dynamicquery.dto.Projection;
+import com.mycompany.dynamicquery.dto.SqlPlan;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * data_record 动态查询SQL提供者
+ * 直接拼接预编译好的 SqlPlan 条件子句，不再逐次执行 XML/OGNL 动态标签
+ */
+public class DataRecordSqlProvider {
+
+    static final String BASE_COLUMNS =
+            "id, name, age, status, score, department, email, phone, salary, hire_date, created_time, updated_time";
+
+    private static final String SELECT_FROM = "SELECT " + BASE_COLUMNS + " FROM data_record";
+
+    private static final String ORDER_BY = " ORDER BY created_time DESC";
+
+    private static final String PAGE_ORDER_BY = " ORDER BY created_time DESC, id DESC LIMIT #{limit}";
+
+    public String selectByPlan(Map<String, Object> parameter) {
+        return selectFrom(parameter) + plan(parameter).getWhereClause() + ORDER_BY;
+    }
+
+    public String countByPlan(Map<String, Object> parameter) {
+        return "SELECT COUNT(*) FROM data_record" + plan(parameter).getWhereClause();
+    }
+
+    public String selectPageByPlan(Map<String, Object> parameter) {
+        List<String> extra = new ArrayList<>();
+        appendCursor(parameter, extra);
+        return selectFrom(parameter) + whereClause(parameter, extra) + PAGE_ORDER_BY;
+    }
+
+    /**
+     * 分片分页：在原条件之后追加主键区间，各分片的结果按相同顺序排列，由调用方归并
+     */
+    public String selectShardPageByPlan(Map<String, Object> parameter) {
+        List<String> extra = new ArrayList<>();
+        appendShard(parameter, extra);
+        appendCursor(parameter, extra);
+        return selectFrom(parameter) + whereClause(parameter, extra) + PAGE_ORDER_BY;
+    }
+
+    public String countShardByPlan(Map<String, Object> parameter) {
+        List<String> extra = new ArrayList<>();
+        appendShard(parameter, extra);
+        return "SELECT COUNT(*) FROM data_record" + whereClause(parameter, extra);
+    }
+
+    /**
+     * 字符串按排序规则比较，参数先转为 utf8mb4 再指定排序规则，与 data_record 字符串列的比较一致
+     */
+    public String compareStrings(Map<String, Object> parameter) {
+        String collation = (String) parameter.get("collation");
+        return "SELECT STRCMP(CONVERT(#{left} USING utf8mb4) COLLATE " + collation
+                + ", CONVERT(#{right} USING utf8mb4) COLLATE " + collation + ")";
+    }
+
+    /**
+     * 有投影参数时只读取投影列（列名来自字段定义，可直接拼接）
+     */
+    private String selectFrom(Map<String, Object> parameter) {
+        Projection projection = parameter.containsKey("projection") ? (Projection) parameter.get("projection") : null;
+        return projection == null ? SELECT_FROM : "SELECT " + projection.getColumnList() + " FROM data_record";
+    }
+
+    private void appendCursor(Map<String, Object> parameter, List<String> extra) {
+        if (parameter.get("cursor") != null) {
+            extra.add("(created_time < #{cursor.createdTime}"
+                    + " OR (created_time = #{cursor.createdTime} AND id < #{cursor.id}))");
+        }
+    }
+
+    private void appendShard(Map<String, Object> parameter, List<String> extra) {
+        IdRange shard = (IdRange) parameter.get("shard");
+        if (shard.getFromId() != null) {
+            extra.add("id >= #{shard.fromId}");
+        }
+        if (shard.getToId() != null) {
+            extra.add("id < #{shard.toId}");
+        }
+    }
+
+    /**
+     * 计划的条件子句 + 追加条件
+     */
+    private String whereClause(Map<String, Object> parameter, List<String> extra) {
+        SqlPlan plan = plan(parameter);
+        if (extra.isEmpty()) {
+            return plan.getWhereClause();
+        }
+        return plan.getWhereClause() + plan.conditionJoiner() + String.join(" AND ", extra);
+    }
+
+    /**
+     * 分面分组：数值字段按 FLOOR(值 / 区间宽度) 分组，字符串字段按排序规则权重分组（与 GROUP BY 列相同的等值语义），
+     * 组合分组后由调用方按字段汇总
+     */
+    public String facetByPlan(Map<String, Object> parameter) {
+        List<DataRecordField> facets = facets(parameter);
+        List<String> columns = new ArrayList<>();
+        List<String> groups = new ArrayList<>();
+        for (int i = 0; i < facets.size(); i++) {
+            columns.add(facetKey(facets.get(i), parameter, i) + " AS g" + i);
+            if (facets.get(i).isStringType()) {
+                columns.add("MIN(" + facets.get(i).getColumn() + ") AS v" + i);
+            }
+            groups.add("g" + i);
+        }
+        return "SELECT " + String.join(", ", columns) + ", COUNT(*) AS cnt FROM data_record"
+                + plan(parameter).getWhereClause()
+                + " GROUP BY " + String.join(", ", groups)
+                + " LIMIT #{limit}";
+    }
+
+    public String facetUnionByPlan(Map<String, Object> parameter) {
+        List<DataRecordField> facets = facets(parameter);
+        String whereClause = plan(parameter).getWhereClause();
+        List<String> branches = new ArrayList<>();
+        for (int i = 0; i < facets.size(); i++) {
+            DataRecordField field = facets.get(i);
+            String value = field.isStringType() ? "MIN(" + field.getColumn() + ")" : "NULL";
+            branches.add("(SELECT " + i + " AS f, " + facetKey(field, parameter, i) + " AS g, " + value
+                    + " AS v, COUNT(*) AS cnt FROM data_record" + whereClause + " GROUP BY g)");
+        }
+        return String.join(" UNION ALL ", branches);
+    }
+
+    private String facetKey(DataRecordField field, Map<String, Object> parameter, int index) {
+        if (intervals(parameter).get(index) != null) {
+            return "FLOOR(" + field.getComparisonExpression() + " / #{intervals[" + index + "]})";
+        }
+        return "HEX(WEIGHT_STRING(" + field.getColumn() + "))";
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DataRecordField> facets(Map<String, Object> parameter) {
+        return (List<DataRecordField>) parameter.get("facets");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Double> intervals(Map<String, Object> parameter) {
+        return (List<Double>) parameter.get("intervals");
+    }
+
+    private SqlPlan plan(Map<String, Object> parameter) {
+        return (SqlPlan) parameter.get("plan");
+    }
+}
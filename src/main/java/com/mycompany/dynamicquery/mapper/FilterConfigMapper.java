@@ -5,6 +5,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface FilterConfigMapper {
@@ -24,4 +25,6 @@ public interface FilterConfigMapper {
     FilterConfig selectByFieldName(@Param("fieldName") String fieldName);
     
     List<FilterConfig> selectByFieldNames(@Param("fieldNames") List<String> fieldNames);
+    
+    Map<String, Object> selectWatermark();
 }
\ No newline at end of file
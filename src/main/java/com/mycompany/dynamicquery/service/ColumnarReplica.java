@@ -0,0 +1,1219 @@
+package com.mycompany.dynamicquery.service;
+
+import com.mycompany.dynamicquery.dto.FacetCounts;
+import com.mycompany.dynamicquery.dto.PageCursor;
+import com.mycompany.dynamicquery.dto.PreparedQuery;
+import com.mycompany.dynamicquery.dto.Projection;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import com.mycompany.dynamicquery.mapper.DataRecordMapper;
+import com.mycompany.dynamicquery.util.QueryConditionOptimizer;
+import com.mycompany.dynamicquery.util.SqlPlanCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * data_record 的内存列式副本
+ * 常用过滤列按列存放：id 为 long 数组（按 BIGINT 精确比较），其余数值列为 double 数组（小数列存放 ROUND(x, 2) 后的值，空值存 NaN 并另记空值位图），
+ * 低基数字符串列字典编码，并可按值维护位图索引（等值、不等、空值、集合条件直接由位图 OR 得到）；
+ * 条件逐列在紧凑循环中求值为行位图，字段内 OR、字段间 AND，计数、分页选行与分面统计不访问 MySQL。
+ * 条件涉及副本以外的列，或无法在内存中得到与 MySQL 一致的结果（字符串大小比较、非 ASCII 字符串、不可解析的数值）时
+ * 返回 null，由调用方回退到SQL。
+ * 经服务层的单条写入在写入后按主键重读该行（在锁外读取）同步副本；批量写入、删除行过多或超过最长存活时间后整体重新加载
+ */
+@Slf4j
+@Component
+public class ColumnarReplica {
+
+    /**
+     * 副本中的 double 数值列；id 另存为 long 数组，条件按整数精确求值
+     */
+    private static final Set<DataRecordField> NUMERIC_FIELDS = EnumSet.of(
+            DataRecordField.AGE, DataRecordField.SCORE, DataRecordField.SALARY);
+
+    private static final BigInteger MIN_ID = BigInteger.valueOf(Long.MIN_VALUE);
+
+    private static final BigInteger MAX_ID = BigInteger.valueOf(Long.MAX_VALUE);
+
+    /**
+     * 副本中的字典编码字符串列
+     */
+    private static final Set<DataRecordField> DICTIONARY_FIELDS = EnumSet.of(
+            DataRecordField.STATUS, DataRecordField.DEPARTMENT);
+
+    /**
+     * 全量加载只读取副本中的列
+     */
+    private static final Projection REPLICA_PROJECTION = new Projection(EnumSet.of(
+            DataRecordField.ID, DataRecordField.CREATED_TIME, DataRecordField.AGE, DataRecordField.SCORE,
+            DataRecordField.SALARY, DataRecordField.STATUS, DataRecordField.DEPARTMENT));
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    @Autowired
+    private DataRecordMapper dataRecordMapper;
+
+    @Autowired
+    private SqlPlanCache sqlPlanCache;
+
+    @Value("${dynamic-query.columnar.enabled:false}")
+    private boolean enabled;
+
+    @Value("${dynamic-query.columnar.max-age-ms:600000}")
+    private long maxAgeMillis;
+
+    /**
+     * 建立位图索引的字典编码列
+     */
+    @Value("${dynamic-query.columnar.bitmap-index.fields:status,department}")
+    private List<String> bitmapIndexFields;
+
+    /**
+     * 位图索引的不同值个数上限，超出后该列退回按行扫描编码
+     */
+    @Value("${dynamic-query.columnar.bitmap-index.max-values:1024}")
+    private int bitmapIndexMaxValues;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Object reloadLock = new Object();
+
+    /**
+     * 当前副本，未加载或已失效时为 null（读写均在 lock 保护下）
+     */
+    private Columns columns;
+
+    /**
+     * 单条写入的递增序号（读写均在 lock 保护下）
+     */
+    private long writeSequence;
+
+    /**
+     * 正在重读的记录ID → 最近一次写入的序号；重读完成时序号已被更新的写入取代则丢弃读到的行，
+     * 保证同一记录的并发写入按写入顺序同步（读写均在 lock 保护下）
+     */
+    private final Map<Long, Long> latestWrites = new HashMap<>();
+
+    /**
+     * 重新加载期间同步的记录ID → 重读到的行（已删除为 null），替换副本前应用到新副本（非加载期间为 null）
+     */
+    private Map<Long, DataRecord> pendingRecords;
+
+    /**
+     * 整体失效次数：加载期间发生整体失效时丢弃本次加载结果
+     */
+    private long invalidations;
+
+    private volatile boolean stale = true;
+
+    private volatile long loadedAt;
+
+    private volatile long lastLoadMillis;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * 计数满足条件的记录
+     * @return 记录数；副本未启用、未加载或无法精确求值时返回 null
+     */
+    public Integer count(List<QueryCondition> conditions) {
+        if (!enabled) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            long[] bits = evaluate(conditions);
+            if (bits == null) {
+                return null;
+            }
+            return (int) cardinality(bits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按 (created_time, id) 倒序选出游标之后满足条件的前 limit 条记录ID
+     * @return 按分页顺序排列的记录ID；副本未启用、未加载或无法精确求值时返回 null
+     */
+    public List<Long> pageIds(List<QueryCondition> conditions, PageCursor after, int limit) {
+        if (!enabled) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            long[] bits = evaluate(conditions);
+            if (bits == null) {
+                return null;
+            }
+            return columns.topRows(bits, after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 一次扫描统计满足条件的记录在各分面字段上的分布
+     * 有位图索引的字符串字段直接按值位图与结果位图相与计数，其余字段在同一次遍历中累计
+     * @param facets 分面字段 → 直方图区间宽度（字符串字段为 null），按请求顺序
+     * @return 分面计数；副本未启用、未加载、字段不在副本中或无法精确求值时返回 null
+     */
+    public FacetCounts facet(List<QueryCondition> conditions, Map<DataRecordField, Double> facets) {
+        if (!enabled) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (columns == null || !columns.canFacet(facets.keySet())) {
+                fallbacks.increment();
+                return null;
+            }
+            long[] bits = evaluate(conditions);
+            if (bits == null) {
+                return null;
+            }
+            FacetCounts counts = columns.facet(bits, facets);
+            if (counts == null) {
+                fallbacks.increment();
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 单条记录写入（新增、更新、删除）后调用：按主键重读该行并同步副本
+     * 重读在锁外进行，只在应用读到的行时持有写锁；期间同一记录有更新的写入时丢弃本次读到的行，由更新的写入同步
+     */
+    public void onRecordWritten(Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        long version;
+        lock.writeLock().lock();
+        try {
+            version = ++writeSequence;
+            latestWrites.put(id, version);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        DataRecord record;
+        try {
+            record = dataRecordMapper.selectById(id);
+        } catch (RuntimeException e) {
+            // 无法确定该行的最新状态，丢弃副本（含正在加载的副本）直至重新加载
+            log.warn("Columnar replica refresh failed for record {}, replica dropped", id, e);
+            lock.writeLock().lock();
+            try {
+                latestWrites.remove(id, version);
+                columns = null;
+                stale = true;
+                invalidations++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!latestWrites.remove(id, version)) {
+                return;
+            }
+            if (pendingRecords != null) {
+                pendingRecords.put(id, record);
+            }
+            if (columns != null) {
+                apply(columns, id, record);
+                if (columns.needsCompaction()) {
+                    stale = true;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Columnar replica refresh failed for record {}, replica dropped", id, e);
+            columns = null;
+            stale = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 无法逐行同步的写入（如批量写入）后调用：丢弃副本，由定时任务重新加载
+     */
+    public void invalidate() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            columns = null;
+            stale = true;
+            invalidations++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 副本失效、删除行过多或超过最长存活时间时重新加载
+     */
+    @Scheduled(fixedDelayString = "${dynamic-query.columnar.reload-check-ms:1000}")
+    public void reloadIfStale() {
+        if (!enabled || (!stale && System.currentTimeMillis() - loadedAt < maxAgeMillis)) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("Columnar replica reload failed, queries fall back to SQL", e);
+        }
+    }
+
+    /**
+     * 流式读取全表构建新副本后原子替换；加载期间单条写入重读到的行在替换前应用到新副本
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            long generation;
+            lock.writeLock().lock();
+            try {
+                pendingRecords = new HashMap<>();
+                stale = false;
+                generation = invalidations;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long start = System.nanoTime();
+            Columns loaded = new Columns(INITIAL_CAPACITY, indexedFields(), bitmapIndexMaxValues);
+            try {
+                PreparedQuery all = sqlPlanCache.prepare(Collections.emptyList());
+                dataRecordMapper.streamByPlan(all.getPlan(), all.getParams(), REPLICA_PROJECTION,
+                        context -> loaded.upsert(context.getResultObject()));
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingRecords = null;
+                    stale = true;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (generation != invalidations) {
+                    // 加载期间有无法逐行同步的写入，等待下一次加载
+                    pendingRecords = null;
+                    stale = true;
+                    return;
+                }
+                pendingRecords.forEach((id, record) -> apply(loaded, id, record));
+                columns = loaded;
+                pendingRecords = null;
+                loadedAt = System.currentTimeMillis();
+                lastLoadMillis = (System.nanoTime() - start) / 1_000_000;
+            } catch (RuntimeException e) {
+                pendingRecords = null;
+                stale = true;
+                throw e;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Columnar replica loaded: {} rows in {} ms", loaded.size - loaded.deleted, lastLoadMillis);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 副本统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hits.sum());
+        stats.put("fallbacks", fallbacks.sum());
+        lock.readLock().lock();
+        try {
+            stats.put("loaded", columns != null);
+            if (columns != null) {
+                stats.put("rows", columns.size - columns.deleted);
+                stats.put("deletedRows", columns.deleted);
+                Map<String, Integer> dictionarySizes = new TreeMap<>();
+                Map<String, Boolean> bitmapIndexes = new TreeMap<>();
+                columns.dictionaries.forEach((field, column) -> {
+                    dictionarySizes.put(field.getColumn(), column.dictionary.size());
+                    bitmapIndexes.put(field.getColumn(), column.bitmaps != null);
+                });
+                stats.put("dictionarySizes", dictionarySizes);
+                stats.put("bitmapIndexes", bitmapIndexes);
+                stats.put("ageMs", System.currentTimeMillis() - loadedAt);
+                stats.put("lastLoadMs", lastLoadMillis);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    /**
+     * 求值为行位图（调用方持有读锁）
+     * @return 满足条件的行位图；无法精确求值时返回 null
+     */
+    private long[] evaluate(List<QueryCondition> conditions) {
+        if (columns == null) {
+            fallbacks.increment();
+            return null;
+        }
+        // 与SQL计划一致：按字段分组，忽略未在 data_record 中定义的字段
+        SortedMap<DataRecordField, List<QueryCondition>> grouped = new TreeMap<>();
+        for (QueryCondition condition : conditions) {
+            DataRecordField field = DataRecordField.fromName(condition.getFieldName());
+            if (field != null) {
+                grouped.computeIfAbsent(field, key -> new ArrayList<>()).add(condition);
+            }
+        }
+        long[] bits = columns.evaluate(grouped);
+        if (bits == null) {
+            fallbacks.increment();
+        } else {
+            hits.increment();
+        }
+        return bits;
+    }
+
+    /**
+     * 配置中可建立位图索引的列（只支持字典编码列）
+     */
+    private Set<DataRecordField> indexedFields() {
+        Set<DataRecordField> indexed = EnumSet.noneOf(DataRecordField.class);
+        for (String name : bitmapIndexFields) {
+            DataRecordField field = DataRecordField.fromName(name.trim());
+            if (field != null && DICTIONARY_FIELDS.contains(field)) {
+                indexed.add(field);
+            } else if (StringUtils.isNotBlank(name)) {
+                log.warn("Bitmap index ignored for field '{}': not a dictionary column of the replica", name);
+            }
+        }
+        return indexed;
+    }
+
+    /**
+     * 将按主键重读到的行同步到副本
+     * @param record 重读到的行，记录已删除时为 null
+     */
+    private static void apply(Columns target, Long id, DataRecord record) {
+        if (record == null) {
+            target.remove(id);
+        } else {
+            target.upsert(record);
+        }
+    }
+
+    /**
+     * 字符串在 utf8mb4_unicode_ci（PAD SPACE）下的等值判断，只对可打印 ASCII 给出确定结果
+     * @return 是否相等；无法确定时返回 null
+     */
+    private static Boolean stringEquals(String value, String expected) {
+        String left = StringUtils.stripEnd(value, " ");
+        String right = StringUtils.stripEnd(expected, " ");
+        if (!isPrintableAscii(left) || !isPrintableAscii(right)) {
+            return null;
+        }
+        return left.equalsIgnoreCase(right);
+    }
+
+    /**
+     * 字符串是否满足 NA（IS NULL OR = ''）
+     * @return 是否满足；无法确定时返回 null
+     */
+    private static Boolean stringBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        String stripped = StringUtils.stripEnd(value, " ");
+        if (isPrintableAscii(stripped)) {
+            return stripped.isEmpty();
+        }
+        // 含字母或数字的字符串在排序规则下不可能等于空串
+        for (int i = 0; i < stripped.length(); i++) {
+            if (Character.isLetterOrDigit(stripped.charAt(i))) {
+                return false;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 字符串在 utf8mb4_unicode_ci（PAD SPACE）下的分组键，只对可打印 ASCII 给出确定结果
+     * @return 分组键；无法确定时返回 null
+     */
+    private static String collationKey(String value) {
+        String stripped = StringUtils.stripEnd(value, " ");
+        return isPrintableAscii(stripped) ? stripped.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static long cardinality(long[] bits) {
+        long count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static boolean isPrintableAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x20 || c > 0x7e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 数值归一化：-0.0 与 0.0 视为同一个值，便于二分查找
+     */
+    private static double normalize(double value) {
+        return value + 0.0;
+    }
+
+    /**
+     * 分页排序键：created_time 精确到纳秒
+     */
+    private static long createdKey(LocalDateTime createdTime) {
+        if (createdTime == null) {
+            return Long.MIN_VALUE;
+        }
+        return createdTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + createdTime.getNano();
+    }
+
+    /**
+     * 列存储：行号从 0 开始追加，删除只清除存活位，更新原位覆盖
+     */
+    private static final class Columns {
+
+        private int size;
+
+        private int deleted;
+
+        private long[] ids;
+
+        private long[] createdKeys;
+
+        private long[] live;
+
+        private final Map<Long, Integer> rowOf = new HashMap<>();
+
+        private final Map<DataRecordField, NumericColumn> numerics = new EnumMap<>(DataRecordField.class);
+
+        private final Map<DataRecordField, DictionaryColumn> dictionaries = new EnumMap<>(DataRecordField.class);
+
+        private Columns(int capacity, Set<DataRecordField> indexedFields, int maxIndexedValues) {
+            ids = new long[capacity];
+            createdKeys = new long[capacity];
+            live = new long[words(capacity)];
+            for (DataRecordField field : NUMERIC_FIELDS) {
+                numerics.put(field, new NumericColumn(capacity));
+            }
+            for (DataRecordField field : DICTIONARY_FIELDS) {
+                dictionaries.put(field, new DictionaryColumn(capacity, indexedFields.contains(field), maxIndexedValues));
+            }
+        }
+
+        private void upsert(DataRecord record) {
+            Integer row = rowOf.get(record.getId());
+            boolean existing = row != null;
+            if (!existing) {
+                if (size == ids.length) {
+                    grow(size * 2);
+                }
+                row = size++;
+                rowOf.put(record.getId(), row);
+                live[row >>> 6] |= 1L << row;
+            }
+            ids[row] = record.getId();
+            createdKeys[row] = createdKey(record.getCreatedTime());
+            for (Map.Entry<DataRecordField, NumericColumn> entry : numerics.entrySet()) {
+                DataRecordField field = entry.getKey();
+                Number value = (Number) field.readValue(record);
+                Double stored = null;
+                if (value != null) {
+                    // 与 MySQL 对 DOUBLE 的 ROUND(x, 2) 一致：rint(x * 100) / 100
+                    stored = field.isRounded() ? Math.rint(value.doubleValue() * 100) / 100 : value.doubleValue();
+                }
+                entry.getValue().set(row, stored);
+            }
+            for (Map.Entry<DataRecordField, DictionaryColumn> entry : dictionaries.entrySet()) {
+                entry.getValue().set(row, (String) entry.getKey().readValue(record), existing);
+            }
+        }
+
+        private void remove(Long id) {
+            Integer row = rowOf.remove(id);
+            if (row != null) {
+                live[row >>> 6] &= ~(1L << row);
+                deleted++;
+            }
+        }
+
+        /**
+         * 已删除行超过四分之一时整体重新加载以回收空间
+         */
+        private boolean needsCompaction() {
+            return deleted > INITIAL_CAPACITY && deleted > size / 4;
+        }
+
+        private void grow(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            createdKeys = Arrays.copyOf(createdKeys, capacity);
+            live = Arrays.copyOf(live, words(capacity));
+            numerics.values().forEach(column -> column.grow(capacity));
+            dictionaries.values().forEach(column -> column.grow(capacity));
+        }
+
+        /**
+         * 字段内 OR、字段间 AND
+         */
+        private long[] evaluate(SortedMap<DataRecordField, List<QueryCondition>> grouped) {
+            int words = words(size);
+            long[] result = Arrays.copyOf(live, words);
+            long[] fieldBits = new long[words];
+            for (Map.Entry<DataRecordField, List<QueryCondition>> entry : grouped.entrySet()) {
+                DataRecordField field = entry.getKey();
+                boolean id = field == DataRecordField.ID;
+                NumericColumn numeric = numerics.get(field);
+                DictionaryColumn dictionary = dictionaries.get(field);
+                if (!id && numeric == null && dictionary == null) {
+                    return null;
+                }
+                Arrays.fill(fieldBits, 0L);
+                for (QueryCondition condition : entry.getValue()) {
+                    boolean evaluated = id ? evaluateId(condition, fieldBits)
+                            : numeric != null ? numeric.evaluate(condition, size, fieldBits)
+                            : dictionary.evaluate(condition, size, fieldBits);
+                    if (!evaluated) {
+                        return null;
+                    }
+                }
+                for (int w = 0; w < words; w++) {
+                    result[w] &= fieldBits[w];
+                }
+            }
+            return result;
+        }
+
+        /**
+         * id 条件在 long 数组上求值，与 MySQL 按 BIGINT 比较一致（不经 double，超过 2^53 的主键同样精确），
+         * 字面量按 {@link QueryConditionOptimizer#parseDecimal} 解析，区间端点取整为闭区间
+         * @return 值不可解析时返回 false
+         */
+        private boolean evaluateId(QueryCondition condition, long[] bits) {
+            FilterOperator operator = condition.getOperator();
+            if (operator == FilterOperator.NA) {
+                // 主键不为空
+                return true;
+            }
+            if (operator.isSetOperator()) {
+                long[] members = new long[condition.getValues().size()];
+                int count = 0;
+                for (Object raw : condition.getValues()) {
+                    BigDecimal member = QueryConditionOptimizer.parseDecimal(DataRecordField.ID, raw);
+                    if (member == null) {
+                        return false;
+                    }
+                    // 非整数或超出 BIGINT 范围的值不等于任何主键
+                    BigInteger exact = ceiling(member, false);
+                    if (exact.equals(floor(member, false)) && isId(exact)) {
+                        members[count++] = exact.longValue();
+                    }
+                }
+                members = Arrays.copyOf(members, count);
+                Arrays.sort(members);
+                idMembership(members, operator == FilterOperator.IN, bits);
+                return true;
+            }
+
+            BigDecimal value1 = QueryConditionOptimizer.parseDecimal(DataRecordField.ID, condition.getValue1());
+            BigDecimal value2 = operator.isRangeOperator()
+                    ? QueryConditionOptimizer.parseDecimal(DataRecordField.ID, condition.getValue2()) : null;
+            if (value1 == null || (operator.isRangeOperator() && value2 == null)) {
+                return false;
+            }
+            BigInteger lower = MIN_ID;
+            BigInteger upper = MAX_ID;
+            switch (operator) {
+                case EQ:
+                    lower = ceiling(value1, false);
+                    upper = floor(value1, false);
+                    break;
+                case NE:
+                    lower = ceiling(value1, false);
+                    upper = floor(value1, false);
+                    // 非整数或超出范围时不排除任何主键
+                    idMembership(lower.equals(upper) && isId(lower) ? new long[]{lower.longValue()} : new long[0], false, bits);
+                    return true;
+                case GT:
+                    lower = ceiling(value1, true);
+                    break;
+                case GTE:
+                    lower = ceiling(value1, false);
+                    break;
+                case LT:
+                    upper = floor(value1, true);
+                    break;
+                case LTE:
+                    upper = floor(value1, false);
+                    break;
+                case RANGE_CLOSED:
+                    lower = ceiling(value1, false);
+                    upper = floor(value2, false);
+                    break;
+                case RANGE_LEFT_OPEN:
+                    lower = ceiling(value1, true);
+                    upper = floor(value2, false);
+                    break;
+                case RANGE_RIGHT_OPEN:
+                    lower = ceiling(value1, false);
+                    upper = floor(value2, true);
+                    break;
+                case RANGE_OPEN:
+                    lower = ceiling(value1, true);
+                    upper = floor(value2, true);
+                    break;
+                default:
+                    return false;
+            }
+            if (lower.compareTo(MAX_ID) > 0 || upper.compareTo(MIN_ID) < 0 || lower.compareTo(upper) > 0) {
+                return true;
+            }
+            idBetween(lower.max(MIN_ID).longValue(), upper.min(MAX_ID).longValue(), bits);
+            return true;
+        }
+
+        private static boolean isId(BigInteger value) {
+            return value.compareTo(MIN_ID) >= 0 && value.compareTo(MAX_ID) <= 0;
+        }
+
+        /**
+         * 大于等于（open 时大于）value 的最小整数
+         */
+        private static BigInteger ceiling(BigDecimal value, boolean open) {
+            BigInteger ceiling = value.setScale(0, RoundingMode.CEILING).toBigInteger();
+            return open && value.compareTo(new BigDecimal(ceiling)) == 0 ? ceiling.add(BigInteger.ONE) : ceiling;
+        }
+
+        /**
+         * 小于等于（open 时小于）value 的最大整数
+         */
+        private static BigInteger floor(BigDecimal value, boolean open) {
+            BigInteger floor = value.setScale(0, RoundingMode.FLOOR).toBigInteger();
+            return open && value.compareTo(new BigDecimal(floor)) == 0 ? floor.subtract(BigInteger.ONE) : floor;
+        }
+
+        private void idBetween(long lower, long upper, long[] bits) {
+            long[] column = ids;
+            for (int base = 0, w = 0; base < size; base += 64, w++) {
+                int end = Math.min(64, size - base);
+                long word = 0;
+                for (int j = 0; j < end; j++) {
+                    long value = column[base + j];
+                    if (value >= lower && value <= upper) {
+                        word |= 1L << j;
+                    }
+                }
+                bits[w] |= word;
+            }
+        }
+
+        private void idMembership(long[] sortedMembers, boolean in, long[] bits) {
+            long[] column = ids;
+            for (int base = 0, w = 0; base < size; base += 64, w++) {
+                int end = Math.min(64, size - base);
+                long word = 0;
+                for (int j = 0; j < end; j++) {
+                    if ((Arrays.binarySearch(sortedMembers, column[base + j]) >= 0) == in) {
+                        word |= 1L << j;
+                    }
+                }
+                bits[w] |= word;
+            }
+        }
+
+        private boolean canFacet(Set<DataRecordField> fields) {
+            for (DataRecordField field : fields) {
+                if (!numerics.containsKey(field) && !dictionaries.containsKey(field)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return 分面计数；字符串字段中存在无法按排序规则分组的值时返回 null
+         */
+        private FacetCounts facet(long[] bits, Map<DataRecordField, Double> facets) {
+            // 需要逐行累计的字段：未建位图索引的字符串字段累计编码计数，数值字段累计区间计数
+            List<DictionaryColumn> scannedDictionaries = new ArrayList<>();
+            List<long[]> scannedCodeCounts = new ArrayList<>();
+            List<NumericColumn> scannedNumerics = new ArrayList<>();
+            List<Double> scannedIntervals = new ArrayList<>();
+            List<Map<Object, Long>> scannedBuckets = new ArrayList<>();
+            Map<DataRecordField, long[]> codeCounts = new EnumMap<>(DataRecordField.class);
+            Map<DataRecordField, Map<Object, Long>> counts = new LinkedHashMap<>();
+
+            for (Map.Entry<DataRecordField, Double> entry : facets.entrySet()) {
+                DataRecordField field = entry.getKey();
+                DictionaryColumn dictionary = dictionaries.get(field);
+                if (dictionary != null) {
+                    if (dictionary.bitmaps != null) {
+                        codeCounts.put(field, dictionary.indexedCounts(bits));
+                    } else {
+                        long[] perCode = new long[dictionary.dictionary.size() + 1];
+                        codeCounts.put(field, perCode);
+                        scannedDictionaries.add(dictionary);
+                        scannedCodeCounts.add(perCode);
+                    }
+                    counts.put(field, null);
+                } else {
+                    Map<Object, Long> buckets = new HashMap<>();
+                    scannedNumerics.add(numerics.get(field));
+                    scannedIntervals.add(entry.getValue());
+                    scannedBuckets.add(buckets);
+                    counts.put(field, buckets);
+                }
+            }
+
+            if (!scannedDictionaries.isEmpty() || !scannedNumerics.isEmpty()) {
+                for (int w = 0; w < bits.length; w++) {
+                    long word = bits[w];
+                    while (word != 0) {
+                        int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                        for (int i = 0; i < scannedDictionaries.size(); i++) {
+                            scannedCodeCounts.get(i)[scannedDictionaries.get(i).codes[row] + 1]++;
+                        }
+                        for (int i = 0; i < scannedNumerics.size(); i++) {
+                            double value = scannedNumerics.get(i).values[row];
+                            Long bucket = value != value ? null : (long) Math.floor(value / scannedIntervals.get(i));
+                            scannedBuckets.get(i).merge(bucket, 1L, Long::sum);
+                        }
+                    }
+                }
+            }
+
+            for (Map.Entry<DataRecordField, long[]> entry : codeCounts.entrySet()) {
+                Map<Object, Long> grouped = dictionaries.get(entry.getKey()).group(entry.getValue());
+                if (grouped == null) {
+                    return null;
+                }
+                counts.put(entry.getKey(), grouped);
+            }
+            return new FacetCounts(cardinality(bits), counts);
+        }
+
+        /**
+         * 有界小顶堆选出 (created_time, id) 最大且位于游标之前的 limit 行
+         */
+        private List<Long> topRows(long[] bits, PageCursor after, int limit) {
+            long cursorKey = after == null ? Long.MAX_VALUE : createdKey(after.getCreatedTime());
+            long cursorId = after == null ? Long.MAX_VALUE : after.getId();
+            Comparator<Integer> order = Comparator.<Integer>comparingLong(row -> createdKeys[row])
+                    .thenComparingLong(row -> ids[row]);
+            PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, limit), order);
+            for (int w = 0; w < bits.length; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    long key = createdKeys[row];
+                    if (after != null && (key > cursorKey || (key == cursorKey && ids[row] >= cursorId))) {
+                        continue;
+                    }
+                    if (heap.size() < limit) {
+                        heap.add(row);
+                    } else if (limit > 0 && order.compare(row, heap.peek()) > 0) {
+                        heap.poll();
+                        heap.add(row);
+                    }
+                }
+            }
+            Long[] page = new Long[heap.size()];
+            for (int i = page.length - 1; i >= 0; i--) {
+                page[i] = ids[heap.poll()];
+            }
+            return Arrays.asList(page);
+        }
+
+        private static int words(int bits) {
+            return (bits + 63) >>> 6;
+        }
+    }
+
+    /**
+     * 数值列：空值存为 NaN，任何比较都不成立；空值位图用于 NA
+     */
+    private static final class NumericColumn {
+
+        private double[] values;
+
+        private long[] nulls;
+
+        private NumericColumn(int capacity) {
+            values = new double[capacity];
+            nulls = new long[Columns.words(capacity)];
+        }
+
+        private void set(int row, Double value) {
+            if (value == null) {
+                values[row] = Double.NaN;
+                nulls[row >>> 6] |= 1L << row;
+            } else {
+                values[row] = normalize(value);
+                nulls[row >>> 6] &= ~(1L << row);
+            }
+        }
+
+        private void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            nulls = Arrays.copyOf(nulls, Columns.words(capacity));
+        }
+
+        /**
+         * 把条件求值结果 OR 进位图
+         * @return 值不可解析时返回 false
+         */
+        private boolean evaluate(QueryCondition condition, int size, long[] bits) {
+            FilterOperator operator = condition.getOperator();
+            if (operator == FilterOperator.NA) {
+                for (int w = 0; w < bits.length; w++) {
+                    bits[w] |= nulls[w];
+                }
+                return true;
+            }
+            if (operator.isSetOperator()) {
+                double[] members = new double[condition.getValues().size()];
+                for (int i = 0; i < members.length; i++) {
+                    Double member = QueryConditionOptimizer.parseNumber(condition.getValues().get(i));
+                    if (member == null) {
+                        return false;
+                    }
+                    members[i] = normalize(member);
+                }
+                Arrays.sort(members);
+                membership(members, operator == FilterOperator.IN, size, bits);
+                return true;
+            }
+
+            Double value1 = QueryConditionOptimizer.parseNumber(condition.getValue1());
+            Double value2 = operator.isRangeOperator() ? QueryConditionOptimizer.parseNumber(condition.getValue2()) : null;
+            if (value1 == null || (operator.isRangeOperator() && value2 == null)) {
+                return false;
+            }
+            double lower = Double.NEGATIVE_INFINITY;
+            double upper = Double.POSITIVE_INFINITY;
+            // 开区间端点换成相邻的 double，统一为闭区间比较
+            switch (operator) {
+                case EQ:
+                    lower = value1;
+                    upper = value1;
+                    break;
+                case NE:
+                    notEqual(value1, size, bits);
+                    return true;
+                case GT:
+                    lower = Math.nextUp(value1);
+                    break;
+                case GTE:
+                    lower = value1;
+                    break;
+                case LT:
+                    upper = Math.nextDown(value1);
+                    break;
+                case LTE:
+                    upper = value1;
+                    break;
+                case RANGE_CLOSED:
+                    lower = value1;
+                    upper = value2;
+                    break;
+                case RANGE_LEFT_OPEN:
+                    lower = Math.nextUp(value1);
+                    upper = value2;
+                    break;
+                case RANGE_RIGHT_OPEN:
+                    lower = value1;
+                    upper = Math.nextDown(value2);
+                    break;
+                case RANGE_OPEN:
+                    lower = Math.nextUp(value1);
+                    upper = Math.nextDown(value2);
+                    break;
+                default:
+                    return false;
+            }
+            between(lower, upper, size, bits);
+            return true;
+        }
+
+        private void between(double lower, double upper, int size, long[] bits) {
+            double[] column = values;
+            for (int base = 0, w = 0; base < size; base += 64, w++) {
+                int end = Math.min(64, size - base);
+                long word = 0;
+                for (int j = 0; j < end; j++) {
+                    double value = column[base + j];
+                    if (value >= lower && value <= upper) {
+                        word |= 1L << j;
+                    }
+                }
+                bits[w] |= word;
+            }
+        }
+
+        private void notEqual(double excluded, int size, long[] bits) {
+            double[] column = values;
+            for (int base = 0, w = 0; base < size; base += 64, w++) {
+                int end = Math.min(64, size - base);
+                long word = 0;
+                for (int j = 0; j < end; j++) {
+                    double value = column[base + j];
+                    // NaN（空值）与任何值比较都不成立
+                    if (value == value && value != excluded) {
+                        word |= 1L << j;
+                    }
+                }
+                bits[w] |= word;
+            }
+        }
+
+        private void membership(double[] sortedMembers, boolean in, int size, long[] bits) {
+            double[] column = values;
+            for (int base = 0, w = 0; base < size; base += 64, w++) {
+                int end = Math.min(64, size - base);
+                long word = 0;
+                for (int j = 0; j < end; j++) {
+                    double value = column[base + j];
+                    if (value == value && (Arrays.binarySearch(sortedMembers, value) >= 0) == in) {
+                        word |= 1L << j;
+                    }
+                }
+                bits[w] |= word;
+            }
+        }
+    }
+
+    /**
+     * 字典编码字符串列：每行存字典编码，空值为 -1；
+     * 条件先在字典上求出每个编码是否满足，有位图索引时 OR 满足条件的值位图，否则按行查表
+     */
+    private static final class DictionaryColumn {
+
+        private int[] codes;
+
+        private final List<String> dictionary = new ArrayList<>();
+
+        private final Map<String, Integer> codeOf = new HashMap<>();
+
+        /**
+         * 位图索引，下标 code + 1 为取该值的行（下标 0 为空值）；位图只分配到最后一个置位的字。
+         * 已删除行的位不清除，求值结果与存活位图相与；未建索引或值个数超过上限时为 null
+         */
+        private List<long[]> bitmaps;
+
+        private final int maxIndexedValues;
+
+        private DictionaryColumn(int capacity, boolean indexed, int maxIndexedValues) {
+            this.codes = new int[capacity];
+            this.maxIndexedValues = maxIndexedValues;
+            if (indexed) {
+                bitmaps = new ArrayList<>();
+                bitmaps.add(new long[0]);
+            }
+        }
+
+        /**
+         * @param existing 是否覆盖已有行（需清除旧值在位图索引中的位）
+         */
+        private void set(int row, String value, boolean existing) {
+            if (existing && bitmaps != null) {
+                long[] previous = bitmaps.get(codes[row] + 1);
+                previous[row >>> 6] &= ~(1L << row);
+            }
+            int code = -1;
+            if (value != null) {
+                Integer known = codeOf.get(value);
+                if (known == null) {
+                    known = dictionary.size();
+                    dictionary.add(value);
+                    codeOf.put(value, known);
+                    if (bitmaps != null) {
+                        bitmaps.add(new long[0]);
+                        if (dictionary.size() > maxIndexedValues) {
+                            bitmaps = null;
+                        }
+                    }
+                }
+                code = known;
+            }
+            codes[row] = code;
+            if (bitmaps != null) {
+                mark(code + 1, row);
+            }
+        }
+
+        /**
+         * 按值位图与结果位图相与计数，下标与 bitmaps 相同
+         */
+        private long[] indexedCounts(long[] bits) {
+            long[] perCode = new long[bitmaps.size()];
+            for (int i = 0; i < perCode.length; i++) {
+                long[] bitmap = bitmaps.get(i);
+                int words = Math.min(bitmap.length, bits.length);
+                long count = 0;
+                for (int w = 0; w < words; w++) {
+                    count += Long.bitCount(bitmap[w] & bits[w]);
+                }
+                perCode[i] = count;
+            }
+            return perCode;
+        }
+
+        /**
+         * 把编码计数（下标 code + 1，0 为空值）按排序规则合并为值计数，值取合并组中首个出现的写法
+         * @return 值计数；存在无法确定分组的值时返回 null
+         */
+        private Map<Object, Long> group(long[] perCode) {
+            Map<Object, Long> grouped = new HashMap<>();
+            if (perCode[0] > 0) {
+                grouped.put(null, perCode[0]);
+            }
+            Map<String, String> labels = new HashMap<>();
+            for (int code = 0; code < perCode.length - 1; code++) {
+                if (perCode[code + 1] == 0) {
+                    continue;
+                }
+                String value = dictionary.get(code);
+                String key = collationKey(value);
+                if (key == null) {
+                    return null;
+                }
+                grouped.merge(labels.computeIfAbsent(key, k -> value), perCode[code + 1], Long::sum);
+            }
+            return grouped;
+        }
+
+        private void mark(int index, int row) {
+            long[] bitmap = bitmaps.get(index);
+            int word = row >>> 6;
+            if (word >= bitmap.length) {
+                bitmap = Arrays.copyOf(bitmap, Math.max(word + 1, bitmap.length * 2));
+                bitmaps.set(index, bitmap);
+            }
+            bitmap[word] |= 1L << row;
+        }
+
+        private void grow(int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        /**
+         * 把条件求值结果 OR 进位图
+         * @return 操作符不支持（大小比较）或字典中存在无法确定结果的值时返回 false
+         */
+        private boolean evaluate(QueryCondition condition, int size, long[] bits) {
+            // matches[code + 1]，下标 0 对应空值
+            boolean[] matches = new boolean[dictionary.size() + 1];
+            FilterOperator operator = condition.getOperator();
+            if (operator == FilterOperator.NA) {
+                matches[0] = true;
+                for (int code = 0; code < dictionary.size(); code++) {
+                    Boolean blank = stringBlank(dictionary.get(code));
+                    if (blank == null) {
+                        return false;
+                    }
+                    matches[code + 1] = blank;
+                }
+            } else {
+                List<Object> expected;
+                boolean positive;
+                if (operator == FilterOperator.EQ || operator == FilterOperator.IN) {
+                    positive = true;
+                } else if (operator == FilterOperator.NE || operator == FilterOperator.NOT_IN) {
+                    positive = false;
+                } else {
+                    return false;
+                }
+                expected = operator.isSetOperator() ? condition.getValues() : Collections.singletonList(condition.getValue1());
+                for (int code = 0; code < dictionary.size(); code++) {
+                    boolean equal = false;
+                    for (Object member : expected) {
+                        if (member == null) {
+                            return false;
+                        }
+                        Boolean result = stringEquals(dictionary.get(code), member.toString());
+                        if (result == null) {
+                            return false;
+                        }
+                        if (result) {
+                            equal = true;
+                            break;
+                        }
+                    }
+                    // 空值（下标 0）与任何值比较都不成立
+                    matches[code + 1] = equal == positive;
+                }
+            }
+
+            if (bitmaps != null) {
+                for (int i = 0; i < matches.length; i++) {
+                    if (matches[i]) {
+                        long[] bitmap = bitmaps.get(i);
+                        int words = Math.min(bitmap.length, bits.length);
+                        for (int w = 0; w < words; w++) {
+                            bits[w] |= bitmap[w];
+                        }
+                    }
+                }
+                return true;
+            }
+
+            int[] column = codes;
+            for (int base = 0, w = 0; base < size; base += 64, w++) {
+                int end = Math.min(64, size - base);
+                long word = 0;
+                for (int j = 0; j < end; j++) {
+                    if (matches[column[base + j] + 1]) {
+                        word |= 1L << j;
+                    }
+                }
+                bits[w] |= word;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.mycompany.dynamicquery.service;
+
+import com.mycompany.dynamicquery.dto.BatchWriteResult;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.mapper.DataRecordMapper;
+import com.mycompany.dynamicquery.util.QueryResultCache;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数据记录批量写入服务
+ * 按分块执行多行 INSERT（新记录）与 INSERT ... ON DUPLICATE KEY UPDATE（带ID记录），
+ * 默认每个分块独立提交，原子模式下所有分块在同一事务中执行
+ */
+@Service
+public class DataRecordBatchService {
+
+    @Autowired
+    private DataRecordMapper dataRecordMapper;
+
+    @Autowired
+    private DataRecordCounter dataRecordCounter;
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    @Autowired
+    private ColumnarReplica columnarReplica;
+
+    @Autowired
+    private RecordSubscriptionService recordSubscriptionService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${dynamic-query.batch.chunk-size:500}")
+    private int defaultChunkSize;
+
+    @Value("${dynamic-query.batch.max-chunk-size:2000}")
+    private int maxChunkSize;
+
+    @Value("${dynamic-query.batch.max-records:50000}")
+    private int maxRecords;
+
+    /**
+     * 批量保存记录
+     * @param records 记录列表，ID为空的新增，ID不为空的按主键插入或更新
+     * @param chunkSize 分块大小（可选）
+     * @param atomic 是否在同一事务中执行全部分块
+     * @return 批量写入结果
+     */
+    public BatchWriteResult saveRecords(List<DataRecord> records, Integer chunkSize, boolean atomic) {
+        if (records == null || records.isEmpty()) {
+            throw new IllegalArgumentException("批量写入的记录不能为空");
+        }
+        if (records.size() > maxRecords) {
+            throw new IllegalArgumentException("单次批量写入最多 " + maxRecords + " 条记录");
+        }
+
+        int size = resolveChunkSize(chunkSize);
+        BatchWriteResult result = new BatchWriteResult();
+        result.setTotal(records.size());
+        result.setAtomic(atomic);
+        long start = System.nanoTime();
+
+        if (atomic) {
+            transactionTemplate.executeWithoutResult(status -> {
+                writeChunks(records, size, result, true);
+                if (result.getFailed() > 0) {
+                    status.setRollbackOnly();
+                    result.setRolledBack(true);
+                }
+            });
+        } else {
+            writeChunks(records, size, result, false);
+        }
+
+        if (result.isRolledBack()) {
+            result.setInserted(0);
+            result.setUpserted(0);
+            markRolledBack(result);
+        } else {
+            dataRecordCounter.onInserted(result.getInserted());
+        }
+        if (result.getUpserted() > 0) {
+            // 带ID的写入可能新增也可能更新，计数器无法精确调整
+            dataRecordCounter.invalidate();
+        }
+        if (result.getInserted() > 0 || result.getUpserted() > 0) {
+            // 批量写入不读取写入前状态，整体失效结果缓存与列式副本，实时订阅改为通知重新查询
+            queryResultCache.invalidateAll();
+            columnarReplica.invalidate();
+            recordSubscriptionService.onBulkChange();
+        }
+        result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private void writeChunks(List<DataRecord> records, int chunkSize, BatchWriteResult result, boolean stopOnFailure) {
+        for (int from = 0, index = 0; from < records.size(); from += chunkSize, index++) {
+            List<DataRecord> chunk = records.subList(from, Math.min(from + chunkSize, records.size()));
+            int chunkIndex = index;
+            BatchWriteResult.ChunkResult chunkResult = stopOnFailure
+                    ? writeChunk(chunkIndex, chunk)
+                    : transactionTemplate.execute(status -> {
+                        BatchWriteResult.ChunkResult written = writeChunk(chunkIndex, chunk);
+                        if (!written.isSuccess()) {
+                            status.setRollbackOnly();
+                        }
+                        return written;
+                    });
+
+            result.getChunks().add(chunkResult);
+            if (chunkResult.isSuccess()) {
+                result.setInserted(result.getInserted() + chunkResult.getInserted());
+                result.setUpserted(result.getUpserted() + chunkResult.getUpserted());
+            } else {
+                result.setFailed(result.getFailed() + chunkResult.getSize());
+                if (stopOnFailure) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 原子模式回滚后，失败分块之前已写入的分块同样未生效
+     */
+    private void markRolledBack(BatchWriteResult result) {
+        for (BatchWriteResult.ChunkResult chunkResult : result.getChunks()) {
+            if (chunkResult.isSuccess()) {
+                chunkResult.setSuccess(false);
+                chunkResult.setRolledBack(true);
+                chunkResult.setInserted(0);
+                chunkResult.setUpserted(0);
+                chunkResult.setErrorMessage("整体事务已回滚");
+            }
+        }
+    }
+
+    private BatchWriteResult.ChunkResult writeChunk(int index, List<DataRecord> chunk) {
+        BatchWriteResult.ChunkResult chunkResult = new BatchWriteResult.ChunkResult();
+        chunkResult.setIndex(index);
+        chunkResult.setSize(chunk.size());
+        long start = System.nanoTime();
+
+        List<DataRecord> newRecords = new ArrayList<>();
+        List<DataRecord> keyedRecords = new ArrayList<>();
+        for (DataRecord record : chunk) {
+            if (record.getId() == null) {
+                newRecords.add(record);
+            } else {
+                keyedRecords.add(record);
+            }
+        }
+
+        try {
+            if (!newRecords.isEmpty()) {
+                dataRecordMapper.batchInsert(newRecords);
+            }
+            if (!keyedRecords.isEmpty()) {
+                dataRecordMapper.batchUpsert(keyedRecords);
+            }
+            chunkResult.setInserted(newRecords.size());
+            chunkResult.setUpserted(keyedRecords.size());
+            chunkResult.setSuccess(true);
+        } catch (RuntimeException e) {
+            chunkResult.setSuccess(false);
+            chunkResult.setErrorMessage(ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        chunkResult.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        return chunkResult;
+    }
+
+    private int resolveChunkSize(Integer chunkSize) {
+        if (chunkSize == null || chunkSize <= 0) {
+            return defaultChunkSize;
+        }
+        return Math.min(chunkSize, maxChunkSize);
+    }
+}
@@ -0,0 +1,99 @@
+package com.mycompany.dynamicquery.service;
+
+import com.mycompany.dynamicquery.enums.CountMode;
+import com.mycompany.dynamicquery.mapper.DataRecordMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据记录总数计数器
+ * 无筛选条件的计数走此路径：精确模式直接 COUNT(*)，缓存/估算模式在 TTL 内返回内存值
+ */
+@Component
+public class DataRecordCounter {
+
+    private static final long UNLOADED = -1L;
+
+    @Autowired
+    private DataRecordMapper dataRecordMapper;
+
+    @Value("${dynamic-query.count.mode:EXACT}")
+    private CountMode mode;
+
+    @Value("${dynamic-query.count.ttl-ms:60000}")
+    private long ttlMillis;
+
+    private final AtomicLong count = new AtomicLong(UNLOADED);
+
+    private volatile long loadedAt;
+
+    /**
+     * 获取总记录数
+     */
+    public int totalCount() {
+        if (mode == CountMode.EXACT) {
+            return dataRecordMapper.countAll();
+        }
+
+        long current = count.get();
+        if (current == UNLOADED || System.currentTimeMillis() - loadedAt > ttlMillis) {
+            current = reload();
+        }
+        return (int) Math.min(Math.max(current, 0L), Integer.MAX_VALUE);
+    }
+
+    /**
+     * 新增记录后调整计数
+     */
+    public void onInserted(int rows) {
+        adjust(rows);
+    }
+
+    /**
+     * 删除记录后调整计数
+     */
+    public void onDeleted(int rows) {
+        adjust(-rows);
+    }
+
+    /**
+     * 丢弃内存计数，下次访问时重新加载
+     */
+    public void invalidate() {
+        count.set(UNLOADED);
+    }
+
+    public CountMode getMode() {
+        return mode;
+    }
+
+    private void adjust(long delta) {
+        if (mode == CountMode.EXACT || delta == 0) {
+            return;
+        }
+        count.getAndUpdate(current -> current == UNLOADED ? UNLOADED : current + delta);
+    }
+
+    private synchronized long reload() {
+        long now = System.currentTimeMillis();
+        long current = count.get();
+        if (current != UNLOADED && now - loadedAt <= ttlMillis) {
+            return current;
+        }
+
+        long loaded;
+        if (mode == CountMode.ESTIMATED) {
+            Long estimated = dataRecordMapper.estimateRowCount();
+            loaded = estimated != null ? estimated : dataRecordMapper.countAll();
+        } else {
+            loaded = dataRecordMapper.countAll();
+        }
+
+        count.set(loaded);
+        loadedAt = now;
+        return loaded;
+    }
+}
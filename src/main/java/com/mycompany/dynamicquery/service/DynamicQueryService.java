@@ -1,14 +1,26 @@
 package com.mycompany.dynamicquery.service;
 
+import com.mycompany.dynamicquery.dto.PageCursor;
+import com.mycompany.dynamicquery.dto.PageResult;
+import com.mycompany.dynamicquery.dto.PreparedQuery;
+import com.mycompany.dynamicquery.dto.Projection;
 import com.mycompany.dynamicquery.dto.QueryCondition;
 import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FilterOperator;
 import com.mycompany.dynamicquery.mapper.DataRecordMapper;
-import com.mycompany.dynamicquery.util.DynamicQueryBuilder;
+import com.mycompany.dynamicquery.util.DynamicQueryMetrics;
+import com.mycompany.dynamicquery.util.QueryConditionBuilder;
+import com.mycompany.dynamicquery.util.QueryResultCache;
+import com.mycompany.dynamicquery.util.QueryTimeoutManager;
+import com.mycompany.dynamicquery.util.RecordPredicateCompiler;
+import com.mycompany.dynamicquery.util.SqlPlanCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Service
 public class DynamicQueryService {
@@ -19,56 +31,241 @@ public class DynamicQueryService {
     @Autowired
     private QueryConditionBuilder queryConditionBuilder;
 
-    public List<DataRecord> queryByConditions(Map<String, List<String>> queryParams) {
+    @Autowired
+    private DataRecordCounter dataRecordCounter;
+
+    @Autowired
+    private SqlPlanCache sqlPlanCache;
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    @Autowired
+    private DynamicQueryMetrics dynamicQueryMetrics;
+
+    @Autowired
+    private ColumnarReplica columnarReplica;
+
+    @Autowired
+    private ShardedQueryExecutor shardedQueryExecutor;
+
+    @Autowired
+    private QueryTimeoutManager queryTimeoutManager;
+
+    @Autowired
+    private RecordPredicateCompiler recordPredicateCompiler;
+
+    @Autowired
+    private RecordSubscriptionService recordSubscriptionService;
+
+    @Value("${dynamic-query.page.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${dynamic-query.page.max-size:1000}")
+    private int maxPageSize;
+
+    /**
+     * 按查询参数在内存中过滤已加载的记录（缓存结果、变更流、导入数据），结果与按同样参数查询数据库一致
+     */
+    public List<DataRecord> filterRecords(List<DataRecord> records, Map<String, List<String>> queryParams) {
         Map<String, Object> buildResult = queryConditionBuilder.buildQueryConditions(queryParams);
+        if (isUnsatisfiable(buildResult)) {
+            return Collections.emptyList();
+        }
         @SuppressWarnings("unchecked")
         List<QueryCondition> conditions = (List<QueryCondition>) buildResult.get("conditions");
-        
-        if (conditions.isEmpty()) {
-            return dataRecordMapper.selectAll();
+        return recordPredicateCompiler.filter(records, conditions);
+    }
+
+    /**
+     * 解析列投影，见 {@link QueryConditionBuilder#resolveProjection}
+     */
+    public Projection resolveProjection(List<String> fields) {
+        return queryConditionBuilder.resolveProjection(fields);
+    }
+
+    /**
+     * 键集分页查询：按 (created_time, id) 倒序，从游标之后读取一页
+     */
+    public PageResult<DataRecord> queryPageByConditions(Map<String, List<String>> queryParams, String cursor, Integer pageSize) {
+        return queryPageByConditions(queryParams, null, cursor, pageSize);
+    }
+
+    /**
+     * 键集分页查询，只读取投影列
+     * @param projection 列投影，为 null 时读取全部列
+     */
+    public PageResult<DataRecord> queryPageByConditions(Map<String, List<String>> queryParams, Projection projection,
+                                                        String cursor, Integer pageSize) {
+        return queryPage(queryConditionBuilder.buildQueryConditions(queryParams), projection, cursor, pageSize);
+    }
+
+    public PageResult<DataRecord> queryPage(Map<String, Object> buildResult, String cursor, Integer pageSize) {
+        return queryPage(buildResult, null, cursor, pageSize);
+    }
+
+    /**
+     * 按已构建的查询条件读取一页
+     * @param buildResult {@link QueryConditionBuilder#buildQueryConditions} 的结果
+     * @param projection 列投影，为 null 时读取全部列
+     */
+    public PageResult<DataRecord> queryPage(Map<String, Object> buildResult, Projection projection, String cursor, Integer pageSize) {
+        @SuppressWarnings("unchecked")
+        List<QueryCondition> conditions = (List<QueryCondition>) buildResult.get("conditions");
+        if (isUnsatisfiable(buildResult)) {
+            return new PageResult<>(Collections.emptyList(), resolvePageSize(pageSize), false, null);
         }
+        queryTimeoutManager.narrow(conditions);
         
-        Map<String, Object> mybatisConditions = convertToMybatisConditions(conditions);
-        return dataRecordMapper.selectByDynamicConditions(mybatisConditions);
+        int size = resolvePageSize(pageSize);
+        PageCursor after = PageCursor.decode(cursor);
+        PageResult<DataRecord> page = queryResultCache.get(QueryResultCache.PAGE, conditions, pageKey(projection, after, size), () -> {
+            // 列式副本可选出本页记录时，数据库只按主键读取这些记录
+            List<Long> ids = !columnarReplica.isEnabled() ? null : dynamicQueryMetrics.time(DynamicQueryMetrics.STAGE_COLUMNAR,
+                    () -> columnarReplica.pageIds(conditions, after, size + 1));
+            if (ids != null) {
+                if (ids.isEmpty()) {
+                    return new PageResult<>(Collections.emptyList(), size, false, null);
+                }
+                List<QueryCondition> byIds = Collections.singletonList(
+                        QueryCondition.ofValues(DataRecordField.ID.getColumn(), FilterOperator.IN, new ArrayList<>(ids)));
+                return fetchPage(sqlPlanCache.prepare(byIds), projection, after, size, false);
+            }
+            return fetchPage(sqlPlanCache.prepare(conditions), projection, after, size, !conditions.isEmpty());
+        });
+        dynamicQueryMetrics.recordRows("page", page.getRecords().size());
+        return page;
     }
 
-    public int countByConditions(Map<String, List<String>> queryParams) {
-        Map<String, Object> buildResult = queryConditionBuilder.buildQueryConditions(queryParams);
+    public void streamByConditions(Map<String, List<String>> queryParams, Consumer<DataRecord> consumer) {
+        streamByConditions(queryParams, null, consumer);
+    }
+
+    /**
+     * 流式查询：逐行回调，不在内存中缓存结果集
+     * @param projection 列投影，为 null 时读取全部列
+     */
+    public void streamByConditions(Map<String, List<String>> queryParams, Projection projection, Consumer<DataRecord> consumer) {
+        stream(queryConditionBuilder.buildQueryConditions(queryParams), projection, consumer);
+    }
+
+    /**
+     * 按已构建的查询条件流式读取，逐行回调
+     * @param buildResult {@link QueryConditionBuilder#buildQueryConditions} 的结果
+     * @param projection 列投影，为 null 时读取全部列
+     */
+    public void stream(Map<String, Object> buildResult, Projection projection, Consumer<DataRecord> consumer) {
         @SuppressWarnings("unchecked")
         List<QueryCondition> conditions = (List<QueryCondition>) buildResult.get("conditions");
-        
-        if (conditions.isEmpty()) {
-            return dataRecordMapper.selectAll().size();
+        if (isUnsatisfiable(buildResult)) {
+            return;
         }
+        queryTimeoutManager.narrow(conditions);
         
-        Map<String, Object> mybatisConditions = convertToMybatisConditions(conditions);
-        return dataRecordMapper.countByDynamicConditions(mybatisConditions);
+        PreparedQuery query = sqlPlanCache.prepare(conditions);
+        long[] rows = {0};
+        // 流式读取的耗时包含逐行回调（序列化与写出）
+        dynamicQueryMetrics.timeSql("streamByPlan", () -> dataRecordMapper.streamByPlan(query.getPlan(), query.getParams(), projection,
+                context -> {
+                    rows[0]++;
+                    consumer.accept(context.getResultObject());
+                }));
+        dynamicQueryMetrics.recordRows("export", rows[0]);
+    }
+
+    public int countByConditions(Map<String, List<String>> queryParams) {
+        return count(queryConditionBuilder.buildQueryConditions(queryParams));
+    }
+
+    /**
+     * 按已构建的查询条件计数
+     * @param buildResult {@link QueryConditionBuilder#buildQueryConditions} 的结果
+     */
+    public int count(Map<String, Object> buildResult) {
+        int count = countMatching(buildResult);
+        dynamicQueryMetrics.recordRows("count", count);
+        return count;
     }
 
-    private Map<String, Object> convertToMybatisConditions(List<QueryCondition> conditions) {
-        Map<String, Object> result = new HashMap<>();
+    private int countMatching(Map<String, Object> buildResult) {
+        @SuppressWarnings("unchecked")
+        List<QueryCondition> conditions = (List<QueryCondition>) buildResult.get("conditions");
+        if (isUnsatisfiable(buildResult)) {
+            return 0;
+        }
         
-        Map<String, List<QueryCondition>> groupedConditions = conditions.stream()
-                .collect(Collectors.groupingBy(QueryCondition::getFieldName));
+        if (conditions.isEmpty()) {
+            return dataRecordCounter.totalCount();
+        }
+        queryTimeoutManager.narrow(conditions);
         
-        for (Map.Entry<String, List<QueryCondition>> entry : groupedConditions.entrySet()) {
-            result.put(entry.getKey(), entry.getValue());
+        Integer replicated = !columnarReplica.isEnabled() ? null : dynamicQueryMetrics.time(DynamicQueryMetrics.STAGE_COLUMNAR,
+                () -> columnarReplica.count(conditions));
+        if (replicated != null) {
+            return replicated;
         }
         
-        return result;
+        return queryResultCache.get(QueryResultCache.COUNT, conditions, () -> {
+            PreparedQuery query = sqlPlanCache.prepare(conditions);
+            Integer sharded = shardedQueryExecutor.count(query);
+            if (sharded != null) {
+                return sharded;
+            }
+            return dynamicQueryMetrics.timeSql("countByPlan",
+                    () -> dataRecordMapper.countByPlan(query.getPlan(), query.getParams()));
+        });
+    }
+
+    public Map<String, Object> getSqlPlanCacheStats() {
+        return sqlPlanCache.getStats();
+    }
+
+    public Map<String, Object> getResultCacheStats() {
+        return queryResultCache.getStats();
+    }
+
+    public Map<String, Object> getColumnarReplicaStats() {
+        return columnarReplica.getStats();
+    }
+
+    public Map<String, Object> getShardingStats() {
+        return shardedQueryExecutor.getStats();
+    }
+
+    public Map<String, Object> getPredicateCacheStats() {
+        return recordPredicateCompiler.getStats();
     }
 
     public DataRecord saveRecord(DataRecord record) {
+        DataRecord before = null;
         if (record.getId() == null) {
-            dataRecordMapper.insert(record);
+            dataRecordCounter.onInserted(dataRecordMapper.insert(record));
         } else {
+            before = readTrackedRow(record.getId());
             dataRecordMapper.updateById(record);
         }
+        // 更新语句不写 created_time，请求中的记录可能不完整（默认值、触发器填充的列），缓存失效与订阅都按写入后的行判断
+        DataRecord after = readTrackedRow(record.getId());
+        queryResultCache.onRecordChanged(before, after);
+        columnarReplica.onRecordWritten(record.getId());
+        recordSubscriptionService.onRecordChanged(before, after);
         return record;
     }
 
     public void deleteRecord(Long id) {
-        dataRecordMapper.deleteById(id);
+        DataRecord before = readTrackedRow(id);
+        dataRecordCounter.onDeleted(dataRecordMapper.deleteById(id));
+        queryResultCache.onRecordChanged(before, null);
+        columnarReplica.onRecordWritten(id);
+        recordSubscriptionService.onRecordChanged(before, null);
+    }
+
+    /**
+     * 按主键读取写入前或写入后的行，用于判断哪些缓存结果与实时订阅受影响；两者都未启用时不读取
+     */
+    private DataRecord readTrackedRow(Long id) {
+        return queryResultCache.isEnabled() || recordSubscriptionService.hasSubscriptions()
+                ? dataRecordMapper.selectById(id) : null;
     }
 
     public DataRecord getRecordById(Long id) {
@@ -78,4 +275,57 @@ public class DynamicQueryService {
     public List<DataRecord> getAllRecords() {
         return dataRecordMapper.selectAll();
     }
+
+    public PageResult<DataRecord> getRecordPage(String cursor, Integer pageSize) {
+        int size = resolvePageSize(pageSize);
+        PageCursor after = PageCursor.decode(cursor);
+        List<QueryCondition> conditions = Collections.emptyList();
+        PageResult<DataRecord> page = queryResultCache.get(QueryResultCache.PAGE, conditions, pageKey(null, after, size),
+                () -> fetchPage(sqlPlanCache.prepare(conditions), null, after, size, false));
+        dynamicQueryMetrics.recordRows("page", page.getRecords().size());
+        return page;
+    }
+
+    /**
+     * 分页结果的缓存键：同一条件下游标、页大小与投影列不同的结果分别缓存
+     */
+    private String pageKey(Projection projection, PageCursor after, int size) {
+        return (after == null ? "" : after.encode()) + '|' + size + '|' + (projection == null ? "*" : projection.getColumnList());
+    }
+
+    /**
+     * @param shardable 是否允许按主键区间分片并发执行（只对过滤查询开启，无条件或按主键读取时单条SQL更快）
+     */
+    private PageResult<DataRecord> fetchPage(PreparedQuery query, Projection projection, PageCursor after, int size,
+                                             boolean shardable) {
+        // 多取一条用于判断是否还有下一页
+        List<DataRecord> sharded = shardable ? shardedQueryExecutor.selectPage(query, projection, after, size + 1) : null;
+        List<DataRecord> records = sharded != null ? sharded : dynamicQueryMetrics.timeSql("selectPageByPlan",
+                () -> dataRecordMapper.selectPageByPlan(query.getPlan(), query.getParams(), projection, after, size + 1));
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = new ArrayList<>(records.subList(0, size));
+        }
+        
+        String nextCursor = null;
+        if (hasMore) {
+            DataRecord last = records.get(records.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedTime(), last.getId()).encode();
+        }
+        return new PageResult<>(records, size, hasMore, nextCursor);
+    }
+
+    /**
+     * 条件中存在恒假的字段条件组时无需访问数据库
+     */
+    private boolean isUnsatisfiable(Map<String, Object> buildResult) {
+        return Boolean.TRUE.equals(buildResult.get("unsatisfiable"));
+    }
+
+    private int resolvePageSize(Integer pageSize) {
+        if (pageSize == null || pageSize <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(pageSize, maxPageSize);
+    }
 }
\ No newline at end of file
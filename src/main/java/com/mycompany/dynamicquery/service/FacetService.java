@@ -0,0 +1,250 @@
+package com.mycompany.dynamicquery.service;
+
+import com.mycompany.dynamicquery.dto.FacetCounts;
+import com.mycompany.dynamicquery.dto.FacetRequest;
+import com.mycompany.dynamicquery.dto.FacetResult;
+import com.mycompany.dynamicquery.dto.PreparedQuery;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.mapper.DataRecordMapper;
+import com.mycompany.dynamicquery.util.DynamicQueryMetrics;
+import com.mycompany.dynamicquery.util.QueryConditionBuilder;
+import com.mycompany.dynamicquery.util.QueryTimeoutManager;
+import com.mycompany.dynamicquery.util.SqlPlanCache;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 分面统计服务
+ * 一次统计满足查询条件的记录在多个字段上的分布：字符串字段按值计数，数值字段按固定宽度区间统计直方图。
+ * 优先在内存列式副本上一次扫描完成；否则执行一条按所有分面字段组合分组的SQL，在内存中按字段汇总，
+ * 组合数超过上限时改为逐字段分组后 UNION ALL
+ */
+@Service
+public class FacetService {
+
+    public static final String SOURCE_COLUMNAR = "columnar";
+
+    public static final String SOURCE_SQL = "sql";
+
+    /**
+     * 条件恒假，未执行查询
+     */
+    public static final String SOURCE_NONE = "none";
+
+    @Autowired
+    private QueryConditionBuilder queryConditionBuilder;
+
+    @Autowired
+    private SqlPlanCache sqlPlanCache;
+
+    @Autowired
+    private DataRecordMapper dataRecordMapper;
+
+    @Autowired
+    private ColumnarReplica columnarReplica;
+
+    @Autowired
+    private DynamicQueryMetrics dynamicQueryMetrics;
+
+    @Autowired
+    private QueryTimeoutManager queryTimeoutManager;
+
+    @Value("${dynamic-query.facet.max-fields:5}")
+    private int maxFields;
+
+    @Value("${dynamic-query.facet.max-groups:10000}")
+    private int maxGroups;
+
+    /**
+     * 统计分面
+     * @throws IllegalArgumentException 分面字段为空、过多、重复、不存在、为日期字段，或数值字段未指定有效的区间宽度
+     */
+    public FacetResult facet(FacetRequest request) {
+        long start = System.nanoTime();
+        Map<DataRecordField, Double> facets = resolveFacets(request);
+        Map<String, List<String>> params = request.getParams() == null ? Collections.emptyMap() : request.getParams();
+
+        Map<String, Object> buildResult = queryConditionBuilder.buildQueryConditions(params);
+        @SuppressWarnings("unchecked")
+        List<QueryCondition> conditions = (List<QueryCondition>) buildResult.get("conditions");
+
+        FacetCounts counts;
+        String source;
+        if (Boolean.TRUE.equals(buildResult.get("unsatisfiable"))) {
+            counts = emptyCounts(facets);
+            source = SOURCE_NONE;
+        } else {
+            queryTimeoutManager.narrow(conditions);
+            counts = !columnarReplica.isEnabled() ? null : dynamicQueryMetrics.time(DynamicQueryMetrics.STAGE_COLUMNAR,
+                    () -> columnarReplica.facet(conditions, facets));
+            source = SOURCE_COLUMNAR;
+            if (counts == null) {
+                counts = facetBySql(conditions, facets);
+                source = SOURCE_SQL;
+            }
+        }
+
+        FacetResult result = toResult(request.getFields(), facets, counts);
+        result.setSource(source);
+        result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * 解析分面字段，保持请求顺序
+     */
+    private Map<DataRecordField, Double> resolveFacets(FacetRequest request) {
+        List<String> fields = request.getFields();
+        if (fields == null || fields.isEmpty()) {
+            throw new IllegalArgumentException("分面字段不能为空");
+        }
+        if (fields.size() > maxFields) {
+            throw new IllegalArgumentException("单次最多 " + maxFields + " 个分面字段");
+        }
+        Map<String, Double> intervals = request.getIntervals() == null ? Collections.emptyMap() : request.getIntervals();
+        Map<DataRecordField, Double> facets = new LinkedHashMap<>();
+        for (String name : fields) {
+            String key = StringUtils.trim(name);
+            DataRecordField field = DataRecordField.fromName(key);
+            if (field == null) {
+                throw new IllegalArgumentException("未知的分面字段: " + name);
+            }
+            if (facets.containsKey(field)) {
+                throw new IllegalArgumentException("分面字段重复: " + name);
+            }
+            Double interval = intervals.get(key);
+            if (field.isNumericType()) {
+                if (interval == null || !(interval > 0) || interval.isInfinite()) {
+                    throw new IllegalArgumentException("数值分面字段需指定大于0的区间宽度: " + name);
+                }
+            } else if (field.isStringType()) {
+                if (interval != null) {
+                    throw new IllegalArgumentException("字符串分面字段不支持区间宽度: " + name);
+                }
+            } else {
+                throw new IllegalArgumentException("不支持的分面字段: " + name);
+            }
+            facets.put(field, interval);
+        }
+        return facets;
+    }
+
+    private FacetCounts emptyCounts(Map<DataRecordField, Double> facets) {
+        Map<DataRecordField, Map<Object, Long>> counts = new LinkedHashMap<>();
+        for (DataRecordField field : facets.keySet()) {
+            counts.put(field, Collections.emptyMap());
+        }
+        return new FacetCounts(0, counts);
+    }
+
+    private FacetCounts facetBySql(List<QueryCondition> conditions, Map<DataRecordField, Double> facets) {
+        PreparedQuery query = sqlPlanCache.prepare(conditions);
+        List<DataRecordField> fields = new ArrayList<>(facets.keySet());
+        List<Double> intervals = new ArrayList<>(facets.values());
+
+        // 多取一组用于判断组合数是否超过上限
+        List<Map<String, Object>> rows = dynamicQueryMetrics.timeSql("facetByPlan",
+                () -> dataRecordMapper.facetByPlan(query.getPlan(), query.getParams(), fields, intervals, maxGroups + 1));
+        if (rows.size() <= maxGroups) {
+            FacetAccumulator accumulator = new FacetAccumulator(fields);
+            long total = 0;
+            for (Map<String, Object> row : rows) {
+                long count = ((Number) row.get("cnt")).longValue();
+                total += count;
+                for (int i = 0; i < fields.size(); i++) {
+                    accumulator.add(i, row.get("g" + i), row.get("v" + i), count);
+                }
+            }
+            return new FacetCounts(total, accumulator.counts());
+        }
+
+        List<Map<String, Object>> unionRows = dynamicQueryMetrics.timeSql("facetUnionByPlan",
+                () -> dataRecordMapper.facetUnionByPlan(query.getPlan(), query.getParams(), fields, intervals));
+        FacetAccumulator accumulator = new FacetAccumulator(fields);
+        long total = 0;
+        for (Map<String, Object> row : unionRows) {
+            int index = ((Number) row.get("f")).intValue();
+            long count = ((Number) row.get("cnt")).longValue();
+            if (index == 0) {
+                // 每个分支都覆盖全部满足条件的记录，取第一个分支求总数
+                total += count;
+            }
+            accumulator.add(index, row.get("g"), row.get("v"), count);
+        }
+        return new FacetCounts(total, accumulator.counts());
+    }
+
+    private FacetResult toResult(List<String> names, Map<DataRecordField, Double> facets, FacetCounts counts) {
+        FacetResult result = new FacetResult();
+        result.setTotal(counts.getTotal());
+        Iterator<String> nameIterator = names.iterator();
+        for (Map.Entry<DataRecordField, Double> entry : facets.entrySet()) {
+            String name = StringUtils.trim(nameIterator.next());
+            Map<Object, Long> fieldCounts = counts.getCounts().get(entry.getKey());
+            Double interval = entry.getValue();
+            if (interval == null) {
+                List<FacetResult.ValueCount> values = new ArrayList<>();
+                fieldCounts.forEach((value, count) -> values.add(new FacetResult.ValueCount((String) value, count)));
+                values.sort(Comparator.comparingLong(FacetResult.ValueCount::getCount).reversed()
+                        .thenComparing(FacetResult.ValueCount::getValue, Comparator.nullsLast(Comparator.naturalOrder())));
+                result.getValues().put(name, values);
+            } else {
+                List<FacetResult.Bucket> buckets = new ArrayList<>();
+                fieldCounts.forEach((bucket, count) -> {
+                    Double from = bucket == null ? null : (Long) bucket * interval;
+                    Double to = bucket == null ? null : ((Long) bucket + 1) * interval;
+                    buckets.add(new FacetResult.Bucket(from, to, count));
+                });
+                buckets.sort(Comparator.comparing(FacetResult.Bucket::getFrom, Comparator.nullsLast(Comparator.naturalOrder())));
+                result.getHistograms().put(name, buckets);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按字段汇总SQL分组结果：字符串字段以排序规则权重为键合并，值取首个出现的写法；数值字段以区间序号为键
+     */
+    private static final class FacetAccumulator {
+
+        private final List<DataRecordField> fields;
+
+        private final List<Map<Object, Long>> counts = new ArrayList<>();
+
+        private final List<Map<Object, Object>> labels = new ArrayList<>();
+
+        private FacetAccumulator(List<DataRecordField> fields) {
+            this.fields = fields;
+            for (int i = 0; i < fields.size(); i++) {
+                counts.add(new HashMap<>());
+                labels.add(new HashMap<>());
+            }
+        }
+
+        private void add(int index, Object key, Object value, long count) {
+            Object label;
+            if (key == null) {
+                label = null;
+            } else if (fields.get(index).isStringType()) {
+                label = labels.get(index).computeIfAbsent(key, k -> value);
+            } else {
+                // FLOOR 的结果为浮点数；UNION ALL 时与字符串键合并为字符串
+                label = (long) (key instanceof Number ? ((Number) key).doubleValue() : Double.parseDouble(key.toString()));
+            }
+            counts.get(index).merge(label, count, Long::sum);
+        }
+
+        private Map<DataRecordField, Map<Object, Long>> counts() {
+            Map<DataRecordField, Map<Object, Long>> result = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                result.put(fields.get(i), counts.get(i));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.mycompany.dynamicquery.service;
+
+import com.mycompany.dynamicquery.dto.FilterConfigSnapshot;
+import com.mycompany.dynamicquery.entity.FilterConfig;
+import com.mycompany.dynamicquery.mapper.FilterConfigMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 筛选配置注册表
+ * 在内存中持有带版本号的不可变配置快照，查询热路径不再访问配置表；
+ * 配置保存/删除后原子替换快照，并通过水位线（行数 + 最大更新时间）定时校验外部修改
+ */
+@Slf4j
+@Component
+public class FilterConfigRegistry {
+
+    @Autowired
+    private FilterConfigMapper filterConfigMapper;
+
+    private final AtomicReference<FilterConfigSnapshot> current = new AtomicReference<>();
+
+    private final Object reloadLock = new Object();
+
+    /**
+     * 获取当前快照，首次访问时加载
+     */
+    public FilterConfigSnapshot snapshot() {
+        FilterConfigSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            snapshot = reload();
+        }
+        return snapshot;
+    }
+
+    /**
+     * 当前快照版本号
+     */
+    public long getVersion() {
+        FilterConfigSnapshot snapshot = current.get();
+        return snapshot == null ? 0L : snapshot.getVersion();
+    }
+
+    /**
+     * 重新加载配置并原子替换快照
+     */
+    public FilterConfigSnapshot reload() {
+        synchronized (reloadLock) {
+            Map<String, Object> watermark = filterConfigMapper.selectWatermark();
+            List<FilterConfig> activeConfigs = filterConfigMapper.selectActiveConfigs();
+
+            FilterConfigSnapshot previous = current.get();
+            long nextVersion = previous == null ? 1L : previous.getVersion() + 1;
+            FilterConfigSnapshot snapshot = new FilterConfigSnapshot(
+                    nextVersion, activeConfigs, watermarkCount(watermark), watermarkTime(watermark));
+            current.set(snapshot);
+
+            log.debug("Filter config snapshot v{} loaded: {} active configs", nextVersion, activeConfigs.size());
+            return snapshot;
+        }
+    }
+
+    /**
+     * 配置变更后刷新快照；处于事务中时延迟到提交之后，避免发布未提交的数据
+     */
+    public void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    /**
+     * 定时水位线校验，捕获绕过服务层（如直接改库）的配置变更
+     */
+    @Scheduled(fixedDelayString = "${dynamic-query.filter-config.refresh-interval-ms:5000}")
+    public void refreshIfChanged() {
+        FilterConfigSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return;
+        }
+
+        try {
+            Map<String, Object> watermark = filterConfigMapper.selectWatermark();
+            if (!snapshot.matchesWatermark(watermarkCount(watermark), watermarkTime(watermark))) {
+                reload();
+            }
+        } catch (Exception e) {
+            log.warn("Filter config watermark check failed, keeping snapshot v{}", snapshot.getVersion(), e);
+        }
+    }
+
+    private long watermarkCount(Map<String, Object> watermark) {
+        Object count = watermark == null ? null : watermark.get("configCount");
+        return count instanceof Number ? ((Number) count).longValue() : 0L;
+    }
+
+    private LocalDateTime watermarkTime(Map<String, Object> watermark) {
+        Object time = watermark == null ? null : watermark.get("maxUpdatedTime");
+        if (time instanceof LocalDateTime) {
+            return (LocalDateTime) time;
+        }
+        if (time instanceof Timestamp) {
+            return ((Timestamp) time).toLocalDateTime();
+        }
+        return null;
+    }
+}
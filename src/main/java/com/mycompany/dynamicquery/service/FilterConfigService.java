@@ -3,6 +3,7 @@ package com.mycompany.dynamicquery.service;
 import com.mycompany.dynamicquery.dto.FilterExpression;
 import com.mycompany.dynamicquery.entity.FilterConfig;
 import com.mycompany.dynamicquery.mapper.FilterConfigMapper;
+import com.mycompany.dynamicquery.util.CompiledExpressionCache;
 import com.mycompany.dynamicquery.util.FilterExpressionValidator;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class FilterConfigService {
@@ -20,6 +22,12 @@ public class FilterConfigService {
     @Autowired
     private FilterExpressionValidator validator;
 
+    @Autowired
+    private FilterConfigRegistry filterConfigRegistry;
+
+    @Autowired
+    private CompiledExpressionCache compiledExpressionCache;
+
     @Transactional
     public FilterConfig saveConfig(FilterConfig config) {
         validateFilterExpression(config.getFilterExpression());
@@ -29,11 +37,14 @@ public class FilterConfigService {
         } else {
             filterConfigMapper.updateById(config);
         }
+        filterConfigRegistry.reloadAfterCommit();
         return config;
     }
 
     public void deleteConfig(Long id) {
         filterConfigMapper.deleteById(id);
+        compiledExpressionCache.evict(id);
+        filterConfigRegistry.reloadAfterCommit();
     }
 
     public FilterConfig getConfigById(Long id) {
@@ -61,7 +72,7 @@ public class FilterConfigService {
         if (!parsed.isValid()) {
             String examples = String.join("\\n", validator.getValidExpressionExamples());
             throw new IllegalArgumentException(
-                "表达式格式不正确: " + parsed.getErrorMessage() + 
+                "表达式格式不正确: " + validator.describeError(parsed) + 
                 "\\n\\n正确的表达式格式示例:\\n" + examples
             );
         }
@@ -70,4 +81,8 @@ public class FilterConfigService {
     public List<String> getExpressionExamples() {
         return validator.getValidExpressionExamples();
     }
+
+    public Map<String, Object> getExpressionCacheStats() {
+        return compiledExpressionCache.getStats();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package com.mycompany.dynamicquery.service;
+
+import com.mycompany.dynamicquery.dto.FilterConfigSnapshot;
+import com.mycompany.dynamicquery.dto.MultiQueryItem;
+import com.mycompany.dynamicquery.dto.MultiQueryResult;
+import com.mycompany.dynamicquery.dto.PageResult;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.util.QueryConditionBuilder;
+import com.mycompany.dynamicquery.util.QueryDeadline;
+import com.mycompany.dynamicquery.util.QueryResultCache;
+import com.mycompany.dynamicquery.util.QueryTimeoutManager;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 多查询批量执行服务
+ * 一个批次内的查询共用同一个配置快照，语义相同的查询只执行一次，
+ * 去重后的查询在固定大小的线程池中并发执行（所有批次共享）；
+ * 开启虚拟线程模式（spring.threads.virtual.enabled，需 JDK 21）时每个查询一个虚拟线程，
+ * 两种模式下访问数据源的并发上限都由 {@link com.mycompany.dynamicquery.util.DataSourceBulkhead} 控制
+ */
+@Service
+public class MultiQueryService implements DisposableBean {
+
+    @Autowired
+    private DynamicQueryService dynamicQueryService;
+
+    @Autowired
+    private QueryConditionBuilder queryConditionBuilder;
+
+    @Autowired
+    private FilterConfigRegistry filterConfigRegistry;
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    @Autowired
+    private QueryTimeoutManager queryTimeoutManager;
+
+    private final int maxItems;
+
+    private final Executor executor;
+
+    public MultiQueryService(Environment environment,
+                             @Value("${dynamic-query.multi-query.max-items:50}") int maxItems,
+                             @Value("${dynamic-query.multi-query.parallelism:8}") int parallelism) {
+        this.maxItems = maxItems;
+        this.executor = Threading.VIRTUAL.isActive(environment)
+                ? new VirtualThreadTaskExecutor("multi-query-")
+                : Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("multi-query-"));
+    }
+
+    /**
+     * 执行一批查询
+     * @param items 查询列表，名称不能为空且不能重复
+     * @return 各查询结果；单个查询失败不影响其他查询
+     */
+    public MultiQueryResult execute(List<MultiQueryItem> items) {
+        validate(items);
+
+        long start = System.nanoTime();
+        FilterConfigSnapshot snapshot = filterConfigRegistry.snapshot();
+        QueryDeadline batchDeadline = QueryDeadline.current();
+
+        Map<String, CompletableFuture<Object>> tasks = new HashMap<>();
+        Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        Set<String> deduplicated = new HashSet<>();
+        for (MultiQueryItem item : items) {
+            Map<String, List<String>> params = item.getParams() == null ? Collections.emptyMap() : item.getParams();
+            Map<String, Object> buildResult;
+            try {
+                buildResult = queryConditionBuilder.buildQueryConditions(snapshot, params);
+            } catch (IllegalArgumentException e) {
+                // 值无法解析等条件错误只使该查询失败
+                futures.put(item.getName(), CompletableFuture.failedFuture(e));
+                continue;
+            }
+
+            String key = taskKey(item, buildResult);
+            CompletableFuture<Object> future = tasks.get(key);
+            if (future == null) {
+                QueryDeadline deadline = queryTimeoutManager.child(batchDeadline);
+                future = CompletableFuture.supplyAsync(() -> run(deadline, item, buildResult), executor);
+                tasks.put(key, future);
+            } else {
+                deduplicated.add(item.getName());
+            }
+            futures.put(item.getName(), future);
+        }
+
+        MultiQueryResult result = new MultiQueryResult();
+        result.setTotal(items.size());
+        result.setExecuted(tasks.size());
+        result.setConfigVersion(snapshot.getVersion());
+        for (MultiQueryItem item : items) {
+            MultiQueryResult.ItemResult itemResult = new MultiQueryResult.ItemResult();
+            itemResult.setType(item.getType());
+            itemResult.setDeduplicated(deduplicated.contains(item.getName()));
+            try {
+                fill(itemResult, futures.get(item.getName()).join());
+                itemResult.setSuccess(true);
+            } catch (CompletionException e) {
+                itemResult.setSuccess(false);
+                itemResult.setErrorMessage(ExceptionUtils.getRootCauseMessage(e));
+            }
+            result.getResults().put(item.getName(), itemResult);
+        }
+        result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void validate(List<MultiQueryItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("查询列表不能为空");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("单次最多 " + maxItems + " 个查询");
+        }
+        Set<String> names = new HashSet<>();
+        for (MultiQueryItem item : items) {
+            if (StringUtils.isBlank(item.getName())) {
+                throw new IllegalArgumentException("查询名称不能为空");
+            }
+            if (!names.add(item.getName())) {
+                throw new IllegalArgumentException("查询名称重复: " + item.getName());
+            }
+            if (item.getType() == null) {
+                item.setType(MultiQueryItem.Type.QUERY);
+            }
+        }
+    }
+
+    /**
+     * 去重键：查询类型 + 规范化条件（+ 分页参数）
+     */
+    private String taskKey(MultiQueryItem item, Map<String, Object> buildResult) {
+        @SuppressWarnings("unchecked")
+        List<QueryCondition> conditions = (List<QueryCondition>) buildResult.get("conditions");
+        StringBuilder key = new StringBuilder(item.getType().name()).append('|');
+        if (Boolean.TRUE.equals(buildResult.get("unsatisfiable"))) {
+            key.append('!');
+        }
+        key.append(queryResultCache.canonicalKey(conditions));
+        if (item.getType() == MultiQueryItem.Type.QUERY) {
+            key.append('|').append(item.getCursor()).append('|').append(item.getPageSize());
+        }
+        return key.toString();
+    }
+
+    /**
+     * 在批次截止时间的子截止时间下执行单个查询，批次超时或客户端断开时一并取消
+     */
+    private Object run(QueryDeadline deadline, MultiQueryItem item, Map<String, Object> buildResult) {
+        if (deadline == null) {
+            return run(item, buildResult);
+        }
+        try {
+            return deadline.call(() -> run(item, buildResult));
+        } finally {
+            queryTimeoutManager.finish(deadline);
+        }
+    }
+
+    private Object run(MultiQueryItem item, Map<String, Object> buildResult) {
+        if (item.getType() == MultiQueryItem.Type.COUNT) {
+            return dynamicQueryService.count(buildResult);
+        }
+        return dynamicQueryService.queryPage(buildResult, item.getCursor(), item.getPageSize());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fill(MultiQueryResult.ItemResult itemResult, Object value) {
+        if (value instanceof PageResult) {
+            PageResult<DataRecord> page = (PageResult<DataRecord>) value;
+            itemResult.setRecords(page.getRecords());
+            itemResult.setHasMore(page.isHasMore());
+            itemResult.setNextCursor(page.getNextCursor());
+        } else {
+            itemResult.setCount((Integer) value);
+        }
+    }
+}
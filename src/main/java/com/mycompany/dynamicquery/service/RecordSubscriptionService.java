@@ -0,0 +1,320 @@
+package com.mycompany.dynamicquery.service;
+
+import com.mycompany.dynamicquery.dto.Projection;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.util.QueryConditionBuilder;
+import com.mycompany.dynamicquery.util.RecordPredicateCompiler;
+import com.mycompany.dynamicquery.util.SubscriptionIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 记录变更的实时订阅（SSE）
+ * 客户端登记查询条件后，每次 saveRecord / deleteRecord 在进程内用订阅的内存谓词比较写入前后的状态，
+ * 推送进入（enter）、变更（change）、离开（leave）结果集的记录，不再重复执行完整查询。
+ * 写入时先由 {@link SubscriptionIndex} 按字段值取出可能受影响的订阅，只对这些订阅求值；
+ * 事件在发送线程池中按订阅顺序发送，写入线程不等待客户端
+ */
+@Slf4j
+@Service
+public class RecordSubscriptionService implements DisposableBean {
+
+    public static final String EVENT_SUBSCRIBED = "subscribed";
+
+    public static final String EVENT_ENTER = "enter";
+
+    public static final String EVENT_CHANGE = "change";
+
+    public static final String EVENT_LEAVE = "leave";
+
+    /**
+     * 批量写入等无法逐条判断的变更：客户端应重新查询
+     */
+    public static final String EVENT_RESYNC = "resync";
+
+    @Autowired
+    private QueryConditionBuilder queryConditionBuilder;
+
+    @Autowired
+    private RecordPredicateCompiler recordPredicateCompiler;
+
+    private final int maxSubscriptions;
+
+    private final long timeoutMs;
+
+    private final int maxPendingEvents;
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    private final SubscriptionIndex<Subscription> index = new SubscriptionIndex<>();
+
+    private final Executor dispatcher;
+
+    private final ScheduledThreadPoolExecutor heartbeat;
+
+    private final LongAdder writes = new LongAdder();
+
+    private final LongAdder candidatesChecked = new LongAdder();
+
+    private final LongAdder eventsSent = new LongAdder();
+
+    private final LongAdder overflowed = new LongAdder();
+
+    public RecordSubscriptionService(Environment environment,
+                                     @Value("${dynamic-query.subscription.max-subscriptions:1000}") int maxSubscriptions,
+                                     @Value("${dynamic-query.subscription.timeout-ms:1800000}") long timeoutMs,
+                                     @Value("${dynamic-query.subscription.heartbeat-ms:15000}") long heartbeatMs,
+                                     @Value("${dynamic-query.subscription.max-pending-events:1000}") int maxPendingEvents,
+                                     @Value("${dynamic-query.subscription.dispatch-threads:2}") int dispatchThreads) {
+        this.maxSubscriptions = maxSubscriptions;
+        this.timeoutMs = timeoutMs;
+        this.maxPendingEvents = maxPendingEvents;
+        this.dispatcher = Threading.VIRTUAL.isActive(environment)
+                ? new VirtualThreadTaskExecutor("subscription-dispatch-")
+                : Executors.newFixedThreadPool(dispatchThreads, new CustomizableThreadFactory("subscription-dispatch-"));
+        this.heartbeat = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("subscription-heartbeat-"));
+        if (heartbeatMs > 0) {
+            heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 登记订阅
+     * @param queryParams 查询条件，格式与 /api/data/query 相同
+     * @param projection 事件中记录的列投影，为 null 时输出全部字段
+     * @return 订阅（含 SSE 连接）；条件无法解析时抛出 IllegalArgumentException，订阅数已满时抛出 IllegalStateException
+     */
+    public Subscription subscribe(Map<String, List<String>> queryParams, Projection projection) {
+        if (subscriptions.size() >= maxSubscriptions) {
+            throw new IllegalStateException("订阅数已达上限 " + maxSubscriptions);
+        }
+        Map<String, Object> buildResult = queryConditionBuilder.buildQueryConditions(queryParams);
+        @SuppressWarnings("unchecked")
+        List<QueryCondition> conditions = (List<QueryCondition>) buildResult.get("conditions");
+        boolean unsatisfiable = Boolean.TRUE.equals(buildResult.get("unsatisfiable"));
+        Predicate<DataRecord> predicate = unsatisfiable ? record -> false : recordPredicateCompiler.compile(conditions);
+
+        Subscription subscription = new Subscription(UUID.randomUUID().toString(), predicate, projection,
+                new SseEmitter(timeoutMs));
+        subscription.emitter.onCompletion(() -> unsubscribe(subscription.id));
+        subscription.emitter.onTimeout(() -> unsubscribe(subscription.id));
+        subscription.emitter.onError(e -> unsubscribe(subscription.id));
+
+        subscriptions.put(subscription.id, subscription);
+        if (!unsatisfiable) {
+            // 条件恒不满足的订阅不登记索引，只接收 resync 与心跳
+            index.add(subscription, conditions);
+        }
+        enqueue(subscription, SseEmitter.event().name(EVENT_SUBSCRIBED)
+                .data(Map.of("subscriptionId", subscription.id), MediaType.APPLICATION_JSON));
+        return subscription;
+    }
+
+    /**
+     * 注销订阅并关闭连接
+     * @return 订阅是否存在
+     */
+    public boolean unsubscribe(String id) {
+        Subscription subscription = subscriptions.remove(id);
+        if (subscription == null) {
+            return false;
+        }
+        index.remove(subscription);
+        subscription.closed.set(true);
+        subscription.pending.clear();
+        subscription.emitter.complete();
+        return true;
+    }
+
+    public boolean hasSubscriptions() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * 单条记录写入后通知受影响的订阅
+     * @param before 写入前的记录（新增时为 null）
+     * @param after 写入后的记录（删除时为 null）
+     */
+    public void onRecordChanged(DataRecord before, DataRecord after) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        writes.increment();
+        Set<Subscription> candidates = index.candidates(before);
+        candidates.addAll(index.candidates(after));
+        candidatesChecked.add(candidates.size());
+
+        for (Subscription subscription : candidates) {
+            boolean wasIn = before != null && subscription.predicate.test(before);
+            boolean isIn = after != null && subscription.predicate.test(after);
+            if (isIn && (!wasIn || !after.equals(before))) {
+                enqueue(subscription, recordEvent(subscription, wasIn ? EVENT_CHANGE : EVENT_ENTER, after));
+            } else if (wasIn && !isIn) {
+                enqueue(subscription, SseEmitter.event().name(EVENT_LEAVE)
+                        .data(Map.of("id", before.getId()), MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    /**
+     * 无法逐条判断的变更（如批量写入）后通知全部订阅重新查询
+     */
+    public void onBulkChange() {
+        for (Subscription subscription : subscriptions.values()) {
+            enqueue(subscription, SseEmitter.event().name(EVENT_RESYNC).data(Map.of(), MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * 订阅统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("subscriptions", subscriptions.size());
+        stats.put("maxSubscriptions", maxSubscriptions);
+        stats.put("indexed", index.indexedSizes());
+        stats.put("scanned", index.scannedSize());
+        stats.put("writes", writes.sum());
+        stats.put("candidatesChecked", candidatesChecked.sum());
+        stats.put("eventsSent", eventsSent.sum());
+        stats.put("overflowed", overflowed.sum());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        for (String id : new ArrayList<>(subscriptions.keySet())) {
+            unsubscribe(id);
+        }
+        if (dispatcher instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private SseEmitter.SseEventBuilder recordEvent(Subscription subscription, String name, DataRecord record) {
+        Object data = record;
+        if (subscription.projection != null) {
+            MappingJacksonValue filtered = new MappingJacksonValue(record);
+            filtered.setFilters(subscription.projection.getFilters());
+            data = filtered;
+        }
+        return SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+    }
+
+    private void sendHeartbeats() {
+        for (Subscription subscription : subscriptions.values()) {
+            // 注释行不会触发客户端事件，只用于保持连接并及时发现已断开的客户端
+            enqueue(subscription, SseEmitter.event().comment("keepalive"));
+        }
+    }
+
+    /**
+     * 事件放入订阅的发送队列；积压超过上限时关闭订阅，客户端重新订阅后应重新查询
+     */
+    private void enqueue(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        if (subscription.closed.get()) {
+            return;
+        }
+        if (subscription.pendingCount.incrementAndGet() > maxPendingEvents) {
+            overflowed.increment();
+            log.warn("订阅 {} 积压事件超过 {} 条，关闭订阅", subscription.id, maxPendingEvents);
+            unsubscribe(subscription.id);
+            return;
+        }
+        subscription.pending.add(event);
+        if (subscription.draining.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscription));
+        }
+    }
+
+    /**
+     * 同一订阅的事件由一个任务依次发送，保持写入顺序
+     */
+    private void drain(Subscription subscription) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscription.pending.poll()) != null) {
+                subscription.pendingCount.decrementAndGet();
+                if (subscription.closed.get()) {
+                    return;
+                }
+                try {
+                    subscription.emitter.send(event);
+                    eventsSent.increment();
+                } catch (IOException | IllegalStateException e) {
+                    // 客户端已断开或连接已结束
+                    unsubscribe(subscription.id);
+                    return;
+                }
+            }
+        } finally {
+            subscription.draining.set(false);
+        }
+        if (!subscription.pending.isEmpty() && subscription.draining.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscription));
+        }
+    }
+
+    /**
+     * 一个订阅：条件谓词、事件投影、SSE 连接与待发送事件
+     */
+    public static final class Subscription {
+
+        private final String id;
+
+        private final Predicate<DataRecord> predicate;
+
+        private final Projection projection;
+
+        private final SseEmitter emitter;
+
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger pendingCount = new AtomicInteger();
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscription(String id, Predicate<DataRecord> predicate, Projection projection, SseEmitter emitter) {
+            this.id = id;
+            this.predicate = predicate;
+            this.projection = projection;
+            this.emitter = emitter;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public SseEmitter getEmitter() {
+            return emitter;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.mycompany.dynamicquery.service;
+
+import com.mycompany.dynamicquery.dto.IdRange;
+import com.mycompany.dynamicquery.dto.PageCursor;
+import com.mycompany.dynamicquery.dto.PreparedQuery;
+import com.mycompany.dynamicquery.dto.Projection;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.mapper.DataRecordMapper;
+import com.mycompany.dynamicquery.util.DynamicQueryMetrics;
+import com.mycompany.dynamicquery.util.QueryDeadline;
+import com.mycompany.dynamicquery.util.QueryTimeoutManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 按主键区间分片并发执行过滤查询
+ * 把 [MIN(id), MAX(id)] 等宽切分为若干分片（首尾分片不设外侧边界，区间缓存过期前新写入的记录也能查到），
+ * 每个分片各用一个连接并发执行同一条件；分页结果按 (created_time, id) 倒序多路归并后截取，计数结果求和。
+ * 主键区间跨度不足以切出两个分片时返回 null，由调用方单条SQL执行
+ */
+@Component
+public class ShardedQueryExecutor implements DisposableBean {
+
+    private static final Comparator<DataRecord> PAGE_ORDER = Comparator
+            .comparing(DataRecord::getCreatedTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(DataRecord::getId)
+            .reversed();
+
+    @Autowired
+    private DataRecordMapper dataRecordMapper;
+
+    @Autowired
+    private DynamicQueryMetrics dynamicQueryMetrics;
+
+    @Autowired
+    private QueryTimeoutManager queryTimeoutManager;
+
+    private final boolean enabled;
+
+    private final int shards;
+
+    private final long minRowsPerShard;
+
+    private final long rangeTtlMillis;
+
+    private final Executor executor;
+
+    private volatile IdRange idRange;
+
+    private volatile long rangeLoadedAt;
+
+    private final LongAdder shardedPages = new LongAdder();
+
+    private final LongAdder shardedCounts = new LongAdder();
+
+    public ShardedQueryExecutor(Environment environment,
+                                @Value("${dynamic-query.sharding.enabled:false}") boolean enabled,
+                                @Value("${dynamic-query.sharding.shards:4}") int shards,
+                                @Value("${dynamic-query.sharding.min-rows-per-shard:50000}") long minRowsPerShard,
+                                @Value("${dynamic-query.sharding.range-ttl-ms:60000}") long rangeTtlMillis,
+                                @Value("${dynamic-query.sharding.parallelism:16}") int parallelism) {
+        this.enabled = enabled && shards > 1;
+        this.shards = shards;
+        this.minRowsPerShard = Math.max(minRowsPerShard, 1);
+        this.rangeTtlMillis = rangeTtlMillis;
+        this.executor = Threading.VIRTUAL.isActive(environment)
+                ? new VirtualThreadTaskExecutor("shard-query-")
+                : Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("shard-query-"));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 分片读取一页
+     * @param projection 列投影，为 null 时读取全部列
+     * @param limit 需要的记录数（调用方多取一条判断是否有下一页时已包含在内）
+     * @return 按 (created_time, id) 倒序的前 limit 条记录；不分片时返回 null
+     */
+    public List<DataRecord> selectPage(PreparedQuery query, Projection projection, PageCursor after, int limit) {
+        List<IdRange> ranges = split();
+        if (ranges == null) {
+            return null;
+        }
+        shardedPages.increment();
+        List<List<DataRecord>> pages = runAll(ranges, shard -> dynamicQueryMetrics.timeSql("selectShardPageByPlan",
+                () -> dataRecordMapper.selectShardPageByPlan(query.getPlan(), query.getParams(), projection, shard, after, limit)));
+        return merge(pages, limit);
+    }
+
+    /**
+     * 分片计数
+     * @return 各分片计数之和；不分片时返回 null
+     */
+    public Integer count(PreparedQuery query) {
+        List<IdRange> ranges = split();
+        if (ranges == null) {
+            return null;
+        }
+        shardedCounts.increment();
+        List<Integer> counts = runAll(ranges, shard -> dynamicQueryMetrics.timeSql("countShardByPlan",
+                () -> dataRecordMapper.countShardByPlan(query.getPlan(), query.getParams(), shard)));
+        int total = 0;
+        for (Integer count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        IdRange range = idRange;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("shards", shards);
+        stats.put("minRowsPerShard", minRowsPerShard);
+        stats.put("idRange", range == null ? null : range.getFromId() + "-" + range.getToId());
+        stats.put("shardedPages", shardedPages.sum());
+        stats.put("shardedCounts", shardedCounts.sum());
+        return stats;
+    }
+
+    /**
+     * 按缓存的主键区间等宽切分
+     */
+    List<IdRange> split() {
+        if (!enabled) {
+            return null;
+        }
+        IdRange range = currentRange();
+        if (range == null || range.getFromId() == null || range.getToId() == null) {
+            return null;
+        }
+        long from = range.getFromId();
+        long span = range.getToId() - from;
+        int count = (int) Math.min(shards, span / minRowsPerShard);
+        if (count < 2) {
+            return null;
+        }
+        long width = (span + count - 1) / count;
+        List<IdRange> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Long lower = i == 0 ? null : from + i * width;
+            Long upper = i == count - 1 ? null : from + (i + 1) * width;
+            ranges.add(new IdRange(lower, upper));
+        }
+        return ranges;
+    }
+
+    private IdRange currentRange() {
+        IdRange range = idRange;
+        if (range == null || System.currentTimeMillis() - rangeLoadedAt > rangeTtlMillis) {
+            range = dynamicQueryMetrics.timeSql("selectIdRange", dataRecordMapper::selectIdRange);
+            idRange = range;
+            rangeLoadedAt = System.currentTimeMillis();
+        }
+        return range;
+    }
+
+    /**
+     * 并发执行各分片，抛出最先失败的分片的异常
+     * 各分片绑定同一个分片组截止时间（请求截止时间的子截止时间），请求超时或取消时所有分片的语句一并取消；
+     * 任一分片失败时立即取消分片组下执行中的语句（Statement#cancel），尚未开始的分片不再执行，
+     * 等所有分片结束（连接已归还）后再抛出异常
+     */
+    private <T> List<T> runAll(List<IdRange> ranges, Function<IdRange, T> task) {
+        QueryDeadline group = queryTimeoutManager.group(QueryDeadline.current(), "sharding");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<T>> futures = new ArrayList<>(ranges.size());
+        for (IdRange range : ranges) {
+            futures.add(CompletableFuture.supplyAsync(() -> group.call(() -> task.apply(range)), executor)
+                    .whenComplete((result, error) -> {
+                        if (error != null && failure.compareAndSet(null, unwrap(error))) {
+                            queryTimeoutManager.cancel(group, QueryDeadline.Reason.SIBLING_FAILED);
+                        }
+                    }));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (failure.get() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            queryTimeoutManager.finish(group);
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 多路归并各分片的有序结果，取前 limit 条
+     */
+    static List<DataRecord> merge(List<List<DataRecord>> pages, int limit) {
+        PriorityQueue<ShardHead> heads = new PriorityQueue<>(Comparator.comparing(ShardHead::current, PAGE_ORDER));
+        for (List<DataRecord> page : pages) {
+            if (!page.isEmpty()) {
+                heads.add(new ShardHead(page));
+            }
+        }
+        List<DataRecord> merged = new ArrayList<>(limit);
+        while (merged.size() < limit && !heads.isEmpty()) {
+            ShardHead head = heads.poll();
+            merged.add(head.current());
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 一个分片结果中尚未归并的位置
+     */
+    private static final class ShardHead {
+
+        private final List<DataRecord> records;
+
+        private int position;
+
+        private ShardHead(List<DataRecord> records) {
+            this.records = records;
+        }
+
+        private DataRecord current() {
+            return records.get(position);
+        }
+
+        private boolean advance() {
+            return ++position < records.size();
+        }
+    }
+}
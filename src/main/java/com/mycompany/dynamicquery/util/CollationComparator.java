@@ -0,0 +1,83 @@
+package com.mycompany.dynamicquery.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mycompany.dynamicquery.mapper.DataRecordMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在 MySQL 中按 data_record 字符串列的排序规则比较字符串
+ * 内存中无法给出与排序规则一致结果的字符串（中文、标点、全角字符等）交由数据库比较（STRCMP），
+ * 不在 Java 中近似 UCA 权重；比较结果按字符串对缓存
+ */
+@Component
+public class CollationComparator {
+
+    @Autowired
+    private DataRecordMapper dataRecordMapper;
+
+    private final String collation;
+
+    private final long maxSize;
+
+    private final Cache<List<String>, Integer> results;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder queries = new LongAdder();
+
+    public CollationComparator(@Value("${dynamic-query.in-list.collation:utf8mb4_unicode_ci}") String collation,
+                               @Value("${dynamic-query.predicate-cache.collation-max-size:10000}") long maxSize) {
+        if (!collation.matches("\\w+")) {
+            throw new IllegalArgumentException("排序规则名称不合法: " + collation);
+        }
+        this.collation = collation;
+        this.maxSize = maxSize;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * 按排序规则比较两个非空字符串
+     * @return 负数、0 或正数
+     */
+    public int compare(String left, String right) {
+        List<String> key = List.of(left, right);
+        Integer result = results.getIfPresent(key);
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        return results.get(key, k -> {
+            queries.increment();
+            return Integer.signum(compareInDatabase(left, right));
+        });
+    }
+
+    /**
+     * 比较缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", results.estimatedSize());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("queries", queries.sum());
+        return stats;
+    }
+
+    /**
+     * 在数据库中比较（STRCMP），测试中可替换为其他连接上的同一查询
+     */
+    protected int compareInDatabase(String left, String right) {
+        return dataRecordMapper.compareStrings(left, right, collation);
+    }
+}
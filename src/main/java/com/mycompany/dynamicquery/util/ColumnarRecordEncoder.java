@@ -0,0 +1,176 @@
+package com.mycompany.dynamicquery.util;
+
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataRecord 的列式二进制编码
+ * 逐列写出一页记录：数值列为定长原始值，字符串列字典编码，时间列为毫秒数，空值由位图标记。
+ * 解码器为 cache-client-core 中的 ColumnarRecordDecoder，两端按以下格式保持一致（整数均为大端序）：
+ * <pre>
+ * int    魔数 0x44514331（"DQC1"）
+ * int    行数 n
+ * short  列数
+ * 每列依次为：
+ *   short + UTF-8  属性名
+ *   byte           类型：1=INT32 2=INT64 3=FLOAT64 4=STRING 5=TIMESTAMP
+ *   byte           0=无空值；1=后跟 (n+7)/8 字节空值位图，第 i 行对应第 i/8 字节的第 i%8 位，置位表示空值
+ *   值             INT32 为 n 个 int，INT64 为 n 个 long，FLOAT64 为 n 个 double，
+ *                  TIMESTAMP 为 n 个 long（本地时间按 UTC 换算的毫秒数，解码后与 JSON 中的时间文本一致），
+ *                  STRING 为 int 字典大小 + 各词条（int 字节数 + UTF-8），byte 编码宽度（1/2/4）+ n 个无符号字典序号
+ * </pre>
+ * 空值所在行的值为 0（字符串列为序号 0），解码时以位图为准
+ */
+public final class ColumnarRecordEncoder {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.dynamic-query.columnar";
+
+    public static final int MAGIC = 0x44514331;
+
+    static final byte INT32 = 1;
+    static final byte INT64 = 2;
+    static final byte FLOAT64 = 3;
+    static final byte STRING = 4;
+    static final byte TIMESTAMP = 5;
+
+    private ColumnarRecordEncoder() {
+    }
+
+    /**
+     * 按给定的列顺序编码记录并写入输出流（写完后刷新，不关闭输出流）
+     */
+    public static void encode(List<DataRecord> records, List<DataRecordField> columns, OutputStream outputStream)
+            throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+        int rows = records.size();
+        out.writeInt(MAGIC);
+        out.writeInt(rows);
+        out.writeShort(columns.size());
+
+        // 各列复用同一个缓冲区，定长值整列填充后一次写出
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(rows * Long.BYTES, Long.BYTES));
+        byte[] nulls = new byte[(rows + 7) / 8];
+        Object[] values = new Object[rows];
+        for (DataRecordField column : columns) {
+            byte[] name = column.getProperty().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+            byte type = typeOf(column);
+            out.writeByte(type);
+
+            boolean hasNulls = false;
+            for (int i = 0; i < rows; i++) {
+                Object value = column.readValue(records.get(i));
+                values[i] = value;
+                if (value == null) {
+                    nulls[i >>> 3] |= (byte) (1 << (i & 7));
+                    hasNulls = true;
+                }
+            }
+            out.writeByte(hasNulls ? 1 : 0);
+            if (hasNulls) {
+                out.write(nulls);
+                Arrays.fill(nulls, (byte) 0);
+            }
+
+            buffer.clear();
+            if (type == STRING) {
+                writeStrings(out, buffer, values, rows);
+            } else {
+                writeFixed(buffer, type, values, rows);
+            }
+            out.write(buffer.array(), 0, buffer.position());
+        }
+        out.flush();
+    }
+
+    private static byte typeOf(DataRecordField column) {
+        switch (column.getValueType()) {
+            case INTEGER:
+                return INT32;
+            case LONG:
+                return INT64;
+            case DOUBLE:
+                return FLOAT64;
+            case DATETIME:
+                return TIMESTAMP;
+            default:
+                return STRING;
+        }
+    }
+
+    private static void writeFixed(ByteBuffer buffer, byte type, Object[] values, int rows) {
+        for (int i = 0; i < rows; i++) {
+            Object value = values[i];
+            switch (type) {
+                case INT32:
+                    buffer.putInt(value == null ? 0 : (Integer) value);
+                    break;
+                case INT64:
+                    buffer.putLong(value == null ? 0L : (Long) value);
+                    break;
+                case FLOAT64:
+                    buffer.putDouble(value == null ? 0.0 : (Double) value);
+                    break;
+                default:
+                    buffer.putLong(value == null ? 0L
+                            : ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli());
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 字典词条直接写出，序号按字典大小选择最窄的宽度写入缓冲区
+     */
+    private static void writeStrings(DataOutputStream out, ByteBuffer buffer, Object[] values, int rows)
+            throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        int[] codes = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            String value = (String) values[i];
+            if (value != null) {
+                Integer code = dictionary.get(value);
+                if (code == null) {
+                    code = entries.size();
+                    dictionary.put(value, code);
+                    entries.add(value);
+                }
+                codes[i] = code;
+            }
+        }
+
+        out.writeInt(entries.size());
+        for (String entry : entries) {
+            byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        int width = entries.size() <= 0x100 ? 1 : entries.size() <= 0x10000 ? 2 : 4;
+        out.writeByte(width);
+        for (int i = 0; i < rows; i++) {
+            if (width == 1) {
+                buffer.put((byte) codes[i]);
+            } else if (width == 2) {
+                buffer.putShort((short) codes[i]);
+            } else {
+                buffer.putInt(codes[i]);
+            }
+        }
+    }
+}
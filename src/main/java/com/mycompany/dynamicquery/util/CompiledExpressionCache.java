@@ -0,0 +1,91 @@
+package com.mycompany.dynamicquery.util;
+
+import com.mycompany.dynamicquery.dto.CompiledExpression;
+import com.mycompany.dynamicquery.dto.FilterExpression;
+import com.mycompany.dynamicquery.entity.FilterConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 配置表达式编译缓存
+ * 按配置ID + 更新时间缓存解析结果，配置未修改时查询路径不再执行表达式解析
+ */
+@Component
+public class CompiledExpressionCache {
+
+    @Autowired
+    private QueryExpressionParser expressionParser;
+
+    @Autowired
+    private DynamicQueryMetrics dynamicQueryMetrics;
+
+    private final Map<Long, CompiledExpression> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 获取配置对应的编译表达式，缺失或过期时重新解析
+     */
+    public CompiledExpression compile(FilterConfig config) {
+        Long configId = config.getId();
+        String source = config.getFilterExpression();
+
+        if (configId != null) {
+            CompiledExpression cached = cache.get(configId);
+            if (cached != null && cached.isCompiledFrom(config.getUpdatedTime(), source)) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        misses.increment();
+        FilterExpression parsed = dynamicQueryMetrics.time(DynamicQueryMetrics.STAGE_PARSE,
+                () -> expressionParser.parseExpression(source));
+        if (!parsed.isValid()) {
+            dynamicQueryMetrics.parseFailed();
+        }
+        CompiledExpression compiled = CompiledExpression.of(configId, config.getUpdatedTime(), source, parsed);
+        if (configId != null) {
+            cache.put(configId, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * 移除指定配置的编译结果
+     */
+    public void evict(Long configId) {
+        if (configId != null) {
+            cache.remove(configId);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        stats.put("size", cache.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+}
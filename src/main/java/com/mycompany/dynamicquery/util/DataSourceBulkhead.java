@@ -0,0 +1,101 @@
+package com.mycompany.dynamicquery.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据库并发隔舱
+ * 以信号量限制同时执行的SQL语句数（默认等于连接池大小），超出的请求在信号量上等待，
+ * 等待超时后快速失败，不再占满连接池后在池内排队；
+ * 虚拟线程模式下成千上万个在途请求只在这里挂起，不会同时进入JDBC驱动
+ */
+@Component
+public class DataSourceBulkhead {
+
+    private final boolean enabled;
+
+    private final int maxConcurrent;
+
+    private final long acquireTimeoutMs;
+
+    private final Semaphore permits;
+
+    private final Timer waitTimer;
+
+    private final Counter rejections;
+
+    public DataSourceBulkhead(MeterRegistry registry,
+                              @Value("${dynamic-query.bulkhead.enabled:true}") boolean enabled,
+                              @Value("${dynamic-query.bulkhead.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+                              @Value("${dynamic-query.bulkhead.acquire-timeout-ms:5000}") long acquireTimeoutMs) {
+        this.enabled = enabled;
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.waitTimer = Timer.builder("dynamic_query.bulkhead.wait")
+                .description("等待数据库并发许可的耗时")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.rejections = Counter.builder("dynamic_query.bulkhead.rejections")
+                .description("等待数据库并发许可超时的次数")
+                .register(registry);
+        Gauge.builder("dynamic_query.bulkhead.active", this, bulkhead -> bulkhead.maxConcurrent - bulkhead.permits.availablePermits())
+                .description("正在执行的SQL语句数")
+                .register(registry);
+        Gauge.builder("dynamic_query.bulkhead.waiting", permits, Semaphore::getQueueLength)
+                .description("等待数据库并发许可的请求数")
+                .register(registry);
+    }
+
+    /**
+     * 获取一个许可，超时抛出 {@link RejectedExecutionException}
+     */
+    public void acquire() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("等待数据库并发许可时被中断", e);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejections.increment();
+            throw new RejectedExecutionException("数据库并发已达上限 " + maxConcurrent + "，等待 " + acquireTimeoutMs + "ms 后仍无可用许可");
+        }
+    }
+
+    public void release() {
+        if (enabled) {
+            permits.release();
+        }
+    }
+
+    /**
+     * 隔舱状态
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("active", maxConcurrent - permits.availablePermits());
+        stats.put("waiting", permits.getQueueLength());
+        stats.put("rejections", (long) rejections.count());
+        return stats;
+    }
+}
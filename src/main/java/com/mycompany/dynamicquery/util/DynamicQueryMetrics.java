@@ -0,0 +1,132 @@
+package com.mycompany.dynamicquery.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 动态查询指标
+ * 按阶段（配置读取、表达式解析、条件构建、列式副本求值、SQL执行、JSON序列化）记录耗时分布，
+ * 并统计解析失败、未知字段键、每字段条件数与返回行数
+ */
+@Component
+public class DynamicQueryMetrics {
+
+    public static final String STAGE_CONFIG = "config";
+
+    public static final String STAGE_PARSE = "parse";
+
+    public static final String STAGE_BUILD = "build";
+
+    public static final String STAGE_SERIALIZE = "serialize";
+
+    public static final String STAGE_COLUMNAR = "columnar";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> sqlTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+
+    private final Counter parseFailures;
+
+    private final Counter unknownFieldKeys;
+
+    private final DistributionSummary conditionsPerField;
+
+    private final DistributionSummary conditionsEliminated;
+
+    public DynamicQueryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.parseFailures = Counter.builder("dynamic_query.parse.failures")
+                .description("配置表达式解析失败次数")
+                .register(registry);
+        this.unknownFieldKeys = Counter.builder("dynamic_query.unknown.field.keys")
+                .description("查询参数中未匹配到配置的字段键数")
+                .register(registry);
+        this.conditionsPerField = DistributionSummary.builder("dynamic_query.conditions.per.field")
+                .description("单个字段生成的条件数")
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+        this.conditionsEliminated = DistributionSummary.builder("dynamic_query.conditions.eliminated")
+                .description("条件优化去除的条件数")
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+    }
+
+    /**
+     * 记录查询流水线某个阶段的耗时
+     */
+    public <T> T time(String stage, Supplier<T> action) {
+        return stageTimer(stage).record(action);
+    }
+
+    /**
+     * 记录SQL语句执行耗时
+     * @param statement 语句名（如 selectPageByPlan）
+     */
+    public <T> T timeSql(String statement, Supplier<T> action) {
+        return sqlTimer(statement).record(action);
+    }
+
+    public void timeSql(String statement, Runnable action) {
+        sqlTimer(statement).record(action);
+    }
+
+    public Timer stageTimer(String stage) {
+        return stageTimers.computeIfAbsent(stage, key -> Timer.builder("dynamic_query.stage")
+                .description("动态查询各阶段耗时")
+                .tag("stage", key)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public void parseFailed() {
+        parseFailures.increment();
+    }
+
+    public void unknownFieldKey() {
+        unknownFieldKeys.increment();
+    }
+
+    public void recordConditionsPerField(int count) {
+        conditionsPerField.record(count);
+    }
+
+    public void recordConditionsEliminated(int count) {
+        conditionsEliminated.record(count);
+    }
+
+    /**
+     * 记录返回行数（计数查询记录计数结果）
+     * @param operation 操作名（page、count、export）
+     */
+    public void recordRows(String operation, long rows) {
+        rowSummaries.computeIfAbsent(operation, key -> DistributionSummary.builder("dynamic_query.rows")
+                .description("动态查询返回行数")
+                .tag("operation", key)
+                .publishPercentiles(PERCENTILES)
+                .register(registry))
+                .record(rows);
+    }
+
+    private Timer sqlTimer(String statement) {
+        return sqlTimers.computeIfAbsent(statement, key -> Timer.builder("dynamic_query.sql")
+                .description("动态查询SQL执行耗时")
+                .tag("statement", key)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
@@ -69,6 +69,14 @@ public class DynamicXmlConditionGenerator {
         xml.append("                        ").append(fieldName).append(" > #{").append(conditionVariable).append(".value1} AND ").append(fieldName).append(" &lt; #{").append(conditionVariable).append(".value2}\n");
         xml.append("                    </if>\n");
         
+        // 集合条件
+        xml.append("                    <if test=\"").append(conditionVariable).append(".operator.name() == 'IN'\">\n");
+        xml.append("                        ").append(fieldName).append(" IN ").append(valuesForeach(conditionVariable)).append("\n");
+        xml.append("                    </if>\n");
+        xml.append("                    <if test=\"").append(conditionVariable).append(".operator.name() == 'NOT_IN'\">\n");
+        xml.append("                        ").append(fieldName).append(" NOT IN ").append(valuesForeach(conditionVariable)).append("\n");
+        xml.append("                    </if>\n");
+        
         // 空值条件
         xml.append("                    <if test=\"").append(conditionVariable).append(".operator.name() == 'NA'\">\n");
         if ("String".equals(getFieldType(fieldName))) {
@@ -145,6 +153,12 @@ public class DynamicXmlConditionGenerator {
         xml.append("                        <when test=\"").append(conditionVariable).append(".operator.name() == 'RANGE_OPEN'\">\n");
         xml.append("                            ").append(fieldExpression).append(" > #{").append(conditionVariable).append(".value1} AND ").append(fieldExpression).append(" &lt; #{").append(conditionVariable).append(".value2}\n");
         xml.append("                        </when>\n");
+        xml.append("                        <when test=\"").append(conditionVariable).append(".operator.name() == 'IN'\">\n");
+        xml.append("                            ").append(fieldExpression).append(" IN ").append(valuesForeach(conditionVariable)).append("\n");
+        xml.append("                        </when>\n");
+        xml.append("                        <when test=\"").append(conditionVariable).append(".operator.name() == 'NOT_IN'\">\n");
+        xml.append("                            ").append(fieldExpression).append(" NOT IN ").append(valuesForeach(conditionVariable)).append("\n");
+        xml.append("                        </when>\n");
         xml.append("                        <when test=\"").append(conditionVariable).append(".operator.name() == 'NA'\">\n");
         xml.append("                            ").append(fieldName).append(" IS NULL\n");
         xml.append("                        </when>\n");
@@ -153,6 +167,13 @@ public class DynamicXmlConditionGenerator {
         return xml.toString();
     }
     
+    /**
+     * 集合条件的值列表（括号包围、逗号分隔）
+     */
+    private String valuesForeach(String conditionVariable) {
+        return "<foreach collection=\"" + conditionVariable + ".values\" item=\"item\" open=\"(\" separator=\",\" close=\")\">#{item}</foreach>";
+    }
+    
     /**
      * 获取字段类型（简单实现，可根据需要扩展）
      */
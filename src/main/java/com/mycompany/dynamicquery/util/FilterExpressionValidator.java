@@ -29,6 +29,10 @@ public class FilterExpressionValidator {
         return queryExpressionParser.getExpressionErrorMessage(expression);
     }
     
+    public String describeError(FilterExpression parsed) {
+        return queryExpressionParser.describeError(parsed);
+    }
+    
     public List<String> getValidExpressionExamples() {
         return queryExpressionParser.getValidExpressionExamples();
     }
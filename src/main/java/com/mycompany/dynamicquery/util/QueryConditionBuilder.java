@@ -1,10 +1,15 @@
 package com.mycompany.dynamicquery.util;
 
-import com.mycompany.dynamicquery.dto.FilterExpression;
+import com.mycompany.dynamicquery.dto.CompiledExpression;
+import com.mycompany.dynamicquery.dto.FilterConfigSnapshot;
+import com.mycompany.dynamicquery.dto.OptimizedConditions;
+import com.mycompany.dynamicquery.dto.Projection;
 import com.mycompany.dynamicquery.dto.QueryCondition;
 import com.mycompany.dynamicquery.entity.FilterConfig;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FieldValueType;
 import com.mycompany.dynamicquery.enums.FilterOperator;
-import com.mycompany.dynamicquery.service.FilterConfigService;
+import com.mycompany.dynamicquery.service.FilterConfigRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -20,10 +25,16 @@ import java.util.stream.Collectors;
 public class QueryConditionBuilder {
 
     @Autowired
-    private FilterConfigService filterConfigService;
+    private FilterConfigRegistry filterConfigRegistry;
 
     @Autowired
-    private QueryExpressionParser expressionParser;
+    private CompiledExpressionCache compiledExpressionCache;
+
+    @Autowired
+    private QueryConditionOptimizer queryConditionOptimizer;
+
+    @Autowired
+    private DynamicQueryMetrics dynamicQueryMetrics;
 
     /**
      * 构建查询条件
@@ -32,13 +43,25 @@ public class QueryConditionBuilder {
      * @return 查询条件映射
      */
     public Map<String, Object> buildQueryConditions(Map<String, List<String>> queryParams, String tableName) {
+        return dynamicQueryMetrics.time(DynamicQueryMetrics.STAGE_BUILD, () -> {
+            // 获取配置快照（内存，无数据库访问）
+            FilterConfigSnapshot snapshot = dynamicQueryMetrics.time(DynamicQueryMetrics.STAGE_CONFIG, filterConfigRegistry::snapshot);
+            return doBuildQueryConditions(queryParams, tableName, snapshot);
+        });
+    }
+    
+    /**
+     * 基于指定的配置快照构建查询条件（多个查询共用同一快照时使用）
+     */
+    public Map<String, Object> buildQueryConditions(FilterConfigSnapshot snapshot, Map<String, List<String>> queryParams) {
+        return dynamicQueryMetrics.time(DynamicQueryMetrics.STAGE_BUILD, () -> doBuildQueryConditions(queryParams, null, snapshot));
+    }
+    
+    private Map<String, Object> doBuildQueryConditions(Map<String, List<String>> queryParams, String tableName,
+                                                       FilterConfigSnapshot snapshot) {
         Map<String, Object> result = new HashMap<>();
         List<QueryCondition> conditions = new ArrayList<>();
         
-        // 获取配置信息
-        List<FilterConfig> configs = filterConfigService.getAllActiveConfigs();
-        Map<String, FilterConfig> configMaps = buildConfigMaps(configs);
-        
         // 处理每个查询参数
         for (Map.Entry<String, List<String>> entry : queryParams.entrySet()) {
             String fieldKey = entry.getKey();
@@ -48,23 +71,32 @@ public class QueryConditionBuilder {
                 continue;
             }
             
-            FilterConfig config = findConfigByKey(fieldKey, configMaps);
+            FilterConfig config = snapshot.findByKey(fieldKey);
             if (config == null) {
+                dynamicQueryMetrics.unknownFieldKey();
                 continue;
             }
             
-            FilterExpression expression = expressionParser.parseExpression(config.getFilterExpression());
+            CompiledExpression expression = compiledExpressionCache.compile(config);
             if (!expression.isValid()) {
                 continue;
             }
             
-            List<QueryCondition> fieldConditions = buildFieldConditions(config.getFieldName(), expression, values);
+            List<QueryCondition> fieldConditions = buildFieldConditions(config, expression, values);
+            dynamicQueryMetrics.recordConditionsPerField(fieldConditions.size());
             conditions.addAll(fieldConditions);
         }
         
+        // 化简同字段条件；存在恒假条件组时保留原条件并标记，由调用方直接返回空结果
+        OptimizedConditions optimized = queryConditionOptimizer.optimize(conditions);
+        dynamicQueryMetrics.recordConditionsEliminated(conditions.size() - optimized.getConditions().size());
+        conditions = optimized.getConditions();
+        
         result.put("conditions", conditions);
+        result.put("unsatisfiable", optimized.isUnsatisfiable());
         result.put("tableName", StringUtils.defaultIfBlank(tableName, ""));
         result.put("conditionsMap", groupConditionsByField(conditions));
+        result.put("configVersion", snapshot.getVersion());
         
         return result;
     }
@@ -77,56 +109,111 @@ public class QueryConditionBuilder {
     }
     
     /**
-     * 构建配置映射表
+     * 解析列投影：字段可使用配置中的字段名、别名、中文名，也可直接使用 data_record 的列名或属性名
+     * @param fields 投影字段列表
+     * @return 列投影；列表为空时返回 null（读取全部列）
+     * @throws IllegalArgumentException 字段未配置或不是 data_record 的列
      */
-    private Map<String, FilterConfig> buildConfigMaps(List<FilterConfig> configs) {
-        Map<String, FilterConfig> result = new HashMap<>();
-        
-        for (FilterConfig config : configs) {
-            // 字段名映射
-            result.put(config.getFieldName(), config);
-            
-            // 别名映射
-            if (StringUtils.isNotBlank(config.getFieldAlias())) {
-                result.put(config.getFieldAlias(), config);
+    public Projection resolveProjection(List<String> fields) {
+        if (fields == null) {
+            return null;
+        }
+        FilterConfigSnapshot snapshot = filterConfigRegistry.snapshot();
+        Set<DataRecordField> resolved = EnumSet.noneOf(DataRecordField.class);
+        for (String name : fields) {
+            if (StringUtils.isBlank(name)) {
+                continue;
             }
-            
-            // 中文名映射
-            if (StringUtils.isNotBlank(config.getFieldChineseName())) {
-                result.put(config.getFieldChineseName(), config);
+            String key = name.trim();
+            FilterConfig config = snapshot.findByKey(key);
+            DataRecordField field = DataRecordField.fromName(config != null ? config.getFieldName() : key);
+            if (field == null) {
+                throw new IllegalArgumentException(config != null
+                        ? "投影字段 " + key + " 不是 data_record 的列"
+                        : "未找到投影字段: " + key);
             }
+            resolved.add(field);
+        }
+        return resolved.isEmpty() ? null : new Projection(resolved);
+    }
+    
+    /**
+     * 为单个字段构建查询条件
+     * @throws IllegalArgumentException 值无法解析为字段类型，或区间值格式错误
+     */
+    private List<QueryCondition> buildFieldConditions(FilterConfig config, CompiledExpression expression, List<String> values) {
+        String actualFieldName = config.getFieldName();
+        FieldValueType valueType = resolveValueType(config);
+        if (expression.isSetOperator()) {
+            return buildSetConditions(actualFieldName, valueType, expression.getOperator(), values);
         }
         
-        return result;
+        List<QueryCondition> conditions = new ArrayList<>();
+        
+        for (String value : values) {
+            QueryCondition condition = buildSingleCondition(actualFieldName, valueType, expression, value);
+            if (condition != null) {
+                conditions.add(condition);
+            }
+        }
+        
+        return conditions;
     }
     
     /**
-     * 根据字段键查找配置
+     * 字段值类型：data_record 中的字段以实体列类型为准，其他字段按配置声明的 field_type，均未知时按字符串处理
      */
-    private FilterConfig findConfigByKey(String fieldKey, Map<String, FilterConfig> configMaps) {
-        return configMaps.get(fieldKey);
+    public static FieldValueType resolveValueType(FilterConfig config) {
+        DataRecordField field = DataRecordField.fromName(config.getFieldName());
+        if (field != null) {
+            return field.getValueType();
+        }
+        FieldValueType declared = FieldValueType.fromDeclared(config.getFieldType());
+        return declared != null ? declared : FieldValueType.STRING;
     }
     
     /**
-     * 为单个字段构建查询条件
+     * 解析值，失败时在错误信息中带上字段名
      */
-    private List<QueryCondition> buildFieldConditions(String actualFieldName, FilterExpression expression, List<String> values) {
+    private static Object parseValue(String fieldName, FieldValueType valueType, String value) {
+        try {
+            return valueType.parse(valueType == FieldValueType.STRING ? value : value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("字段 " + fieldName + " 的" + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 集合操作符：所有值（多个参数值或逗号分隔）合并为一个值列表条件，NA 仍单独生成空值条件
+     */
+    private List<QueryCondition> buildSetConditions(String actualFieldName, FieldValueType valueType,
+                                                    FilterOperator operator, List<String> values) {
         List<QueryCondition> conditions = new ArrayList<>();
+        Set<Object> members = new LinkedHashSet<>();
         
         for (String value : values) {
-            QueryCondition condition = buildSingleCondition(actualFieldName, expression, value);
-            if (condition != null) {
-                conditions.add(condition);
+            if ("NA".equals(value)) {
+                conditions.add(new QueryCondition(actualFieldName, FilterOperator.NA, null));
+                continue;
+            }
+            for (String part : StringUtils.split(value, ',')) {
+                if (StringUtils.isNotBlank(part)) {
+                    members.add(parseValue(actualFieldName, valueType, part.trim()));
+                }
             }
         }
         
+        if (!members.isEmpty()) {
+            conditions.add(0, QueryCondition.ofValues(actualFieldName, operator, new ArrayList<>(members)));
+        }
         return conditions;
     }
     
     /**
      * 构建单个查询条件
      */
-    private QueryCondition buildSingleCondition(String actualFieldName, FilterExpression expression, String value) {
+    private QueryCondition buildSingleCondition(String actualFieldName, FieldValueType valueType,
+                                                CompiledExpression expression, String value) {
         if ("NA".equals(value)) {
             return new QueryCondition(actualFieldName, FilterOperator.NA, null);
         }
@@ -137,13 +224,15 @@ public class QueryConditionBuilder {
             // 区间查询：值格式为 "value1,value2"
             String[] parts = value.split(",");
             if (parts.length != 2) {
-                return null;
+                throw new IllegalArgumentException("字段 " + actualFieldName + " 的区间值格式错误，应为: 值1,值2");
             }
-            return new QueryCondition(actualFieldName, operator, parts[0].trim(), parts[1].trim());
+            return new QueryCondition(actualFieldName, operator,
+                    parseValue(actualFieldName, valueType, parts[0].trim()),
+                    parseValue(actualFieldName, valueType, parts[1].trim()));
         } else if (operator == FilterOperator.NA) {
             return new QueryCondition(actualFieldName, FilterOperator.NA, null);
         } else {
-            return new QueryCondition(actualFieldName, operator, value);
+            return new QueryCondition(actualFieldName, operator, parseValue(actualFieldName, valueType, value));
         }
     }
     
@@ -166,7 +255,15 @@ public class QueryConditionBuilder {
             return "";
         }
         
-        Map<String, List<QueryCondition>> groupedConditions = groupConditionsByField(conditions);
+        OptimizedConditions optimized = queryConditionOptimizer.optimize(conditions);
+        if (optimized.isUnsatisfiable()) {
+            return "1=0";
+        }
+        if (optimized.getConditions().isEmpty()) {
+            return "";
+        }
+        
+        Map<String, List<QueryCondition>> groupedConditions = groupConditionsByField(optimized.getConditions());
         List<String> fieldClauses = new ArrayList<>();
         
         for (Map.Entry<String, List<QueryCondition>> entry : groupedConditions.entrySet()) {
@@ -197,43 +294,68 @@ public class QueryConditionBuilder {
         String fieldName = condition.getFieldName();
         FilterOperator operator = condition.getOperator();
         
+        if (operator.isRangeOperator()) {
+            parameterMap.put(paramKey + "Min", condition.getValue1());
+            parameterMap.put(paramKey + "Max", condition.getValue2());
+            return renderConditionSql(fieldName, fieldName, true, operator,
+                    "#{" + paramKey + "Min}", "#{" + paramKey + "Max}");
+        }
+        if (operator.isSetOperator()) {
+            List<Object> values = condition.getValues();
+            List<String> placeholders = new ArrayList<>(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                parameterMap.put(paramKey + "_" + i, values.get(i));
+                placeholders.add("#{" + paramKey + "_" + i + "}");
+            }
+            return renderConditionSql(fieldName, fieldName, true, operator, String.join(", ", placeholders), null);
+        }
+        if (operator != FilterOperator.NA) {
+            parameterMap.put(paramKey, condition.getValue1());
+        }
+        return renderConditionSql(fieldName, fieldName, true, operator, "#{" + paramKey + "}", null);
+    }
+    
+    /**
+     * 渲染单个条件的SQL片段
+     * @param column 比较时使用的列表达式（如 ROUND(score, 2)）
+     * @param nullColumn 空值判断使用的列名
+     * @param stringColumn 是否字符串列（空值判断同时匹配空字符串）
+     * @param operator 操作符
+     * @param value1 值1占位符（集合操作符为逗号分隔的占位符列表或子查询）
+     * @param value2 值2占位符（仅区间操作符）
+     * @return SQL片段
+     */
+    public static String renderConditionSql(String column, String nullColumn, boolean stringColumn,
+                                            FilterOperator operator, String value1, String value2) {
         switch (operator) {
             case EQ:
-                parameterMap.put(paramKey, condition.getValue1());
-                return fieldName + " = #{" + paramKey + "}";
+                return column + " = " + value1;
             case NE:
-                parameterMap.put(paramKey, condition.getValue1());
-                return fieldName + " != #{" + paramKey + "}";
+                return column + " != " + value1;
             case GT:
-                parameterMap.put(paramKey, condition.getValue1());
-                return fieldName + " > #{" + paramKey + "}";
+                return column + " > " + value1;
             case GTE:
-                parameterMap.put(paramKey, condition.getValue1());
-                return fieldName + " >= #{" + paramKey + "}";
+                return column + " >= " + value1;
             case LT:
-                parameterMap.put(paramKey, condition.getValue1());
-                return fieldName + " < #{" + paramKey + "}";
+                return column + " < " + value1;
             case LTE:
-                parameterMap.put(paramKey, condition.getValue1());
-                return fieldName + " <= #{" + paramKey + "}";
+                return column + " <= " + value1;
             case RANGE_CLOSED:
-                parameterMap.put(paramKey + "Min", condition.getValue1());
-                parameterMap.put(paramKey + "Max", condition.getValue2());
-                return fieldName + " >= #{" + paramKey + "Min} AND " + fieldName + " <= #{" + paramKey + "Max}";
+                return column + " >= " + value1 + " AND " + column + " <= " + value2;
             case RANGE_LEFT_OPEN:
-                parameterMap.put(paramKey + "Min", condition.getValue1());
-                parameterMap.put(paramKey + "Max", condition.getValue2());
-                return fieldName + " > #{" + paramKey + "Min} AND " + fieldName + " <= #{" + paramKey + "Max}";
+                return column + " > " + value1 + " AND " + column + " <= " + value2;
             case RANGE_RIGHT_OPEN:
-                parameterMap.put(paramKey + "Min", condition.getValue1());
-                parameterMap.put(paramKey + "Max", condition.getValue2());
-                return fieldName + " >= #{" + paramKey + "Min} AND " + fieldName + " < #{" + paramKey + "Max}";
+                return column + " >= " + value1 + " AND " + column + " < " + value2;
             case RANGE_OPEN:
-                parameterMap.put(paramKey + "Min", condition.getValue1());
-                parameterMap.put(paramKey + "Max", condition.getValue2());
-                return fieldName + " > #{" + paramKey + "Min} AND " + fieldName + " < #{" + paramKey + "Max}";
+                return column + " > " + value1 + " AND " + column + " < " + value2;
+            case IN:
+                return column + " IN (" + value1 + ")";
+            case NOT_IN:
+                return column + " NOT IN (" + value1 + ")";
             case NA:
-                return "(" + fieldName + " IS NULL OR " + fieldName + " = '')";
+                return stringColumn
+                        ? "(" + nullColumn + " IS NULL OR " + nullColumn + " = '')"
+                        : nullColumn + " IS NULL";
             default:
                 return "1=1";
         }
@@ -244,34 +366,30 @@ public class QueryConditionBuilder {
      */
     public List<String> validateQueryParameters(Map<String, List<String>> queryParams) {
         List<String> errors = new ArrayList<>();
-        List<FilterConfig> configs = filterConfigService.getAllActiveConfigs();
-        Map<String, FilterConfig> configMaps = buildConfigMaps(configs);
+        FilterConfigSnapshot snapshot = filterConfigRegistry.snapshot();
         
         for (Map.Entry<String, List<String>> entry : queryParams.entrySet()) {
             String fieldKey = entry.getKey();
             List<String> values = entry.getValue();
             
-            FilterConfig config = findConfigByKey(fieldKey, configMaps);
+            FilterConfig config = snapshot.findByKey(fieldKey);
             if (config == null) {
                 errors.add("未找到字段配置: " + fieldKey);
                 continue;
             }
             
-            FilterExpression expression = expressionParser.parseExpression(config.getFilterExpression());
+            CompiledExpression expression = compiledExpressionCache.compile(config);
             if (!expression.isValid()) {
                 errors.add("字段 " + fieldKey + " 的配置表达式无效: " + expression.getErrorMessage());
                 continue;
             }
             
-            // 验证值格式
+            // 验证值格式与类型
             if (values != null) {
-                for (String value : values) {
-                    if (expression.getOperator().isRangeOperator() && !"NA".equals(value)) {
-                        String[] parts = value.split(",");
-                        if (parts.length != 2) {
-                            errors.add("字段 " + fieldKey + " 的区间值格式错误，应为: 值1,值2");
-                        }
-                    }
+                try {
+                    buildFieldConditions(config, expression, values);
+                } catch (IllegalArgumentException e) {
+                    errors.add(e.getMessage());
                 }
             }
         }
@@ -0,0 +1,461 @@
+package com.mycompany.dynamicquery.util;
+
+import com.mycompany.dynamicquery.dto.OptimizedConditions;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FieldValueType;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 查询条件优化器
+ * 在生成SQL之前化简同字段条件（字段内 OR）：
+ * 数值字段把各条件转为数轴区间后合并重叠/相邻区间，去除被覆盖的条件，识别恒真/恒假的条件组
+ * （整数字段按整数精确比较，浮点字段按绑定的 double 值比较）；
+ * 其他字段去除重复条件；多个等值/IN 条件合并为一个 IN 条件
+ */
+@Component
+public class QueryConditionOptimizer {
+
+    private static final Pattern NUMBER = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+    /**
+     * 优化查询条件
+     * @param conditions 原始条件
+     * @return 优化后的条件；存在恒假条件组时标记为不可满足
+     */
+    public OptimizedConditions optimize(List<QueryCondition> conditions) {
+        Map<String, List<QueryCondition>> grouped = new LinkedHashMap<>();
+        for (QueryCondition condition : conditions) {
+            grouped.computeIfAbsent(condition.getFieldName(), key -> new ArrayList<>()).add(condition);
+        }
+
+        List<QueryCondition> result = new ArrayList<>(conditions.size());
+        for (Map.Entry<String, List<QueryCondition>> entry : grouped.entrySet()) {
+            DataRecordField field = DataRecordField.fromName(entry.getKey());
+            if (field == null || !field.isNumericType()) {
+                result.addAll(mergeMemberships(entry.getKey(), deduplicate(entry.getValue())));
+                continue;
+            }
+
+            List<QueryCondition> fieldConditions = optimizeNumeric(field, entry.getKey(), entry.getValue());
+            if (fieldConditions == null) {
+                // 恒假：任何记录都不满足该字段条件
+                return new OptimizedConditions(conditions, true);
+            }
+            // 恒真的条件组返回空列表，直接省略
+            result.addAll(fieldConditions);
+        }
+        return new OptimizedConditions(result, false);
+    }
+
+    /**
+     * 解析数值字面量；与 MySQL 数值列和字符串比较时一样按 double 处理，非纯数字返回 null
+     */
+    public static Double parseNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String && NUMBER.matcher((String) value).matches()) {
+            double number = Double.parseDouble((String) value);
+            return Double.isInfinite(number) ? null : number;
+        }
+        return null;
+    }
+
+    /**
+     * 数值字面量在数轴上的精确位置，非纯数字返回 null
+     * 整数字段按整数精确比较：超过 2^53 的 BIGINT 值（如雪花ID）转为 double 后不同的值会变成同一个点；
+     * 浮点字段取 double 值的精确十进制表示，与数据库按 double 比较的结果一致
+     */
+    public static BigDecimal parseDecimal(DataRecordField field, Object value) {
+        if (field.getValueType() != FieldValueType.DOUBLE) {
+            if (value instanceof Long || value instanceof Integer) {
+                return BigDecimal.valueOf(((Number) value).longValue());
+            }
+            if (value instanceof String && NUMBER.matcher((String) value).matches()) {
+                return new BigDecimal((String) value);
+            }
+        }
+        Double number = parseNumber(value);
+        return number == null || number.isNaN() || number.isInfinite() ? null : new BigDecimal(number);
+    }
+
+    /**
+     * 数值字段条件化简
+     * @return 化简后的条件；恒真时返回空列表，恒假时返回 null
+     */
+    private List<QueryCondition> optimizeNumeric(DataRecordField field, String fieldName, List<QueryCondition> conditions) {
+        boolean matchesNull = false;
+        List<Interval> intervals = new ArrayList<>();
+        List<QueryCondition> untouched = new ArrayList<>();
+
+        for (QueryCondition condition : conditions) {
+            if (condition.getOperator() == FilterOperator.NA) {
+                matchesNull = true;
+            } else if (condition.getOperator() == FilterOperator.IN) {
+                // 可解析的值转为点区间，其余值保持为原条件
+                List<Object> unparsed = addPoints(field, condition, intervals);
+                if (unparsed.size() == 1) {
+                    untouched.add(new QueryCondition(fieldName, FilterOperator.EQ, unparsed.get(0)));
+                } else if (!unparsed.isEmpty()) {
+                    untouched.add(QueryCondition.ofValues(fieldName, FilterOperator.IN, unparsed));
+                }
+            } else if (!addIntervals(field, condition, intervals)) {
+                untouched.add(condition);
+            }
+        }
+
+        List<Interval> merged = merge(intervals);
+        if (merged.size() == 1 && merged.get(0).isFullLine()) {
+            if (matchesNull) {
+                return Collections.emptyList();
+            }
+            // 等价于 IS NOT NULL，没有对应的操作符，保持原条件
+            return deduplicate(conditions);
+        }
+        if (merged.isEmpty() && !matchesNull && untouched.isEmpty()) {
+            return null;
+        }
+
+        List<QueryCondition> result = new ArrayList<>();
+        List<Object> excluded = excludedPoints(merged);
+        if (excluded != null) {
+            result.add(excluded.size() == 1
+                    ? new QueryCondition(fieldName, FilterOperator.NE, excluded.get(0))
+                    : QueryCondition.ofValues(fieldName, FilterOperator.NOT_IN, excluded));
+        } else {
+            // 单点区间合并为一个 IN 条件
+            List<Object> points = new ArrayList<>();
+            for (Interval interval : merged) {
+                if (interval.isPoint()) {
+                    points.add(interval.lowerValue);
+                } else {
+                    result.add(interval.toCondition(fieldName));
+                }
+            }
+            if (!points.isEmpty()) {
+                result.add(points.size() == 1
+                        ? new QueryCondition(fieldName, FilterOperator.EQ, points.get(0))
+                        : QueryCondition.ofValues(fieldName, FilterOperator.IN, points));
+            }
+        }
+        if (matchesNull) {
+            result.add(new QueryCondition(fieldName, FilterOperator.NA, null));
+        }
+        result.addAll(mergeMemberships(fieldName, deduplicate(untouched)));
+        return result;
+    }
+
+    /**
+     * 把条件转为区间，值无法解析为数值时返回 false；空区间不产生任何区间
+     */
+    private boolean addIntervals(DataRecordField field, QueryCondition condition, List<Interval> intervals) {
+        FilterOperator operator = condition.getOperator();
+        if (operator == FilterOperator.NOT_IN) {
+            return addExclusions(field, condition, intervals);
+        }
+        Object raw1 = condition.getValue1();
+        BigDecimal value1 = parseDecimal(field, raw1);
+        if (value1 == null) {
+            return false;
+        }
+
+        if (operator.isRangeOperator()) {
+            BigDecimal value2 = parseDecimal(field, condition.getValue2());
+            if (value2 == null) {
+                return false;
+            }
+            boolean lowerInclusive = operator == FilterOperator.RANGE_CLOSED || operator == FilterOperator.RANGE_RIGHT_OPEN;
+            boolean upperInclusive = operator == FilterOperator.RANGE_CLOSED || operator == FilterOperator.RANGE_LEFT_OPEN;
+            addIfNotEmpty(intervals, Interval.bounded(value1, raw1, lowerInclusive,
+                    value2, condition.getValue2(), upperInclusive));
+            return true;
+        }
+
+        switch (operator) {
+            case EQ:
+                intervals.add(Interval.bounded(value1, raw1, true, value1, raw1, true));
+                return true;
+            case NE:
+                intervals.add(Interval.below(value1, raw1, false));
+                intervals.add(Interval.above(value1, raw1, false));
+                return true;
+            case GT:
+                intervals.add(Interval.above(value1, raw1, false));
+                return true;
+            case GTE:
+                intervals.add(Interval.above(value1, raw1, true));
+                return true;
+            case LT:
+                intervals.add(Interval.below(value1, raw1, false));
+                return true;
+            case LTE:
+                intervals.add(Interval.below(value1, raw1, true));
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * IN 条件的每个可解析值转为单点区间
+     * @return 无法解析为数值的值
+     */
+    private List<Object> addPoints(DataRecordField field, QueryCondition condition, List<Interval> intervals) {
+        List<Object> unparsed = new ArrayList<>();
+        for (Object raw : condition.getValues()) {
+            BigDecimal value = parseDecimal(field, raw);
+            if (value == null) {
+                unparsed.add(raw);
+            } else {
+                intervals.add(Interval.bounded(value, raw, true, value, raw, true));
+            }
+        }
+        return unparsed;
+    }
+
+    /**
+     * NOT IN 条件转为挖去各点的开区间序列；任一值无法解析时整体保持原条件
+     */
+    private boolean addExclusions(DataRecordField field, QueryCondition condition, List<Interval> intervals) {
+        TreeMap<BigDecimal, Object> points = new TreeMap<>();
+        for (Object raw : condition.getValues()) {
+            BigDecimal value = parseDecimal(field, raw);
+            if (value == null) {
+                return false;
+            }
+            points.putIfAbsent(value, raw);
+        }
+        if (points.isEmpty()) {
+            intervals.add(Interval.FULL_LINE);
+            return true;
+        }
+
+        Map.Entry<BigDecimal, Object> previous = points.firstEntry();
+        intervals.add(Interval.below(previous.getKey(), previous.getValue(), false));
+        for (Map.Entry<BigDecimal, Object> point : points.tailMap(previous.getKey(), false).entrySet()) {
+            intervals.add(Interval.bounded(previous.getKey(), previous.getValue(), false,
+                    point.getKey(), point.getValue(), false));
+            previous = point;
+        }
+        intervals.add(Interval.above(previous.getKey(), previous.getValue(), false));
+        return true;
+    }
+
+    private void addIfNotEmpty(List<Interval> intervals, Interval interval) {
+        if (!interval.isEmpty()) {
+            intervals.add(interval);
+        }
+    }
+
+    /**
+     * 按下界排序后合并重叠或相邻的区间
+     */
+    private List<Interval> merge(List<Interval> intervals) {
+        if (intervals.isEmpty()) {
+            return intervals;
+        }
+        intervals.sort(Interval.BY_LOWER);
+
+        List<Interval> merged = new ArrayList<>();
+        Interval current = intervals.get(0);
+        for (int i = 1; i < intervals.size(); i++) {
+            Interval next = intervals.get(i);
+            if (current.connects(next)) {
+                current = current.union(next);
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    /**
+     * 是否恰好是挖去若干个点的整条数轴，即 != v 或 NOT IN (v1, v2, ...)
+     * @return 挖去的点（原始值），不是这种形式时返回 null
+     */
+    private List<Object> excludedPoints(List<Interval> merged) {
+        if (merged.size() < 2 || !merged.get(0).lowerUnbounded || !merged.get(merged.size() - 1).upperUnbounded) {
+            return null;
+        }
+        List<Object> points = new ArrayList<>(merged.size() - 1);
+        for (int i = 0; i + 1 < merged.size(); i++) {
+            Interval lower = merged.get(i);
+            Interval upper = merged.get(i + 1);
+            if (lower.upperInclusive || upper.lowerInclusive || lower.upper.compareTo(upper.lower) != 0) {
+                return null;
+            }
+            points.add(lower.upperValue);
+        }
+        return points;
+    }
+
+    /**
+     * 多个等值/IN 条件（字段内 OR）合并为一个 IN 条件，值按出现顺序去重
+     */
+    private List<QueryCondition> mergeMemberships(String fieldName, List<QueryCondition> conditions) {
+        int memberships = 0;
+        for (QueryCondition condition : conditions) {
+            if (isMembership(condition)) {
+                memberships++;
+            }
+        }
+        if (memberships < 2) {
+            return conditions;
+        }
+
+        Set<Object> members = new LinkedHashSet<>();
+        List<QueryCondition> result = new ArrayList<>(conditions.size() - memberships + 1);
+        result.add(null);
+        for (QueryCondition condition : conditions) {
+            if (condition.getOperator() == FilterOperator.EQ) {
+                members.add(condition.getValue1());
+            } else if (condition.getOperator() == FilterOperator.IN) {
+                members.addAll(condition.getValues());
+            } else {
+                result.add(condition);
+            }
+        }
+        result.set(0, members.size() == 1
+                ? new QueryCondition(fieldName, FilterOperator.EQ, members.iterator().next())
+                : QueryCondition.ofValues(fieldName, FilterOperator.IN, new ArrayList<>(members)));
+        return result;
+    }
+
+    private boolean isMembership(QueryCondition condition) {
+        return condition.getOperator() == FilterOperator.EQ || condition.getOperator() == FilterOperator.IN;
+    }
+
+    /**
+     * 去除操作符与值都相同的重复条件，保持原有顺序
+     */
+    private List<QueryCondition> deduplicate(List<QueryCondition> conditions) {
+        if (conditions.size() < 2) {
+            return conditions;
+        }
+        Set<List<Object>> seen = new HashSet<>();
+        List<QueryCondition> result = new ArrayList<>(conditions.size());
+        for (QueryCondition condition : conditions) {
+            if (seen.add(Arrays.asList(condition.getOperator(), condition.getValue1(), condition.getValue2(), condition.getValues()))) {
+                result.add(condition);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 数轴区间，端点保留原始值以便按原值绑定参数
+     */
+    private static final class Interval {
+
+        static final Comparator<Interval> BY_LOWER = (a, b) -> {
+            if (a.lowerUnbounded || b.lowerUnbounded) {
+                return Boolean.compare(!a.lowerUnbounded, !b.lowerUnbounded);
+            }
+            int compare = a.lower.compareTo(b.lower);
+            return compare != 0 ? compare : Boolean.compare(!a.lowerInclusive, !b.lowerInclusive);
+        };
+
+        static final Interval FULL_LINE = new Interval(true, null, null, false, true, null, null, false);
+
+        final boolean lowerUnbounded;
+        final BigDecimal lower;
+        final Object lowerValue;
+        final boolean lowerInclusive;
+
+        final boolean upperUnbounded;
+        final BigDecimal upper;
+        final Object upperValue;
+        final boolean upperInclusive;
+
+        private Interval(boolean lowerUnbounded, BigDecimal lower, Object lowerValue, boolean lowerInclusive,
+                         boolean upperUnbounded, BigDecimal upper, Object upperValue, boolean upperInclusive) {
+            this.lowerUnbounded = lowerUnbounded;
+            this.lower = lower;
+            this.lowerValue = lowerValue;
+            this.lowerInclusive = lowerInclusive;
+            this.upperUnbounded = upperUnbounded;
+            this.upper = upper;
+            this.upperValue = upperValue;
+            this.upperInclusive = upperInclusive;
+        }
+
+        static Interval bounded(BigDecimal lower, Object lowerValue, boolean lowerInclusive,
+                                BigDecimal upper, Object upperValue, boolean upperInclusive) {
+            return new Interval(false, lower, lowerValue, lowerInclusive, false, upper, upperValue, upperInclusive);
+        }
+
+        static Interval above(BigDecimal lower, Object lowerValue, boolean inclusive) {
+            return new Interval(false, lower, lowerValue, inclusive, true, null, null, false);
+        }
+
+        static Interval below(BigDecimal upper, Object upperValue, boolean inclusive) {
+            return new Interval(true, null, null, false, false, upper, upperValue, inclusive);
+        }
+
+        boolean isEmpty() {
+            if (lowerUnbounded || upperUnbounded) {
+                return false;
+            }
+            int compare = lower.compareTo(upper);
+            return compare > 0 || (compare == 0 && !(lowerInclusive && upperInclusive));
+        }
+
+        boolean isPoint() {
+            return !lowerUnbounded && !upperUnbounded && lower.compareTo(upper) == 0;
+        }
+
+        boolean isFullLine() {
+            return lowerUnbounded && upperUnbounded;
+        }
+
+        /**
+         * 下界不小于本区间下界的区间是否与本区间重叠或相邻
+         */
+        boolean connects(Interval next) {
+            if (upperUnbounded || next.lowerUnbounded) {
+                return true;
+            }
+            int compare = next.lower.compareTo(upper);
+            return compare < 0 || (compare == 0 && (next.lowerInclusive || upperInclusive));
+        }
+
+        Interval union(Interval next) {
+            if (upperUnbounded || next.upperUnbounded) {
+                return new Interval(lowerUnbounded, lower, lowerValue, lowerInclusive, true, null, null, false);
+            }
+            int compare = next.upper.compareTo(upper);
+            if (compare > 0 || (compare == 0 && next.upperInclusive && !upperInclusive)) {
+                return new Interval(lowerUnbounded, lower, lowerValue, lowerInclusive,
+                        false, next.upper, next.upperValue, next.upperInclusive);
+            }
+            return this;
+        }
+
+        QueryCondition toCondition(String fieldName) {
+            if (lowerUnbounded) {
+                return new QueryCondition(fieldName, upperInclusive ? FilterOperator.LTE : FilterOperator.LT, upperValue);
+            }
+            if (upperUnbounded) {
+                return new QueryCondition(fieldName, lowerInclusive ? FilterOperator.GTE : FilterOperator.GT, lowerValue);
+            }
+            if (lower.compareTo(upper) == 0) {
+                return new QueryCondition(fieldName, FilterOperator.EQ, lowerValue);
+            }
+            FilterOperator operator;
+            if (lowerInclusive) {
+                operator = upperInclusive ? FilterOperator.RANGE_CLOSED : FilterOperator.RANGE_RIGHT_OPEN;
+            } else {
+                operator = upperInclusive ? FilterOperator.RANGE_LEFT_OPEN : FilterOperator.RANGE_OPEN;
+            }
+            return new QueryCondition(fieldName, operator, lowerValue, upperValue);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.mycompany.dynamicquery.util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Supplier;
+
+/**
+ * 一次查询请求的截止时间与取消状态
+ * 执行中的JDBC语句登记在此，超时或客户端断开时对这些语句调用 {@link Statement#cancel()}（MySQL 驱动发送 KILL QUERY），
+ * 取消后不再开始新的语句。通过线程变量绑定到执行查询的线程，分片与批量查询的工作线程需显式传递
+ */
+public final class QueryDeadline {
+
+    /**
+     * 取消原因
+     */
+    public enum Reason {
+        TIMEOUT, CLIENT_DISCONNECTED,
+        /**
+         * 并发执行的一组语句中有一条失败，取消其余语句
+         */
+        SIBLING_FAILED
+    }
+
+    private static final ThreadLocal<QueryDeadline> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+
+    private volatile long expiresAtNanos;
+
+    private volatile Reason cancelReason;
+
+    private volatile ScheduledFuture<?> timer;
+
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+    private final List<QueryDeadline> children = new CopyOnWriteArrayList<>();
+
+    QueryDeadline(String endpoint, long expiresAtNanos) {
+        this.endpoint = endpoint;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * 当前线程绑定的截止时间，未绑定时返回 null
+     */
+    public static QueryDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 在绑定本截止时间的情况下执行，结束后恢复线程原有的绑定
+     */
+    public <T> T call(Supplier<T> action) {
+        QueryDeadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 已取消时抛出 {@link CancellationException}
+     */
+    public void checkActive() {
+        Reason reason = cancelReason;
+        if (reason != null) {
+            throw new CancellationException("查询已取消（" + reason + "）: " + endpoint);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelReason != null;
+    }
+
+    public boolean isTimedOut() {
+        return cancelReason == Reason.TIMEOUT;
+    }
+
+    public Reason getCancelReason() {
+        return cancelReason;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * 剩余时间（纳秒），未设置截止时间时为 Long.MAX_VALUE
+     */
+    public long remainingNanos() {
+        return expiresAtNanos == Long.MAX_VALUE ? Long.MAX_VALUE : expiresAtNanos - System.nanoTime();
+    }
+
+    /**
+     * 登记执行中的语句；登记时已取消则立即取消该语句
+     */
+    public void register(Statement statement) {
+        statements.add(statement);
+        if (cancelReason != null) {
+            cancelQuietly(statement);
+        }
+    }
+
+    public void unregister(Statement statement) {
+        statements.remove(statement);
+    }
+
+    /**
+     * 取消本截止时间及其子截止时间下所有执行中的语句
+     * @return 被取消的语句数，已取消过时返回 -1
+     */
+    synchronized int cancel(Reason reason) {
+        if (cancelReason != null) {
+            return -1;
+        }
+        cancelReason = reason;
+        int cancelled = 0;
+        for (Statement statement : statements) {
+            if (cancelQuietly(statement)) {
+                cancelled++;
+            }
+        }
+        for (QueryDeadline child : children) {
+            cancelled += Math.max(child.cancel(reason), 0);
+        }
+        return cancelled;
+    }
+
+    QueryDeadline child() {
+        QueryDeadline child = new QueryDeadline(endpoint, expiresAtNanos);
+        children.add(child);
+        if (cancelReason != null) {
+            child.cancel(cancelReason);
+        }
+        return child;
+    }
+
+    long getExpiresAtNanos() {
+        return expiresAtNanos;
+    }
+
+    void setExpiresAtNanos(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    ScheduledFuture<?> getTimer() {
+        return timer;
+    }
+
+    void setTimer(ScheduledFuture<?> timer) {
+        this.timer = timer;
+    }
+
+    private static boolean cancelQuietly(Statement statement) {
+        try {
+            statement.cancel();
+            return true;
+        } catch (SQLException e) {
+            // 语句已关闭或驱动不支持取消
+            return false;
+        }
+    }
+}
@@ -7,37 +7,34 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * 通用查询表达式解析器
- * 支持单值、区间、空值等多种表达式格式
+ * 支持单值、区间、空值、集合等多种表达式格式
  */
 @Component
 public class QueryExpressionParser {
     
-    // 单值表达式：字段名 操作符 值 或 操作符 值 (默认field)
-    private static final String SINGLE_VALUE_PATTERN = "^(?:([\\w\\u4e00-\\u9fa5]+)\\s*)?(>=|<=|!=|>|<|=)\\s*([\\w\\u4e00-\\u9fa5.-]+)$";
+    // 支持的表达式形式（与原正则版本等价）：
+    //   单值表达式：[字段名] 操作符 值            操作符: >= <= != > < =
+    //   区间表达式：值1 操作符1 字段名 操作符2 值2  操作符: < <=
+    //   空值表达式：[字段名] NA
+    //   集合表达式：[字段名] IN、[字段名] NOT IN（值列表来自查询参数）
+    // 字段名由 [A-Za-z0-9_] 与中文字符组成，值额外允许 '.' 和 '-'
     
-    // 区间表达式：值1 操作符1 字段名 操作符2 值2 (四种组合)
-    private static final String RANGE_CLOSED_PATTERN = "^([\\w\\u4e00-\\u9fa5.-]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5.-]+)$";
-    private static final String RANGE_LEFT_OPEN_PATTERN = "^([\\w\\u4e00-\\u9fa5.-]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5.-]+)$";
-    private static final String RANGE_RIGHT_OPEN_PATTERN = "^([\\w\\u4e00-\\u9fa5.-]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5.-]+)$";
-    private static final String RANGE_OPEN_PATTERN = "^([\\w\\u4e00-\\u9fa5.-]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5.-]+)$";
+    private static final String DEFAULT_FIELD = "field";
     
-    // 空值表达式：字段名 NA 或 NA (默认field)
-    private static final String NA_PATTERN = "^(?:([\\w\\u4e00-\\u9fa5]+)\\s+)?(NA)$";
+    private static final String FORMAT_ERROR = "表达式格式不正确";
     
-    private final Pattern singleValuePattern = Pattern.compile(SINGLE_VALUE_PATTERN);
-    private final Pattern rangeClosedPattern = Pattern.compile(RANGE_CLOSED_PATTERN);
-    private final Pattern rangeLeftOpenPattern = Pattern.compile(RANGE_LEFT_OPEN_PATTERN);
-    private final Pattern rangeRightOpenPattern = Pattern.compile(RANGE_RIGHT_OPEN_PATTERN);
-    private final Pattern rangeOpenPattern = Pattern.compile(RANGE_OPEN_PATTERN);
-    private final Pattern naPattern = Pattern.compile(NA_PATTERN);
+    // 单个表达式最多 5 个记号（区间表达式），多读一个用于定位多余内容
+    private static final int MAX_TOKENS = 6;
+    
+    private static final int TOKEN_WORD = 1;
+    private static final int TOKEN_OP = 2;
     
     /**
      * 解析查询表达式
+     * 单遍扫描切分记号，再按记号结构判定表达式类型，不再依次尝试多个正则
      */
     public FilterExpression parseExpression(String expression) {
         FilterExpression result = new FilterExpression();
@@ -48,82 +45,235 @@ public class QueryExpressionParser {
             return result;
         }
         
-        expression = expression.trim();
+        // 记号表：类型、起止位置；单词记号额外记录是否为合法字段名，操作符记号记录操作符
+        int[] kinds = new int[MAX_TOKENS];
+        int[] starts = new int[MAX_TOKENS];
+        int[] ends = new int[MAX_TOKENS];
+        boolean[] identifiers = new boolean[MAX_TOKENS];
+        FilterOperator[] operators = new FilterOperator[MAX_TOKENS];
         
-        // 空值表达式
-        Matcher naMatcher = naPattern.matcher(expression);
-        if (naMatcher.matches()) {
-            result.setFieldName(naMatcher.group(1) != null ? naMatcher.group(1) : "field");
-            result.setOperator(FilterOperator.NA);
-            result.setValid(true);
-            return result;
+        // 等价于 trim()，但不复制字符串
+        int pos = 0;
+        int length = expression.length();
+        while (pos < length && expression.charAt(pos) <= ' ') {
+            pos++;
+        }
+        while (length > pos && expression.charAt(length - 1) <= ' ') {
+            length--;
         }
         
-        // 闭区间表达式：值1 <= 字段名 <= 值2
-        Matcher rangeClosedMatcher = rangeClosedPattern.matcher(expression);
-        if (rangeClosedMatcher.matches()) {
-            result.setFieldName(rangeClosedMatcher.group(2));
-            result.setOperator(FilterOperator.RANGE_CLOSED);
-            result.setValue1(rangeClosedMatcher.group(1));
-            result.setValue2(rangeClosedMatcher.group(3));
-            result.setValid(true);
-            return result;
+        int count = 0;
+        while (pos < length) {
+            char c = expression.charAt(pos);
+            if (isWhitespace(c)) {
+                pos++;
+                continue;
+            }
+            if (count == MAX_TOKENS) {
+                return fail(result, starts[MAX_TOKENS - 1]);
+            }
+            
+            if (isValueChar(c)) {
+                int start = pos;
+                boolean identifier = true;
+                while (pos < length && isValueChar(expression.charAt(pos))) {
+                    identifier &= isIdentifierChar(expression.charAt(pos));
+                    pos++;
+                }
+                kinds[count] = TOKEN_WORD;
+                starts[count] = start;
+                ends[count] = pos;
+                identifiers[count] = identifier;
+                count++;
+                continue;
+            }
+            
+            FilterOperator operator;
+            int start = pos;
+            boolean followedByEq = pos + 1 < length && expression.charAt(pos + 1) == '=';
+            switch (c) {
+                case '>':
+                    operator = followedByEq ? FilterOperator.GTE : FilterOperator.GT;
+                    break;
+                case '<':
+                    operator = followedByEq ? FilterOperator.LTE : FilterOperator.LT;
+                    break;
+                case '!':
+                    if (!followedByEq) {
+                        return fail(result, pos);
+                    }
+                    operator = FilterOperator.NE;
+                    break;
+                case '=':
+                    operator = FilterOperator.EQ;
+                    followedByEq = false;
+                    break;
+                default:
+                    return fail(result, pos);
+            }
+            pos += followedByEq ? 2 : 1;
+            kinds[count] = TOKEN_OP;
+            starts[count] = start;
+            ends[count] = pos;
+            operators[count] = operator;
+            count++;
         }
         
-        // 左开右闭区间表达式：值1 < 字段名 <= 值2
-        Matcher rangeLeftOpenMatcher = rangeLeftOpenPattern.matcher(expression);
-        if (rangeLeftOpenMatcher.matches()) {
-            result.setFieldName(rangeLeftOpenMatcher.group(2));
-            result.setOperator(FilterOperator.RANGE_LEFT_OPEN);
-            result.setValue1(rangeLeftOpenMatcher.group(1));
-            result.setValue2(rangeLeftOpenMatcher.group(3));
+        // 操作符开头：单值表达式（默认字段）
+        if (kinds[0] == TOKEN_OP) {
+            if (count < 2 || kinds[1] != TOKEN_WORD) {
+                return fail(result, count < 2 ? length : starts[1]);
+            }
+            if (count > 2) {
+                return fail(result, starts[2]);
+            }
+            result.setFieldName(DEFAULT_FIELD);
+            result.setOperator(operators[0]);
+            result.setValue1(expression.substring(starts[1], ends[1]));
             result.setValid(true);
             return result;
         }
         
-        // 左闭右开区间表达式：值1 <= 字段名 < 值2
-        Matcher rangeRightOpenMatcher = rangeRightOpenPattern.matcher(expression);
-        if (rangeRightOpenMatcher.matches()) {
-            result.setFieldName(rangeRightOpenMatcher.group(2));
-            result.setOperator(FilterOperator.RANGE_RIGHT_OPEN);
-            result.setValue1(rangeRightOpenMatcher.group(1));
-            result.setValue2(rangeRightOpenMatcher.group(3));
+        // 空值/集合表达式（默认字段）：NA、IN
+        if (count == 1) {
+            FilterOperator keyword = keywordOperator(expression, starts[0], ends[0]);
+            if (keyword != null) {
+                result.setFieldName(DEFAULT_FIELD);
+                result.setOperator(keyword);
+                result.setValid(true);
+                return result;
+            }
+            return fail(result, length);
+        }
+        
+        // 空值/集合表达式：[字段名] NA、[字段名] IN、[字段名] NOT IN
+        if (kinds[1] == TOKEN_WORD) {
+            if (isKeyword(expression, starts[0], ends[0], "NOT") && isKeyword(expression, starts[1], ends[1], "IN")) {
+                if (count > 2) {
+                    return fail(result, starts[2]);
+                }
+                result.setFieldName(DEFAULT_FIELD);
+                result.setOperator(FilterOperator.NOT_IN);
+                result.setValid(true);
+                return result;
+            }
+            
+            FilterOperator keyword;
+            int last = 1;
+            if (isKeyword(expression, starts[1], ends[1], "NOT")) {
+                if (count < 3 || kinds[2] != TOKEN_WORD || !isKeyword(expression, starts[2], ends[2], "IN")) {
+                    return fail(result, count < 3 ? length : starts[2]);
+                }
+                keyword = FilterOperator.NOT_IN;
+                last = 2;
+            } else {
+                keyword = keywordOperator(expression, starts[1], ends[1]);
+                if (keyword == null) {
+                    return fail(result, starts[1]);
+                }
+            }
+            if (!identifiers[0]) {
+                return fail(result, starts[0]);
+            }
+            if (count > last + 1) {
+                return fail(result, starts[last + 1]);
+            }
+            result.setFieldName(expression.substring(starts[0], ends[0]));
+            result.setOperator(keyword);
             result.setValid(true);
             return result;
         }
         
-        // 开区间表达式：值1 < 字段名 < 值2
-        Matcher rangeOpenMatcher = rangeOpenPattern.matcher(expression);
-        if (rangeOpenMatcher.matches()) {
-            result.setFieldName(rangeOpenMatcher.group(2));
-            result.setOperator(FilterOperator.RANGE_OPEN);
-            result.setValue1(rangeOpenMatcher.group(1));
-            result.setValue2(rangeOpenMatcher.group(3));
+        if (count < 3 || kinds[2] != TOKEN_WORD) {
+            return fail(result, count < 3 ? length : starts[2]);
+        }
+        
+        // 单值表达式：字段名 操作符 值
+        if (count == 3) {
+            if (!identifiers[0]) {
+                return fail(result, starts[0]);
+            }
+            result.setFieldName(expression.substring(starts[0], ends[0]));
+            result.setOperator(operators[1]);
+            result.setValue1(expression.substring(starts[2], ends[2]));
             result.setValid(true);
             return result;
         }
         
-        // 单值表达式
-        Matcher singleMatcher = singleValuePattern.matcher(expression);
-        if (singleMatcher.matches()) {
-            try {
-                result.setFieldName(singleMatcher.group(1) != null ? singleMatcher.group(1) : "field");
-                result.setOperator(FilterOperator.fromString(singleMatcher.group(2)));
-                result.setValue1(singleMatcher.group(3));
-                result.setValid(true);
-                return result;
-            } catch (IllegalArgumentException e) {
-                result.setValid(false);
-                result.setErrorMessage("不支持的操作符: " + singleMatcher.group(2));
-                return result;
-            }
+        // 区间表达式：值1 操作符1 字段名 操作符2 值2
+        if (kinds[3] != TOKEN_OP) {
+            return fail(result, starts[3]);
+        }
+        if (!isRangeBound(operators[1])) {
+            return fail(result, starts[1]);
+        }
+        if (!identifiers[2]) {
+            return fail(result, starts[2]);
+        }
+        if (!isRangeBound(operators[3])) {
+            return fail(result, starts[3]);
+        }
+        if (count < 5 || kinds[4] != TOKEN_WORD) {
+            return fail(result, count < 5 ? length : starts[4]);
+        }
+        if (count > 5) {
+            return fail(result, starts[5]);
         }
         
+        boolean lowerInclusive = operators[1] == FilterOperator.LTE;
+        boolean upperInclusive = operators[3] == FilterOperator.LTE;
+        result.setFieldName(expression.substring(starts[2], ends[2]));
+        result.setOperator(lowerInclusive
+                ? (upperInclusive ? FilterOperator.RANGE_CLOSED : FilterOperator.RANGE_RIGHT_OPEN)
+                : (upperInclusive ? FilterOperator.RANGE_LEFT_OPEN : FilterOperator.RANGE_OPEN));
+        result.setValue1(expression.substring(starts[0], ends[0]));
+        result.setValue2(expression.substring(starts[4], ends[4]));
+        result.setValid(true);
+        return result;
+    }
+    
+    private FilterExpression fail(FilterExpression result, int position) {
         result.setValid(false);
-        result.setErrorMessage("表达式格式不正确");
+        result.setErrorMessage(FORMAT_ERROR);
+        result.setErrorPosition(position);
         return result;
     }
     
+    /**
+     * 单个关键字记号对应的操作符：NA 或 IN，其余返回 null
+     */
+    private FilterOperator keywordOperator(String expression, int start, int end) {
+        if (isKeyword(expression, start, end, "NA")) {
+            return FilterOperator.NA;
+        }
+        return isKeyword(expression, start, end, "IN") ? FilterOperator.IN : null;
+    }
+    
+    // 关键字区分大小写，与原正则一致
+    private boolean isKeyword(String expression, int start, int end, String keyword) {
+        return end - start == keyword.length() && expression.startsWith(keyword, start);
+    }
+    
+    private boolean isRangeBound(FilterOperator operator) {
+        return operator == FilterOperator.LT || operator == FilterOperator.LTE;
+    }
+    
+    // 与正则 \s 一致
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+    
+    // 与正则 [\w\u4e00-\u9fa5] 一致
+    private static boolean isIdentifierChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || (c >= '\u4e00' && c <= '\u9fa5');
+    }
+    
+    // 与正则 [\w\u4e00-\u9fa5.-] 一致
+    private static boolean isValueChar(char c) {
+        return isIdentifierChar(c) || c == '.' || c == '-';
+    }
+    
     /**
      * 验证表达式是否有效
      */
@@ -156,56 +306,32 @@ public class QueryExpressionParser {
         examples.add("1 < experience < 5 - 经验在1到5之间（开区间）");
         examples.add("phone NA - 手机号为空或null");
         examples.add("NA - 默认字段为空");
+        examples.add("department IN - 部门在查询值集合中");
+        examples.add("status NOT IN - 状态不在查询值集合中");
         return examples;
     }
     
-    /**
-     * 将表达式转换为SQL条件
-     */
-    public String convertToSqlCondition(FilterExpression expression, String parameterPrefix) {
-        String fieldName = expression.getFieldName();
-        FilterOperator operator = expression.getOperator();
-        String prefix = StringUtils.isBlank(parameterPrefix) ? "" : parameterPrefix + ".";
-        
-        switch (operator) {
-            case EQ:
-                return fieldName + " = #{" + prefix + fieldName + "}";
-            case NE:
-                return fieldName + " != #{" + prefix + fieldName + "}";
-            case GT:
-                return fieldName + " > #{" + prefix + fieldName + "}";
-            case GTE:
-                return fieldName + " >= #{" + prefix + fieldName + "}";
-            case LT:
-                return fieldName + " < #{" + prefix + fieldName + "}";
-            case LTE:
-                return fieldName + " <= #{" + prefix + fieldName + "}";
-            case RANGE_CLOSED:
-                return fieldName + " >= #{" + prefix + fieldName + "Min} AND " + fieldName + " <= #{" + prefix + fieldName + "Max}";
-            case RANGE_LEFT_OPEN:
-                return fieldName + " > #{" + prefix + fieldName + "Min} AND " + fieldName + " <= #{" + prefix + fieldName + "Max}";
-            case RANGE_RIGHT_OPEN:
-                return fieldName + " >= #{" + prefix + fieldName + "Min} AND " + fieldName + " < #{" + prefix + fieldName + "Max}";
-            case RANGE_OPEN:
-                return fieldName + " > #{" + prefix + fieldName + "Min} AND " + fieldName + " < #{" + prefix + fieldName + "Max}";
-            case NA:
-                return "(" + fieldName + " IS NULL OR " + fieldName + " = '')";
-            default:
-                return "1=1";
-        }
-    }
-    
     /**
      * 批量验证表达式
      */
     public List<String> validateExpressions(List<String> expressions) {
         List<String> errors = new ArrayList<>();
         for (int i = 0; i < expressions.size(); i++) {
-            String expression = expressions.get(i);
-            if (!validateExpression(expression)) {
-                errors.add("第" + (i + 1) + "个表达式错误: " + getExpressionErrorMessage(expression));
+            FilterExpression parsed = parseExpression(expressions.get(i));
+            if (!parsed.isValid()) {
+                errors.add("第" + (i + 1) + "个表达式错误: " + describeError(parsed));
             }
         }
         return errors;
     }
+    
+    /**
+     * 带位置信息的错误描述
+     */
+    public String describeError(FilterExpression parsed) {
+        if (parsed.getErrorPosition() < 0) {
+            return parsed.getErrorMessage();
+        }
+        return parsed.getErrorMessage() + "（位置 " + (parsed.getErrorPosition() + 1) + "）";
+    }
 }
\ No newline at end of file
@@ -0,0 +1,360 @@
+package com.mycompany.dynamicquery.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mycompany.dynamicquery.dto.PageResult;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 动态查询结果缓存
+ * 以规范化后的查询条件（实际字段名、排序去重后的条件）为键，分页结果再加上游标、页大小与投影，按结果行数加权淘汰并设置过期时间；
+ * 记录写入后只失效写入前后状态可能满足其条件的条目
+ */
+@Component
+public class QueryResultCache {
+
+    public static final String PAGE = "page";
+
+    public static final String COUNT = "count";
+
+    private final boolean enabled;
+
+    private final long maxWeight;
+
+    private final Cache<String, CachedResult> cache;
+
+    /**
+     * 写入代数：加载期间发生写入时不缓存加载结果，避免写入前读到的旧结果在失效之后才放入缓存
+     */
+    private final AtomicLong writeGeneration = new AtomicLong();
+
+    public QueryResultCache(@Value("${dynamic-query.result-cache.enabled:true}") boolean enabled,
+                            @Value("${dynamic-query.result-cache.max-weight:100000}") long maxWeight,
+                            @Value("${dynamic-query.result-cache.ttl-ms:30000}") long ttlMillis) {
+        this.enabled = enabled;
+        this.maxWeight = maxWeight;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, CachedResult value) -> value.weight)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取缓存结果，未命中时加载并缓存
+     * @param kind 结果类型（PAGE / COUNT）
+     * @param conditions 查询条件
+     * @param loader 结果加载器
+     * @return 查询结果
+     */
+    public <T> T get(String kind, List<QueryCondition> conditions, Supplier<T> loader) {
+        return get(kind, conditions, "", loader);
+    }
+
+    /**
+     * 获取缓存结果，未命中时加载并缓存
+     * @param kind 结果类型（PAGE / COUNT）
+     * @param conditions 查询条件，写入时按条件判断是否失效
+     * @param variant 同一条件下区分结果的其余参数（如游标、页大小、投影）
+     * @param loader 结果加载器
+     * @return 查询结果；列表结果与分页结果中的记录列表为只读列表
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String kind, List<QueryCondition> conditions, String variant, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        SortedMap<DataRecordField, List<QueryCondition>> grouped = groupByField(conditions);
+        String key = kind + '|' + variant + '|' + canonicalKey(grouped);
+        CachedResult cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached.value;
+        }
+
+        long generation = writeGeneration.get();
+        T value = loader.get();
+        if (value instanceof List) {
+            value = (T) Collections.unmodifiableList((List<?>) value);
+        } else if (value instanceof PageResult) {
+            PageResult<Object> page = (PageResult<Object>) value;
+            page.setRecords(Collections.unmodifiableList(page.getRecords()));
+        }
+        if (writeGeneration.get() == generation) {
+            cache.put(key, new CachedResult(grouped, value));
+        }
+        return value;
+    }
+
+    /**
+     * 记录变更后失效受影响的缓存条目
+     * @param before 写入前的记录（新增时为 null）
+     * @param after 写入后的记录（删除时为 null）
+     */
+    public void onRecordChanged(DataRecord before, DataRecord after) {
+        writeGeneration.incrementAndGet();
+        if (!enabled) {
+            return;
+        }
+        cache.asMap().values().removeIf(entry -> mayMatch(entry.conditions, before) || mayMatch(entry.conditions, after));
+    }
+
+    /**
+     * 失效全部条目（无法确定写入前后状态时使用，如批量写入）
+     */
+    public void invalidateAll() {
+        writeGeneration.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        CacheStats cacheStats = cache.stats();
+        stats.put("enabled", enabled);
+        stats.put("size", cache.estimatedSize());
+        stats.put("maxWeight", maxWeight);
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hitRate", cacheStats.hitRate());
+        stats.put("evictions", cacheStats.evictionCount());
+        return stats;
+    }
+
+    /**
+     * 条件的规范化键：语义相同（同字段条件顺序、重复不同）的条件得到相同的键
+     */
+    public String canonicalKey(List<QueryCondition> conditions) {
+        return canonicalKey(groupByField(conditions));
+    }
+
+    /**
+     * 按字段分组，未在 data_record 中定义的字段与SQL计划一致地忽略
+     */
+    private SortedMap<DataRecordField, List<QueryCondition>> groupByField(List<QueryCondition> conditions) {
+        SortedMap<DataRecordField, List<QueryCondition>> grouped = new TreeMap<>();
+        for (QueryCondition condition : conditions) {
+            DataRecordField field = DataRecordField.fromName(condition.getFieldName());
+            if (field != null) {
+                grouped.computeIfAbsent(field, key -> new ArrayList<>()).add(condition);
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * 规范化键：字段按定义顺序，同字段条件排序去重（OR 连接，顺序与重复不影响结果）
+     */
+    private String canonicalKey(SortedMap<DataRecordField, List<QueryCondition>> grouped) {
+        StringBuilder key = new StringBuilder();
+        for (Map.Entry<DataRecordField, List<QueryCondition>> entry : grouped.entrySet()) {
+            SortedSet<String> terms = new TreeSet<>();
+            for (QueryCondition condition : entry.getValue()) {
+                StringBuilder term = new StringBuilder(condition.getOperator().name());
+                appendValue(term, condition.getValue1());
+                appendValue(term, condition.getValue2());
+                if (condition.getValues() != null) {
+                    // 值列表同样与顺序、重复无关
+                    SortedSet<String> members = new TreeSet<>();
+                    for (Object value : condition.getValues()) {
+                        members.add(String.valueOf(value));
+                    }
+                    for (String member : members) {
+                        appendValue(term, member);
+                    }
+                }
+                terms.add(term.toString());
+            }
+            key.append(entry.getKey().name()).append(terms).append(';');
+        }
+        return key.toString();
+    }
+
+    private void appendValue(StringBuilder term, Object value) {
+        if (value == null) {
+            term.append(":-");
+        } else {
+            // 长度前缀，避免值中的分隔符产生歧义
+            String text = value.toString();
+            term.append(':').append(text.length()).append('#').append(text);
+        }
+    }
+
+    /**
+     * 判断记录是否可能满足条件（字段内 OR，字段间 AND）
+     * 无法在内存中确定与 MySQL 一致的结果时按可能满足处理，只会多失效不会漏失效
+     */
+    private static boolean mayMatch(SortedMap<DataRecordField, List<QueryCondition>> conditions, DataRecord record) {
+        if (record == null) {
+            return false;
+        }
+        for (Map.Entry<DataRecordField, List<QueryCondition>> entry : conditions.entrySet()) {
+            DataRecordField field = entry.getKey();
+            Object value = field.readValue(record);
+            boolean fieldMatched = false;
+            for (QueryCondition condition : entry.getValue()) {
+                if (mayMatch(field, value, condition)) {
+                    fieldMatched = true;
+                    break;
+                }
+            }
+            if (!fieldMatched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean mayMatch(DataRecordField field, Object value, QueryCondition condition) {
+        FilterOperator operator = condition.getOperator();
+        if (!field.isStringType() && !field.isNumericType()) {
+            // 日期字段依赖 MySQL 的字符串到时间转换，不在内存中判断
+            return true;
+        }
+        if (operator == FilterOperator.NA) {
+            return value == null || (field.isStringType() && StringUtils.isBlank((String) value));
+        }
+        if (value == null) {
+            // 与 NULL 比较的结果不为真
+            return false;
+        }
+        if (operator.isSetOperator()) {
+            // IN 为任一值等于，NOT IN 为所有值都不等于
+            boolean in = operator == FilterOperator.IN;
+            for (Object member : condition.getValues()) {
+                if (mayMatch(field, value, in ? FilterOperator.EQ : FilterOperator.NE, member, null) == in) {
+                    return in;
+                }
+            }
+            return !in;
+        }
+        return mayMatch(field, value, operator, condition.getValue1(), condition.getValue2());
+    }
+
+    private static boolean mayMatch(DataRecordField field, Object value, FilterOperator operator, Object expected1, Object expected2) {
+        if (field.isNumericType()) {
+            return mayMatchNumber(field, (Number) value, operator, expected1, expected2);
+        }
+        return mayMatchString((String) value, operator, expected1);
+    }
+
+    /**
+     * 数值比较与条件优化器一致：整数字段按整数精确比较（超过 2^53 的主键转为 double 会相互混淆），浮点字段按 double 比较
+     */
+    private static boolean mayMatchNumber(DataRecordField field, Number value, FilterOperator operator,
+                                          Object expected1, Object expected2) {
+        BigDecimal value1 = QueryConditionOptimizer.parseDecimal(field, expected1);
+        BigDecimal value2 = operator.isRangeOperator() ? QueryConditionOptimizer.parseDecimal(field, expected2) : null;
+        BigDecimal actual = QueryConditionOptimizer.parseDecimal(field, value);
+        if (value1 == null || (operator.isRangeOperator() && value2 == null) || actual == null) {
+            return true;
+        }
+        if (!field.isRounded()) {
+            return compare(operator, actual, value1, value2);
+        }
+        // ROUND(x, 2) 的结果必为两位小数的下界或上界之一
+        double scaled = value.doubleValue() * 100;
+        return compare(operator, new BigDecimal(Math.floor(scaled) / 100), value1, value2)
+                || compare(operator, new BigDecimal(Math.ceil(scaled) / 100), value1, value2);
+    }
+
+    private static boolean compare(FilterOperator operator, BigDecimal value, BigDecimal value1, BigDecimal value2) {
+        int compare1 = value.compareTo(value1);
+        int compare2 = value2 == null ? 0 : value.compareTo(value2);
+        switch (operator) {
+            case EQ:
+                return compare1 == 0;
+            case NE:
+                return compare1 != 0;
+            case GT:
+                return compare1 > 0;
+            case GTE:
+                return compare1 >= 0;
+            case LT:
+                return compare1 < 0;
+            case LTE:
+                return compare1 <= 0;
+            case RANGE_CLOSED:
+                return compare1 >= 0 && compare2 <= 0;
+            case RANGE_LEFT_OPEN:
+                return compare1 > 0 && compare2 <= 0;
+            case RANGE_RIGHT_OPEN:
+                return compare1 >= 0 && compare2 < 0;
+            case RANGE_OPEN:
+                return compare1 > 0 && compare2 < 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 字符串只对可打印 ASCII 的等值/不等判断给出确定结果（默认排序规则下大小写不敏感），其余按可能满足处理
+     */
+    private static boolean mayMatchString(String value, FilterOperator operator, Object expected) {
+        if (operator != FilterOperator.EQ && operator != FilterOperator.NE) {
+            return true;
+        }
+        if (!(expected instanceof String) || !isComparableAscii(value) || !isComparableAscii((String) expected)) {
+            return true;
+        }
+        boolean equal = value.equalsIgnoreCase((String) expected);
+        return operator == FilterOperator.EQ ? equal : !equal;
+    }
+
+    private static boolean isComparableAscii(String text) {
+        if (text.isEmpty() || text.charAt(text.length() - 1) == ' ') {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x20 || c > 0x7e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 缓存条目：结果及其对应的分组条件，写入时据此判断是否失效
+     */
+    private static final class CachedResult {
+
+        private final SortedMap<DataRecordField, List<QueryCondition>> conditions;
+
+        private final Object value;
+
+        private final int weight;
+
+        private CachedResult(SortedMap<DataRecordField, List<QueryCondition>> conditions, Object value) {
+            this.conditions = conditions;
+            this.value = value;
+            if (value instanceof Collection) {
+                this.weight = ((Collection<?>) value).size() + 1;
+            } else if (value instanceof PageResult) {
+                this.weight = ((PageResult<?>) value).getRecords().size() + 1;
+            } else {
+                this.weight = 1;
+            }
+        }
+    }
+}
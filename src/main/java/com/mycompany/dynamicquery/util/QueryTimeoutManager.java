@@ -0,0 +1,275 @@
+package com.mycompany.dynamicquery.util;
+
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询超时与取消管理
+ * 按接口设置截止时间，条件涉及的字段命中字段组规则时按规则收紧；到期后取消执行中的语句。
+ * 客户端断开时由调用方调用 {@link #cancel} 取消。
+ * 带截止时间的接口在专用线程池中异步执行（平台线程模式下线程数与排队数有上限，虚拟线程模式下每个请求一个虚拟线程）
+ */
+@Slf4j
+@Component
+public class QueryTimeoutManager implements DisposableBean {
+
+    private final boolean enabled;
+
+    private final long defaultTimeoutMs;
+
+    private final Map<String, Long> endpointTimeouts;
+
+    private final List<FieldSetRule> fieldSetRules;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final AsyncTaskExecutor executor;
+
+    private final Map<QueryDeadline.Reason, Counter> cancellations = new EnumMap<>(QueryDeadline.Reason.class);
+
+    private final Counter cancelledStatements;
+
+    public QueryTimeoutManager(MeterRegistry registry, Environment environment,
+                               @Value("${dynamic-query.timeout.enabled:true}") boolean enabled,
+                               @Value("${dynamic-query.timeout.default-ms:30000}") long defaultTimeoutMs,
+                               @Value("${dynamic-query.timeout.endpoints:}") List<String> endpoints,
+                               @Value("${dynamic-query.timeout.field-sets:}") List<String> fieldSets,
+                               @Value("${dynamic-query.timeout.executor.pool-size:20}") int poolSize,
+                               @Value("${dynamic-query.timeout.executor.queue-capacity:200}") int queueCapacity) {
+        this.enabled = enabled;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.endpointTimeouts = new HashMap<>();
+        for (String entry : endpoints) {
+            String[] pair = parseEntry(entry);
+            if (pair != null) {
+                endpointTimeouts.put(pair[0], Long.parseLong(pair[1]));
+            }
+        }
+        this.fieldSetRules = new ArrayList<>();
+        for (String entry : fieldSets) {
+            String[] pair = parseEntry(entry);
+            if (pair != null) {
+                addFieldSetRule(pair[0], Long.parseLong(pair[1]));
+            }
+        }
+        // 规则越具体（字段越多）越优先，同样具体时取更短的超时
+        fieldSetRules.sort(Comparator.comparingInt((FieldSetRule rule) -> rule.fields.size()).reversed()
+                .thenComparingLong(rule -> rule.timeoutMs));
+
+        this.scheduler = new ScheduledThreadPoolExecutor(2, new CustomizableThreadFactory("query-deadline-"));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.executor = Threading.VIRTUAL.isActive(environment)
+                ? new VirtualThreadTaskExecutor("query-async-")
+                : boundedExecutor(poolSize, queueCapacity);
+        for (QueryDeadline.Reason reason : QueryDeadline.Reason.values()) {
+            cancellations.put(reason, Counter.builder("dynamic_query.cancellations")
+                    .description("因超时或客户端断开而取消的查询数")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        this.cancelledStatements = Counter.builder("dynamic_query.cancelled_statements")
+                .description("被取消的执行中JDBC语句数")
+                .register(registry);
+    }
+
+    /**
+     * 为一次接口调用创建截止时间（未绑定到线程，由调用方通过 {@link QueryDeadline#call} 绑定）
+     */
+    public QueryDeadline start(String endpoint) {
+        long timeoutMs = enabled ? endpointTimeouts.getOrDefault(endpoint, defaultTimeoutMs) : 0;
+        QueryDeadline deadline = new QueryDeadline(endpoint, expiresAt(timeoutMs));
+        schedule(deadline);
+        return deadline;
+    }
+
+    /**
+     * 批量查询中单个查询的截止时间：继承批次的截止时间，批次取消时一并取消，可按自身条件单独收紧
+     * @param parent 批次的截止时间，为 null 时返回 null
+     */
+    public QueryDeadline child(QueryDeadline parent) {
+        if (parent == null) {
+            return null;
+        }
+        QueryDeadline child = parent.child();
+        schedule(child);
+        return child;
+    }
+
+    /**
+     * 一组并发语句共用的截止时间：有调用方截止时间时作为其子截止时间（随之超时或取消），否则不限时；
+     * 可单独取消而不影响调用方，用完后调用 {@link #finish}
+     * @param parent 调用方的截止时间，可为 null
+     */
+    public QueryDeadline group(QueryDeadline parent, String endpoint) {
+        return parent != null ? child(parent) : new QueryDeadline(endpoint, Long.MAX_VALUE);
+    }
+
+    /**
+     * 按查询条件涉及的字段收紧当前线程的截止时间
+     */
+    public void narrow(List<QueryCondition> conditions) {
+        QueryDeadline deadline = QueryDeadline.current();
+        if (deadline == null || !enabled || fieldSetRules.isEmpty() || conditions.isEmpty()) {
+            return;
+        }
+        Set<DataRecordField> fields = EnumSet.noneOf(DataRecordField.class);
+        for (QueryCondition condition : conditions) {
+            DataRecordField field = DataRecordField.fromName(condition.getFieldName());
+            if (field != null) {
+                fields.add(field);
+            }
+        }
+        for (FieldSetRule rule : fieldSetRules) {
+            if (fields.containsAll(rule.fields)) {
+                long expiresAt = expiresAt(rule.timeoutMs);
+                if (expiresAt - deadline.getExpiresAtNanos() < 0) {
+                    deadline.setExpiresAtNanos(expiresAt);
+                    schedule(deadline);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 取消截止时间下所有执行中的语句（重复调用无效）
+     */
+    public void cancel(QueryDeadline deadline, QueryDeadline.Reason reason) {
+        int statements = deadline.cancel(reason);
+        if (statements >= 0) {
+            cancellations.get(reason).increment();
+            cancelledStatements.increment(statements);
+            log.info("Query on '{}' cancelled ({}), {} running statement(s) cancelled",
+                    deadline.getEndpoint(), reason, statements);
+        }
+    }
+
+    /**
+     * 请求结束，撤销到期任务
+     */
+    public void finish(QueryDeadline deadline) {
+        ScheduledFuture<?> timer = deadline.getTimer();
+        if (timer != null) {
+            timer.cancel(false);
+        }
+    }
+
+    /**
+     * 异步请求的容器超时：截止时间之后再留出取消与返回响应的余量，未设置截止时间时沿用默认值
+     */
+    public Long asyncTimeoutMillis(QueryDeadline deadline) {
+        long remaining = deadline.remainingNanos();
+        return remaining == Long.MAX_VALUE ? null : TimeUnit.NANOSECONDS.toMillis(remaining) + 1000;
+    }
+
+    /**
+     * 执行带截止时间的接口调用的线程池，队列已满时提交抛出 {@link org.springframework.core.task.TaskRejectedException}
+     */
+    public AsyncTaskExecutor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("defaultTimeoutMs", defaultTimeoutMs);
+        stats.put("endpointTimeouts", endpointTimeouts);
+        stats.put("fieldSetRules", fieldSetRules.size());
+        stats.put("timedOut", (long) cancellations.get(QueryDeadline.Reason.TIMEOUT).count());
+        stats.put("clientDisconnected", (long) cancellations.get(QueryDeadline.Reason.CLIENT_DISCONNECTED).count());
+        stats.put("siblingFailed", (long) cancellations.get(QueryDeadline.Reason.SIBLING_FAILED).count());
+        stats.put("cancelledStatements", (long) cancelledStatements.count());
+        return stats;
+    }
+
+    private void schedule(QueryDeadline deadline) {
+        finish(deadline);
+        long remaining = deadline.remainingNanos();
+        if (remaining != Long.MAX_VALUE) {
+            deadline.setTimer(scheduler.schedule(() -> cancel(deadline, QueryDeadline.Reason.TIMEOUT),
+                    Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private static ThreadPoolTaskExecutor boundedExecutor(int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(poolSize);
+        pool.setMaxPoolSize(poolSize);
+        pool.setQueueCapacity(queueCapacity);
+        pool.setThreadNamePrefix("query-async-");
+        pool.initialize();
+        return pool;
+    }
+
+    private static long expiresAt(long timeoutMs) {
+        return timeoutMs > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs) : Long.MAX_VALUE;
+    }
+
+    /**
+     * 解析 "键=毫秒" 形式的配置项
+     */
+    private static String[] parseEntry(String entry) {
+        if (StringUtils.isBlank(entry)) {
+            return null;
+        }
+        String[] pair = entry.split("=", 2);
+        if (pair.length != 2 || StringUtils.isAnyBlank(pair[0], pair[1])) {
+            throw new IllegalArgumentException("超时配置格式应为 键=毫秒: " + entry);
+        }
+        return new String[]{pair[0].trim(), pair[1].trim()};
+    }
+
+    private void addFieldSetRule(String key, long timeoutMs) {
+        Set<DataRecordField> fields = EnumSet.noneOf(DataRecordField.class);
+        for (String name : key.split("\\+")) {
+            DataRecordField field = DataRecordField.fromName(name.trim());
+            if (field == null) {
+                log.warn("Timeout rule '{}' ignored: unknown field '{}'", key, name);
+                return;
+            }
+            fields.add(field);
+        }
+        fieldSetRules.add(new FieldSetRule(fields, timeoutMs));
+    }
+
+    /**
+     * 字段组超时规则：查询条件包含组内全部字段时生效
+     */
+    private static final class FieldSetRule {
+
+        private final Set<DataRecordField> fields;
+
+        private final long timeoutMs;
+
+        private FieldSetRule(Set<DataRecordField> fields, long timeoutMs) {
+            this.fields = fields;
+            this.timeoutMs = timeoutMs;
+        }
+    }
+}
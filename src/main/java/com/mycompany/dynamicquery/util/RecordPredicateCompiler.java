@@ -0,0 +1,566 @@
+package com.mycompany.dynamicquery.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 把查询条件编译为内存中的记录谓词，用于对已加载的 DataRecord 列表（缓存结果、变更流、导入数据）再次过滤，
+ * 语义与生成的SQL一致：字段内 OR、字段间 AND，未在 data_record 中定义的字段被忽略；
+ * 空值只满足 NA（字符串字段空串也满足），其余比较对空值都不成立（含 != 与 NOT IN）。
+ * <p>
+ * 按条件形状（字段、操作符）缓存每个字段的比较模板，编译时只绑定值；
+ * 整数与时间字段按 long、小数字段按 double（先按 ROUND(x, 2) 取整）比较，不经过装箱的 Comparable；
+ * 字符串按 utf8mb4_unicode_ci（PAD SPACE、不区分大小写）比较：只含 ASCII 字母、数字和空格的字符串在内存中逐字符比较，
+ * 其余字符串（中文、标点、全角字符等）不在内存中近似，交由 {@link CollationComparator} 在数据库中比较。
+ * 编译结果不可变，可在多个线程间共享
+ */
+@Component
+public class RecordPredicateCompiler {
+
+    private static final Predicate<DataRecord> ALWAYS = record -> true;
+
+    private final int maxSize;
+
+    private final CollationComparator collationComparator;
+
+    private final Cache<String, FieldTemplate[]> shapes;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public RecordPredicateCompiler(@Value("${dynamic-query.predicate-cache.max-size:1024}") int maxSize,
+                                   CollationComparator collationComparator) {
+        this.maxSize = maxSize;
+        this.collationComparator = collationComparator;
+        this.shapes = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * 编译查询条件
+     * @param conditions 查询条件，值按字段类型解析（已解析的值原样使用）
+     * @return 线程安全的记录谓词；没有条件时恒为 true
+     * @throws IllegalArgumentException 值无法按字段类型解析
+     */
+    public Predicate<DataRecord> compile(List<QueryCondition> conditions) {
+        SortedMap<DataRecordField, List<QueryCondition>> grouped = new TreeMap<>();
+        for (QueryCondition condition : conditions) {
+            DataRecordField field = DataRecordField.fromName(condition.getFieldName());
+            if (field != null) {
+                grouped.computeIfAbsent(field, key -> new ArrayList<>()).add(condition);
+            }
+        }
+        if (grouped.isEmpty()) {
+            return ALWAYS;
+        }
+
+        String shapeKey = shapeKey(grouped);
+        FieldTemplate[] templates = shapes.getIfPresent(shapeKey);
+        if (templates != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            templates = shapes.get(shapeKey, key -> templates(grouped));
+        }
+
+        FieldMatcher[] matchers = new FieldMatcher[templates.length];
+        int i = 0;
+        for (List<QueryCondition> fieldConditions : grouped.values()) {
+            matchers[i] = templates[i].bind(fieldConditions);
+            i++;
+        }
+        if (matchers.length == 1) {
+            FieldMatcher only = matchers[0];
+            return only::matches;
+        }
+        return record -> {
+            for (FieldMatcher matcher : matchers) {
+                if (!matcher.matches(record)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * 按条件过滤记录列表，保持原有顺序
+     */
+    public List<DataRecord> filter(List<DataRecord> records, List<QueryCondition> conditions) {
+        Predicate<DataRecord> predicate = compile(conditions);
+        List<DataRecord> matched = new ArrayList<>();
+        for (DataRecord record : records) {
+            if (predicate.test(record)) {
+                matched.add(record);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        stats.put("size", shapes.estimatedSize());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("collation", collationComparator.getStats());
+        return stats;
+    }
+
+    public void clear() {
+        shapes.invalidateAll();
+    }
+
+    private String shapeKey(SortedMap<DataRecordField, List<QueryCondition>> grouped) {
+        StringBuilder key = new StringBuilder();
+        for (Map.Entry<DataRecordField, List<QueryCondition>> entry : grouped.entrySet()) {
+            key.append(entry.getKey().name()).append(':');
+            for (QueryCondition condition : entry.getValue()) {
+                key.append(condition.getOperator().name()).append(',');
+            }
+            key.append(';');
+        }
+        return key.toString();
+    }
+
+    private FieldTemplate[] templates(SortedMap<DataRecordField, List<QueryCondition>> grouped) {
+        FieldTemplate[] templates = new FieldTemplate[grouped.size()];
+        int i = 0;
+        for (Map.Entry<DataRecordField, List<QueryCondition>> entry : grouped.entrySet()) {
+            List<FilterOperator> operators = new ArrayList<>();
+            for (QueryCondition condition : entry.getValue()) {
+                operators.add(condition.getOperator());
+            }
+            templates[i++] = template(entry.getKey(), operators);
+        }
+        return templates;
+    }
+
+    private FieldTemplate template(DataRecordField field, List<FilterOperator> operators) {
+        // NA 不需要绑定值，在模板中确定是否匹配空值
+        boolean matchesNull = operators.contains(FilterOperator.NA);
+        switch (field.getValueType()) {
+            case INTEGER:
+            case LONG:
+                return new LongTemplate(field, operators, matchesNull, false);
+            case DATETIME:
+                return new LongTemplate(field, operators, matchesNull, true);
+            case DOUBLE:
+                return new DoubleTemplate(field, operators, matchesNull);
+            default:
+                return new StringTemplate(field, operators, matchesNull, collationComparator);
+        }
+    }
+
+    /**
+     * 时间值的比较键：精确到纳秒
+     */
+    private static long timeKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    /**
+     * utf8mb4_unicode_ci（PAD SPACE）下只含 ASCII 字母、数字与空格的字符串比较
+     * @return 比较结果；任一字符串含其他字符时返回 null
+     */
+    private static Integer compareSimple(String left, String right) {
+        int leftLength = padLength(left);
+        int rightLength = padLength(right);
+        if (!isSimple(left, leftLength) || !isSimple(right, rightLength)) {
+            return null;
+        }
+        int length = Math.min(leftLength, rightLength);
+        for (int i = 0; i < length; i++) {
+            int diff = Character.toLowerCase(left.charAt(i)) - Character.toLowerCase(right.charAt(i));
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return leftLength - rightLength;
+    }
+
+    /**
+     * 去除尾部空格后的长度
+     */
+    private static int padLength(String text) {
+        int length = text.length();
+        while (length > 0 && text.charAt(length - 1) == ' ') {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * 只含 ASCII 字母、数字与空格的字符串在排序规则下的等值键（去除尾部空格后转小写），其余字符串返回 null；
+     * 两个字符串都有等值键时，二者相等当且仅当等值键相同
+     */
+    static String simpleKey(String text) {
+        int length = padLength(text);
+        return isSimple(text, length) ? text.substring(0, length).toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * 只含 ASCII 字母、数字与空格：排序规则下的顺序与忽略大小写的逐字符比较一致
+     */
+    private static boolean isSimple(String text, int length) {
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == ' ')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 字段的条件模板：字段读取方式与各条件的比较方式在模板中确定，绑定时只解析值
+     */
+    private abstract static class FieldTemplate {
+
+        final DataRecordField field;
+
+        final FilterOperator[] operators;
+
+        final boolean matchesNull;
+
+        FieldTemplate(DataRecordField field, List<FilterOperator> operators, boolean matchesNull) {
+            this.field = field;
+            this.operators = operators.toArray(new FilterOperator[0]);
+            this.matchesNull = matchesNull;
+        }
+
+        abstract FieldMatcher bind(List<QueryCondition> conditions);
+
+        Object parse(Object value) {
+            return field.getValueType().parse(value);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FieldMatcher {
+        boolean matches(DataRecord record);
+    }
+
+    @FunctionalInterface
+    private interface LongTest {
+        boolean test(long value);
+    }
+
+    @FunctionalInterface
+    private interface DoubleTest {
+        boolean test(double value);
+    }
+
+    @FunctionalInterface
+    private interface StringTest {
+        boolean test(String value);
+    }
+
+    /**
+     * 整数与时间字段：按 long 比较
+     */
+    private static final class LongTemplate extends FieldTemplate {
+
+        private final boolean time;
+
+        LongTemplate(DataRecordField field, List<FilterOperator> operators, boolean matchesNull, boolean time) {
+            super(field, operators, matchesNull);
+            this.time = time;
+        }
+
+        @Override
+        FieldMatcher bind(List<QueryCondition> conditions) {
+            List<LongTest> tests = new ArrayList<>();
+            for (int i = 0; i < operators.length; i++) {
+                LongTest test = test(operators[i], conditions.get(i));
+                if (test != null) {
+                    tests.add(test);
+                }
+            }
+            LongTest[] bound = tests.toArray(new LongTest[0]);
+            DataRecordField field = this.field;
+            boolean matchesNull = this.matchesNull;
+            if (time) {
+                return record -> {
+                    LocalDateTime value = (LocalDateTime) field.readValue(record);
+                    return value == null ? matchesNull : anyMatch(bound, timeKey(value));
+                };
+            }
+            return record -> {
+                Number value = (Number) field.readValue(record);
+                return value == null ? matchesNull : anyMatch(bound, value.longValue());
+            };
+        }
+
+        private static boolean anyMatch(LongTest[] tests, long value) {
+            for (LongTest test : tests) {
+                if (test.test(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private LongTest test(FilterOperator operator, QueryCondition condition) {
+            if (operator == FilterOperator.NA) {
+                return null;
+            }
+            if (operator.isSetOperator()) {
+                long[] members = new long[condition.getValues().size()];
+                for (int i = 0; i < members.length; i++) {
+                    members[i] = key(condition.getValues().get(i));
+                }
+                Arrays.sort(members);
+                return operator == FilterOperator.IN
+                        ? value -> Arrays.binarySearch(members, value) >= 0
+                        : value -> Arrays.binarySearch(members, value) < 0;
+            }
+            long value1 = key(condition.getValue1());
+            long value2 = operator.isRangeOperator() ? key(condition.getValue2()) : 0L;
+            switch (operator) {
+                case EQ:
+                    return value -> value == value1;
+                case NE:
+                    return value -> value != value1;
+                case GT:
+                    return value -> value > value1;
+                case GTE:
+                    return value -> value >= value1;
+                case LT:
+                    return value -> value < value1;
+                case LTE:
+                    return value -> value <= value1;
+                case RANGE_CLOSED:
+                    return value -> value >= value1 && value <= value2;
+                case RANGE_LEFT_OPEN:
+                    return value -> value > value1 && value <= value2;
+                case RANGE_RIGHT_OPEN:
+                    return value -> value >= value1 && value < value2;
+                case RANGE_OPEN:
+                    return value -> value > value1 && value < value2;
+                default:
+                    throw new IllegalArgumentException("不支持的操作符: " + operator);
+            }
+        }
+
+        private long key(Object raw) {
+            Object value = parse(raw);
+            return time ? timeKey((LocalDateTime) value) : ((Number) value).longValue();
+        }
+    }
+
+    /**
+     * 小数字段：按 double 比较，两位小数字段先按 MySQL 对 DOUBLE 的 ROUND(x, 2) 取整（rint(x * 100) / 100）
+     */
+    private static final class DoubleTemplate extends FieldTemplate {
+
+        DoubleTemplate(DataRecordField field, List<FilterOperator> operators, boolean matchesNull) {
+            super(field, operators, matchesNull);
+        }
+
+        @Override
+        FieldMatcher bind(List<QueryCondition> conditions) {
+            List<DoubleTest> tests = new ArrayList<>();
+            for (int i = 0; i < operators.length; i++) {
+                DoubleTest test = test(operators[i], conditions.get(i));
+                if (test != null) {
+                    tests.add(test);
+                }
+            }
+            DoubleTest[] bound = tests.toArray(new DoubleTest[0]);
+            DataRecordField field = this.field;
+            boolean matchesNull = this.matchesNull;
+            boolean rounded = field.isRounded();
+            return record -> {
+                Number number = (Number) field.readValue(record);
+                if (number == null) {
+                    return matchesNull;
+                }
+                double value = rounded ? Math.rint(number.doubleValue() * 100) / 100 : number.doubleValue();
+                for (DoubleTest test : bound) {
+                    if (test.test(value)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+
+        private DoubleTest test(FilterOperator operator, QueryCondition condition) {
+            if (operator == FilterOperator.NA) {
+                return null;
+            }
+            if (operator.isSetOperator()) {
+                double[] members = new double[condition.getValues().size()];
+                for (int i = 0; i < members.length; i++) {
+                    // -0.0 与 0.0 视为同一个值
+                    members[i] = value(condition.getValues().get(i)) + 0.0;
+                }
+                Arrays.sort(members);
+                return operator == FilterOperator.IN
+                        ? value -> Arrays.binarySearch(members, value + 0.0) >= 0
+                        : value -> Arrays.binarySearch(members, value + 0.0) < 0;
+            }
+            double value1 = value(condition.getValue1());
+            double value2 = operator.isRangeOperator() ? value(condition.getValue2()) : 0.0;
+            switch (operator) {
+                case EQ:
+                    return value -> value == value1;
+                case NE:
+                    return value -> value != value1;
+                case GT:
+                    return value -> value > value1;
+                case GTE:
+                    return value -> value >= value1;
+                case LT:
+                    return value -> value < value1;
+                case LTE:
+                    return value -> value <= value1;
+                case RANGE_CLOSED:
+                    return value -> value >= value1 && value <= value2;
+                case RANGE_LEFT_OPEN:
+                    return value -> value > value1 && value <= value2;
+                case RANGE_RIGHT_OPEN:
+                    return value -> value >= value1 && value < value2;
+                case RANGE_OPEN:
+                    return value -> value > value1 && value < value2;
+                default:
+                    throw new IllegalArgumentException("不支持的操作符: " + operator);
+            }
+        }
+
+        private double value(Object raw) {
+            return (Double) parse(raw);
+        }
+    }
+
+    /**
+     * 字符串字段：按排序规则比较，NA 同时匹配空串
+     */
+    private static final class StringTemplate extends FieldTemplate {
+
+        private final CollationComparator collationComparator;
+
+        StringTemplate(DataRecordField field, List<FilterOperator> operators, boolean matchesNull,
+                       CollationComparator collationComparator) {
+            super(field, operators, matchesNull);
+            this.collationComparator = collationComparator;
+        }
+
+        @Override
+        FieldMatcher bind(List<QueryCondition> conditions) {
+            List<StringTest> tests = new ArrayList<>();
+            for (int i = 0; i < operators.length; i++) {
+                tests.add(test(operators[i], conditions.get(i)));
+            }
+            StringTest[] bound = tests.toArray(new StringTest[0]);
+            DataRecordField field = this.field;
+            boolean matchesNull = this.matchesNull;
+            return record -> {
+                String value = (String) field.readValue(record);
+                if (value == null) {
+                    return matchesNull;
+                }
+                for (StringTest test : bound) {
+                    if (test.test(value)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+
+        private StringTest test(FilterOperator operator, QueryCondition condition) {
+            if (operator == FilterOperator.NA) {
+                return this::isBlank;
+            }
+            if (operator.isSetOperator()) {
+                String[] members = new String[condition.getValues().size()];
+                for (int i = 0; i < members.length; i++) {
+                    members[i] = value(condition.getValues().get(i));
+                }
+                boolean in = operator == FilterOperator.IN;
+                return value -> {
+                    for (String member : members) {
+                        if (compare(value, member) == 0) {
+                            return in;
+                        }
+                    }
+                    return !in;
+                };
+            }
+            String value1 = value(condition.getValue1());
+            String value2 = operator.isRangeOperator() ? value(condition.getValue2()) : null;
+            switch (operator) {
+                case EQ:
+                    return value -> compare(value, value1) == 0;
+                case NE:
+                    return value -> compare(value, value1) != 0;
+                case GT:
+                    return value -> compare(value, value1) > 0;
+                case GTE:
+                    return value -> compare(value, value1) >= 0;
+                case LT:
+                    return value -> compare(value, value1) < 0;
+                case LTE:
+                    return value -> compare(value, value1) <= 0;
+                case RANGE_CLOSED:
+                    return value -> compare(value, value1) >= 0 && compare(value, value2) <= 0;
+                case RANGE_LEFT_OPEN:
+                    return value -> compare(value, value1) > 0 && compare(value, value2) <= 0;
+                case RANGE_RIGHT_OPEN:
+                    return value -> compare(value, value1) >= 0 && compare(value, value2) < 0;
+                case RANGE_OPEN:
+                    return value -> compare(value, value1) > 0 && compare(value, value2) < 0;
+                default:
+                    throw new IllegalArgumentException("不支持的操作符: " + operator);
+            }
+        }
+
+        private String value(Object raw) {
+            return (String) parse(raw);
+        }
+
+        private int compare(String left, String right) {
+            Integer simple = compareSimple(left, right);
+            return simple != null ? simple : collationComparator.compare(left, right);
+        }
+
+        /**
+         * 是否等于空串：只含空格时相等，含字母或数字时不可能相等，其余情况交由数据库比较
+         */
+        private boolean isBlank(String value) {
+            int length = padLength(value);
+            if (length == 0) {
+                return true;
+            }
+            for (int i = 0; i < length; i++) {
+                if (Character.isLetterOrDigit(value.charAt(i))) {
+                    return false;
+                }
+            }
+            return collationComparator.compare(value, "") == 0;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.mycompany.dynamicquery.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mycompany.dynamicquery.dto.PreparedQuery;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.dto.SqlPlan;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * data_record 动态查询的SQL计划缓存
+ * 以条件形状（字段、操作符、值个数）为键，WHERE 子句只渲染一次；
+ * 相同形状的请求得到相同的SQL文本，可命中JDBC预编译语句缓存；
+ * IN / NOT_IN 值列表补齐到 2 的幂次个占位符以限制形状数，超过分块大小时拆成多个列表，
+ * 超过连接阈值时改为绑定一个 JSON 数组参数，与 JSON_TABLE 展开的值表做半连接/反连接，
+ * 避免万级值列表产生海量占位符（MySQL 单条语句最多 65535 个）；
+ * 参数按字段类型绑定（整数、浮点、时间），两位小数字段附加原始列上的区间条件以使用列索引；
+ * 计划数超过上限时淘汰最近较少使用的形状
+ */
+@Component
+public class SqlPlanCache {
+
+    /**
+     * 两位小数取整前后的最大差值（0.005）留出浮点误差余量
+     */
+    private static final String ROUNDING_MARGIN = "0.01";
+
+    private final int maxSize;
+
+    @Value("${dynamic-query.in-list.chunk-size:1000}")
+    private int inListChunkSize;
+
+    @Value("${dynamic-query.in-list.join-threshold:2000}")
+    private int inListJoinThreshold;
+
+    @Value("${dynamic-query.in-list.collation:utf8mb4_unicode_ci}")
+    private String inListCollation;
+
+    private final Cache<String, SqlPlan> plans;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public SqlPlanCache(@Value("${dynamic-query.sql-plan-cache.max-size:1024}") int maxSize) {
+        this.maxSize = maxSize;
+        this.plans = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * 为查询条件获取SQL计划并绑定参数
+     * 未在 data_record 中定义的字段将被忽略
+     */
+    public PreparedQuery prepare(List<QueryCondition> conditions) {
+        // 按字段定义顺序分组，保证相同形状得到相同的SQL文本与参数顺序
+        SortedMap<DataRecordField, List<QueryCondition>> grouped = new TreeMap<>();
+        for (QueryCondition condition : conditions) {
+            DataRecordField field = DataRecordField.fromName(condition.getFieldName());
+            if (field != null) {
+                grouped.computeIfAbsent(field, key -> new ArrayList<>()).add(condition);
+            }
+        }
+        String shapeKey = shapeKey(grouped);
+        SqlPlan plan = plans.getIfPresent(shapeKey);
+        if (plan != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            plan = plans.get(shapeKey, key -> render(key, grouped));
+        }
+
+        return new PreparedQuery(plan, bind(grouped, plan.getParameterCount()));
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        stats.put("size", plans.estimatedSize());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    public void clear() {
+        plans.invalidateAll();
+    }
+
+    private String shapeKey(SortedMap<DataRecordField, List<QueryCondition>> grouped) {
+        StringBuilder key = new StringBuilder();
+        for (Map.Entry<DataRecordField, List<QueryCondition>> entry : grouped.entrySet()) {
+            key.append(entry.getKey().name()).append(':');
+            for (QueryCondition condition : entry.getValue()) {
+                key.append(condition.getOperator().name()).append('/');
+                if (isJoined(condition)) {
+                    key.append("json");
+                } else {
+                    key.append(parameterCount(condition));
+                }
+                key.append(',');
+            }
+            key.append(';');
+        }
+        return key.toString();
+    }
+
+    private SqlPlan render(String shapeKey, SortedMap<DataRecordField, List<QueryCondition>> grouped) {
+        List<String> fieldClauses = new ArrayList<>();
+        int index = 0;
+
+        for (Map.Entry<DataRecordField, List<QueryCondition>> entry : grouped.entrySet()) {
+            DataRecordField field = entry.getKey();
+            List<String> conditionClauses = new ArrayList<>();
+
+            for (QueryCondition condition : entry.getValue()) {
+                int count = parameterCount(condition);
+                if (condition.getOperator().isSetOperator()) {
+                    conditionClauses.add(renderSetCondition(field, condition.getOperator(), index, count, isJoined(condition)));
+                    index += count;
+                    continue;
+                }
+                String value1 = count > 0 ? placeholder(index, field) : null;
+                String value2 = count > 1 ? placeholder(index + 1, field) : null;
+                index += count;
+                String conditionSql = QueryConditionBuilder.renderConditionSql(field.getComparisonExpression(),
+                        field.getColumn(), field.isStringType(), condition.getOperator(), value1, value2);
+                String prefilter = roundedPrefilter(field, condition.getOperator(), value1, value2);
+                conditionClauses.add(prefilter == null ? conditionSql : "(" + prefilter + " AND " + conditionSql + ")");
+            }
+
+            // 同字段多条件用OR连接
+            fieldClauses.add("(" + String.join(" OR ", conditionClauses) + ")");
+        }
+
+        // 不同字段用AND连接
+        return new SqlPlan(shapeKey, String.join(" AND ", fieldClauses), index);
+    }
+
+    /**
+     * 按两位小数比较的字段：ROUND(列, 2) 上的比较无法使用列索引，追加原始列上略宽的区间条件
+     * （ROUND 对值的改变不超过 0.005），由索引范围扫描缩小候选行，ROUND 条件保持原有语义
+     * @return 区间条件，不适用时返回 null
+     */
+    private String roundedPrefilter(DataRecordField field, FilterOperator operator, String value1, String value2) {
+        if (!field.isRounded()) {
+            return null;
+        }
+        String column = field.getColumn();
+        switch (operator) {
+            case EQ:
+                return column + " BETWEEN " + value1 + " - " + ROUNDING_MARGIN + " AND " + value1 + " + " + ROUNDING_MARGIN;
+            case GT:
+            case GTE:
+                return column + " >= " + value1 + " - " + ROUNDING_MARGIN;
+            case LT:
+            case LTE:
+                return column + " <= " + value1 + " + " + ROUNDING_MARGIN;
+            case RANGE_CLOSED:
+            case RANGE_LEFT_OPEN:
+            case RANGE_RIGHT_OPEN:
+            case RANGE_OPEN:
+                return column + " BETWEEN " + value1 + " - " + ROUNDING_MARGIN + " AND " + value2 + " + " + ROUNDING_MARGIN;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 渲染集合条件：JSON_TABLE 子查询，或按分块大小拆开的占位符列表（IN 用 OR、NOT IN 用 AND 连接）
+     */
+    private String renderSetCondition(DataRecordField field, FilterOperator operator, int index, int count, boolean joined) {
+        String column = field.getComparisonExpression();
+        if (joined) {
+            String values = "SELECT jt.v FROM JSON_TABLE(" + placeholder(index) + ", '$[*]' COLUMNS (v "
+                    + jsonTableType(field) + " PATH '$')) AS jt WHERE jt.v IS NOT NULL";
+            return QueryConditionBuilder.renderConditionSql(column, field.getColumn(), field.isStringType(), operator, values, null);
+        }
+
+        List<String> chunks = new ArrayList<>();
+        for (int start = 0; start < count; start += inListChunkSize) {
+            int end = Math.min(count, start + inListChunkSize);
+            StringJoiner placeholders = new StringJoiner(", ");
+            for (int i = start; i < end; i++) {
+                placeholders.add(placeholder(index + i, field));
+            }
+            chunks.add(QueryConditionBuilder.renderConditionSql(column, field.getColumn(), field.isStringType(),
+                    operator, placeholders.toString(), null));
+        }
+        if (chunks.size() == 1) {
+            return chunks.get(0);
+        }
+        return "(" + String.join(operator == FilterOperator.IN ? " OR " : " AND ", chunks) + ")";
+    }
+
+    /**
+     * JSON_TABLE 值列的类型；字符串列显式指定与表一致的排序规则，避免与 JSON 默认的 utf8mb4_bin 混用
+     */
+    private String jsonTableType(DataRecordField field) {
+        Class<?> javaType = field.getJavaType();
+        if (javaType == Long.class || javaType == Integer.class) {
+            return "BIGINT";
+        }
+        if (javaType == Double.class) {
+            return "DOUBLE";
+        }
+        if (field.isStringType()) {
+            return "VARCHAR(255) CHARACTER SET utf8mb4 COLLATE " + inListCollation;
+        }
+        return "DATETIME";
+    }
+
+    private Map<String, Object> bind(SortedMap<DataRecordField, List<QueryCondition>> grouped, int parameterCount) {
+        Map<String, Object> params = new HashMap<>(Math.max(4, parameterCount * 2));
+        int index = 0;
+        for (Map.Entry<DataRecordField, List<QueryCondition>> entry : grouped.entrySet()) {
+            for (QueryCondition condition : entry.getValue()) {
+                int count = parameterCount(condition);
+                if (isJoined(condition)) {
+                    params.put("p" + index, toJsonArray(entry.getKey(), condition.getValues()));
+                    index += count;
+                    continue;
+                }
+                if (condition.getOperator().isSetOperator()) {
+                    // 重复最后一个值补齐占位符，不改变 IN / NOT IN 的结果
+                    List<Object> values = condition.getValues();
+                    for (int i = 0; i < count; i++) {
+                        params.put("p" + (index + i), typed(entry.getKey(), values.get(Math.min(i, values.size() - 1))));
+                    }
+                    index += count;
+                    continue;
+                }
+                if (count > 0) {
+                    params.put("p" + index, typed(entry.getKey(), condition.getValue1()));
+                }
+                if (count > 1) {
+                    params.put("p" + (index + 1), typed(entry.getKey(), condition.getValue2()));
+                }
+                index += count;
+            }
+        }
+        return params;
+    }
+
+    private int parameterCount(QueryCondition condition) {
+        FilterOperator operator = condition.getOperator();
+        if (operator == FilterOperator.NA) {
+            return 0;
+        }
+        if (operator.isSetOperator()) {
+            return isJoined(condition) ? 1 : paddedSize(condition.getValues().size());
+        }
+        return operator.isRangeOperator() ? 2 : 1;
+    }
+
+    /**
+     * 值列表超过连接阈值时改用 JSON_TABLE
+     */
+    private boolean isJoined(QueryCondition condition) {
+        return condition.getOperator().isSetOperator() && condition.getValues().size() > inListJoinThreshold;
+    }
+
+    /**
+     * 占位符个数：不超过分块大小时补齐到 2 的幂次，否则补齐到分块大小的整数倍
+     */
+    private int paddedSize(int size) {
+        if (size > inListChunkSize) {
+            return (size + inListChunkSize - 1) / inListChunkSize * inListChunkSize;
+        }
+        int padded = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        return Math.min(padded, inListChunkSize);
+    }
+
+    /**
+     * 把值列表编码为 JSON 数组；数值字段只保留可解析的数值（整数字段只保留整数），
+     * 其余值与数值列比较不可能相等
+     */
+    private String toJsonArray(DataRecordField field, List<Object> values) {
+        StringBuilder json = new StringBuilder(values.size() * 8 + 2).append('[');
+        for (Object value : values) {
+            String element = field.isNumericType() ? jsonNumber(field, value) : jsonString(value.toString());
+            if (element == null) {
+                continue;
+            }
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(element);
+        }
+        return json.append(']').toString();
+    }
+
+    private String jsonNumber(DataRecordField field, Object value) {
+        Double number = QueryConditionOptimizer.parseNumber(value);
+        if (number == null) {
+            return null;
+        }
+        if (field.getJavaType() == Double.class) {
+            return number.toString();
+        }
+        BigDecimal decimal = new BigDecimal(value.toString());
+        if (decimal.stripTrailingZeros().scale() > 0) {
+            return null;
+        }
+        return decimal.toBigInteger().toString();
+    }
+
+    private String jsonString(String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * 按字段类型转换参数值（条件构建时已解析的值原样返回），绑定时使用对应的 JDBC 类型，
+     * 数值、日期列不再与字符串参数比较
+     */
+    private Object typed(DataRecordField field, Object value) {
+        return field.getValueType().parse(value);
+    }
+
+    private String placeholder(int index) {
+        return "#{params.p" + index + "}";
+    }
+
+    private String placeholder(int index, DataRecordField field) {
+        return "#{params.p" + index + ",jdbcType=" + field.getValueType().getJdbcType().name() + "}";
+    }
+}
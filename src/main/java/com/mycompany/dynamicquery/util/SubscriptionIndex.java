@@ -0,0 +1,228 @@
+package com.mycompany.dynamicquery.util;
+
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FieldValueType;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 订阅的候选索引：记录写入时只取出可能满足条件的订阅，再由各订阅的谓词精确判断
+ * <p>
+ * 某字段上的条件全部是等值或 IN 时（字段内 OR），记录必须等于其中某个值才可能满足，
+ * 订阅按这些值登记在该字段下（有多个这样的字段时取值最少的一个）；其余订阅每次写入都需检查。
+ * 字符串按排序规则下的等值键登记（见 {@link RecordPredicateCompiler#simpleKey}），
+ * 记录值没有等值键（含非 ASCII 字符等）时取该字段下登记的全部订阅，保证不漏掉候选
+ * <p>
+ * 写入与订阅变更可以并发：查找不加锁，登记与注销串行执行
+ */
+public class SubscriptionIndex<S> {
+
+    /**
+     * 字段 → 等值键 → 订阅
+     */
+    private final Map<DataRecordField, Map<Object, Set<S>>> byValue = new ConcurrentHashMap<>();
+
+    /**
+     * 字段 → 登记在该字段下的全部订阅
+     */
+    private final Map<DataRecordField, Set<S>> byField = new ConcurrentHashMap<>();
+
+    /**
+     * 无法按值登记、每次写入都检查的订阅
+     */
+    private final Set<S> scanned = ConcurrentHashMap.newKeySet();
+
+    private final Map<S, Registration> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * 登记订阅
+     * @param conditions 订阅的查询条件（字段内 OR、字段间 AND）
+     */
+    public synchronized void add(S subscription, List<QueryCondition> conditions) {
+        remove(subscription);
+        Registration registration = chooseRegistration(conditions);
+        registrations.put(subscription, registration);
+        if (registration.field == null) {
+            scanned.add(subscription);
+            return;
+        }
+        byField.computeIfAbsent(registration.field, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        Map<Object, Set<S>> values = byValue.computeIfAbsent(registration.field, key -> new ConcurrentHashMap<>());
+        for (Object key : registration.keys) {
+            values.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+    }
+
+    public synchronized void remove(S subscription) {
+        Registration registration = registrations.remove(subscription);
+        if (registration == null) {
+            return;
+        }
+        if (registration.field == null) {
+            scanned.remove(subscription);
+            return;
+        }
+        removeFrom(byField, registration.field, subscription);
+        Map<Object, Set<S>> values = byValue.get(registration.field);
+        for (Object key : registration.keys) {
+            removeFrom(values, key, subscription);
+        }
+        if (values.isEmpty()) {
+            byValue.remove(registration.field);
+        }
+    }
+
+    /**
+     * 记录处于给定状态时可能满足条件的订阅（记录为 null 时没有候选）
+     */
+    public Set<S> candidates(DataRecord record) {
+        Set<S> candidates = new HashSet<>();
+        if (record == null) {
+            return candidates;
+        }
+        candidates.addAll(scanned);
+        for (Map.Entry<DataRecordField, Map<Object, Set<S>>> entry : byValue.entrySet()) {
+            DataRecordField field = entry.getKey();
+            Object value = field.readValue(record);
+            if (value == null) {
+                // 等值与 IN 条件不匹配空值
+                continue;
+            }
+            Object key = key(field, value);
+            if (key == null) {
+                Set<S> all = byField.get(field);
+                if (all != null) {
+                    candidates.addAll(all);
+                }
+                continue;
+            }
+            Set<S> matched = entry.getValue().get(key);
+            if (matched != null) {
+                candidates.addAll(matched);
+            }
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return registrations.size();
+    }
+
+    /**
+     * 每次写入都需检查的订阅数
+     */
+    public int scannedSize() {
+        return scanned.size();
+    }
+
+    /**
+     * 按登记字段统计的订阅数
+     */
+    public Map<String, Integer> indexedSizes() {
+        Map<String, Integer> sizes = new TreeMap<>();
+        for (Map.Entry<DataRecordField, Set<S>> entry : byField.entrySet()) {
+            sizes.put(entry.getKey().getProperty(), entry.getValue().size());
+        }
+        return sizes;
+    }
+
+    /**
+     * 在条件全部为等值/IN 且值都能取得等值键的字段中，取值最少的一个；没有时为扫描登记
+     */
+    private Registration chooseRegistration(List<QueryCondition> conditions) {
+        Map<DataRecordField, Set<Object>> candidates = new EnumMap<>(DataRecordField.class);
+        Set<DataRecordField> excluded = EnumSet.noneOf(DataRecordField.class);
+        for (QueryCondition condition : conditions) {
+            DataRecordField field = DataRecordField.fromName(condition.getFieldName());
+            if (field == null || excluded.contains(field)) {
+                continue;
+            }
+            Set<Object> keys = keys(field, condition);
+            if (keys == null) {
+                excluded.add(field);
+                candidates.remove(field);
+            } else {
+                candidates.computeIfAbsent(field, key -> new HashSet<>()).addAll(keys);
+            }
+        }
+
+        Registration best = new Registration(null, Collections.emptySet());
+        for (Map.Entry<DataRecordField, Set<Object>> entry : candidates.entrySet()) {
+            if (best.field == null || entry.getValue().size() < best.keys.size()) {
+                best = new Registration(entry.getKey(), entry.getValue());
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 等值/IN 条件各值的等值键，条件不是等值/IN 或有值取不到等值键时返回 null
+     */
+    private static Set<Object> keys(DataRecordField field, QueryCondition condition) {
+        List<?> values;
+        if (condition.getOperator() == FilterOperator.EQ) {
+            values = Collections.singletonList(condition.getValue1());
+        } else if (condition.getOperator() == FilterOperator.IN && condition.getValues() != null) {
+            values = condition.getValues();
+        } else {
+            return null;
+        }
+        Set<Object> keys = new HashSet<>();
+        for (Object value : values) {
+            Object key;
+            try {
+                key = value == null ? null : key(field, field.getValueType().parse(value));
+            } catch (IllegalArgumentException e) {
+                key = null;
+            }
+            if (key == null) {
+                return null;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * 字段值的等值键：字符串见 {@link RecordPredicateCompiler#simpleKey}，整数为 long 值，其余类型不按值登记
+     */
+    private static Object key(DataRecordField field, Object value) {
+        FieldValueType type = field.getValueType();
+        if (type == FieldValueType.STRING) {
+            return RecordPredicateCompiler.simpleKey((String) value);
+        }
+        if (type == FieldValueType.INTEGER || type == FieldValueType.LONG) {
+            return ((Number) value).longValue();
+        }
+        return null;
+    }
+
+    private static <K, S> void removeFrom(Map<K, Set<S>> map, K key, S subscription) {
+        Set<S> set = map.get(key);
+        if (set != null) {
+            set.remove(subscription);
+            if (set.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static final class Registration {
+
+        /**
+         * 登记字段，为 null 时按扫描登记
+         */
+        private final DataRecordField field;
+
+        private final Set<Object> keys;
+
+        private Registration(DataRecordField field, Set<Object> keys) {
+            this.field = field;
+            this.keys = keys;
+        }
+    }
+}
@@ -31,4 +31,6 @@ INSERT INTO filter_config (field_name, field_alias, field_chinese_name, filter_e
 ('score', 'scoreRange', '分数区间', '80 <= score < 100', 'DOUBLE', '分数左闭右开区间查询'),
 ('salary', 'salaryOpen', '薪资开区间', '6000 < salary < 12000', 'DOUBLE', '薪资开区间查询'),
 ('hire_date', 'hireYear', '入职年份', 'hire_date >= 2023-01-01', 'DATE', '按入职年份查询'),
-('phone', 'phoneNull', '手机为空', 'phone NA', 'STRING', '查询手机为空的记录');
\ No newline at end of file
+('phone', 'phoneNull', '手机为空', 'phone NA', 'STRING', '查询手机为空的记录'),
+('department', 'deptIn', '部门集合', 'department IN', 'STRING', '部门多值查询'),
+('id', 'excludeIds', '排除编号', 'id NOT IN', 'INTEGER', '排除指定编号的记录');
\ No newline at end of file
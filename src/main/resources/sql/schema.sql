@@ -47,5 +47,6 @@ CREATE TABLE data_record (
     INDEX idx_score (score),
     INDEX idx_department (department),
     INDEX idx_salary (salary),
-    INDEX idx_hire_date (hire_date)
+    INDEX idx_hire_date (hire_date),
+    INDEX idx_created_time_id (created_time, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='数据记录表';
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.mycompany.dynamicquery;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mycompany.dynamicquery.dto.Projection;
+import com.mycompany.dynamicquery.dto.SqlPlan;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.mapper.DataRecordSqlProvider;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列投影：SELECT 只读取投影列（加上分页需要的 id、created_time），序列化只输出请求的字段
+ */
+class ProjectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .addMixIn(DataRecord.class, Projection.FilterMixin.class)
+            .setFilterProvider(Projection.ALL_FIELDS);
+
+    private final Projection projection = new Projection(
+            EnumSet.of(DataRecordField.SALARY, DataRecordField.NAME, DataRecordField.DEPARTMENT));
+
+    @Test
+    void testSelectsProjectedColumnsInFieldOrder() {
+        assertEquals("id, name, department, salary, created_time", projection.getColumnList());
+
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("plan", new SqlPlan("AGE:GT/1,;", "age > #{params.p0}", 1));
+        parameter.put("projection", projection);
+        parameter.put("cursor", null);
+        String sql = new DataRecordSqlProvider().selectPageByPlan(parameter);
+        assertTrue(sql.startsWith("SELECT id, name, department, salary, created_time FROM data_record WHERE age > "), sql);
+
+        parameter.put("projection", null);
+        assertTrue(new DataRecordSqlProvider().selectPageByPlan(parameter).startsWith("SELECT id, name, age, status"));
+    }
+
+    @Test
+    void testSerializesOnlyRequestedFields() throws Exception {
+        DataRecord record = new DataRecord();
+        record.setId(7L);
+        record.setName("张三");
+        record.setDepartment("IT");
+        record.setSalary(8000.0);
+        record.setCreatedTime(LocalDateTime.of(2024, 1, 1, 9, 30));
+
+        JsonNode projected = objectMapper.readTree(objectMapper.writer(projection.getFilters())
+                .writeValueAsString(List.of(record))).get(0);
+        assertEquals(3, projected.size());
+        assertEquals("张三", projected.get("name").asText());
+        assertEquals("IT", projected.get("department").asText());
+        assertEquals(8000.0, projected.get("salary").asDouble());
+
+        // 未指定投影时输出全部属性
+        JsonNode full = objectMapper.readTree(objectMapper.writeValueAsString(record));
+        assertEquals(7L, full.get("id").asLong());
+        assertEquals("2024-01-01 09:30:00", full.get("createdTime").asText());
+        assertTrue(full.has("email"));
+    }
+}
@@ -0,0 +1,241 @@
+package com.mycompany.dynamicquery;
+
+import com.mycompany.dynamicquery.dto.OptimizedConditions;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import com.mycompany.dynamicquery.util.QueryConditionOptimizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 条件优化器测试：化简结果与原条件在任意取值（含 NULL）上语义一致
+ */
+class QueryConditionOptimizerTest {
+
+    private final QueryConditionOptimizer optimizer = new QueryConditionOptimizer();
+
+    @Test
+    void testMergesOverlappingAndAdjacentRanges() {
+        List<QueryCondition> conditions = List.of(
+                new QueryCondition("age", FilterOperator.RANGE_CLOSED, "20", "30"),
+                new QueryCondition("age", FilterOperator.RANGE_LEFT_OPEN, "30", "40"),
+                new QueryCondition("age", FilterOperator.RANGE_CLOSED, "25", "35"),
+                new QueryCondition("age", FilterOperator.EQ, "22"));
+
+        OptimizedConditions result = optimizer.optimize(conditions);
+
+        assertFalse(result.isUnsatisfiable());
+        assertEquals(1, result.getConditions().size());
+        QueryCondition merged = result.getConditions().get(0);
+        assertEquals(FilterOperator.RANGE_CLOSED, merged.getOperator());
+        assertEquals("20", merged.getValue1());
+        assertEquals("40", merged.getValue2());
+    }
+
+    @Test
+    void testKeepsGapBetweenOpenBounds() {
+        List<QueryCondition> conditions = List.of(
+                new QueryCondition("age", FilterOperator.LT, "30"),
+                new QueryCondition("age", FilterOperator.GT, "30"));
+
+        OptimizedConditions result = optimizer.optimize(conditions);
+
+        assertEquals(1, result.getConditions().size());
+        assertEquals(FilterOperator.NE, result.getConditions().get(0).getOperator());
+        assertEquals("30", result.getConditions().get(0).getValue1());
+    }
+
+    @Test
+    void testRemovesDuplicatesAndSubsumedConditions() {
+        List<QueryCondition> conditions = List.of(
+                new QueryCondition("score", FilterOperator.GTE, "60"),
+                new QueryCondition("score", FilterOperator.EQ, "75"),
+                new QueryCondition("score", FilterOperator.GT, "90"),
+                new QueryCondition("department", FilterOperator.EQ, "IT"),
+                new QueryCondition("department", FilterOperator.EQ, "IT"),
+                new QueryCondition("department", FilterOperator.EQ, "HR"));
+
+        OptimizedConditions result = optimizer.optimize(conditions);
+
+        assertEquals(2, result.getConditions().size());
+        assertEquals(FilterOperator.GTE, result.getConditions().get(0).getOperator());
+        assertEquals(FilterOperator.IN, result.getConditions().get(1).getOperator());
+        assertEquals(List.of("IT", "HR"), result.getConditions().get(1).getValues());
+    }
+
+    @Test
+    void testMergesPointsIntoSetConditions() {
+        OptimizedConditions in = optimizer.optimize(List.of(
+                new QueryCondition("age", FilterOperator.EQ, "30"),
+                QueryCondition.ofValues("age", FilterOperator.IN, List.of("20", "30", "x")),
+                new QueryCondition("age", FilterOperator.GT, "60")));
+        assertEquals(3, in.getConditions().size());
+        assertEquals(FilterOperator.GT, in.getConditions().get(0).getOperator());
+        assertEquals(List.of("20", "30"), in.getConditions().get(1).getValues());
+        assertEquals(FilterOperator.EQ, in.getConditions().get(2).getOperator());
+        assertEquals("x", in.getConditions().get(2).getValue1());
+
+        OptimizedConditions notIn = optimizer.optimize(List.of(
+                new QueryCondition("age", FilterOperator.LT, "20"),
+                new QueryCondition("age", FilterOperator.RANGE_OPEN, "20", "30"),
+                new QueryCondition("age", FilterOperator.GT, "30")));
+        assertEquals(1, notIn.getConditions().size());
+        assertEquals(FilterOperator.NOT_IN, notIn.getConditions().get(0).getOperator());
+        assertEquals(List.of("20", "30"), notIn.getConditions().get(0).getValues());
+    }
+
+    @Test
+    void testDetectsAlwaysTrueAndAlwaysFalseGroups() {
+        OptimizedConditions alwaysTrue = optimizer.optimize(List.of(
+                new QueryCondition("age", FilterOperator.NE, "30"),
+                new QueryCondition("age", FilterOperator.EQ, "30"),
+                new QueryCondition("age", FilterOperator.NA, null),
+                new QueryCondition("status", FilterOperator.EQ, "active")));
+        assertFalse(alwaysTrue.isUnsatisfiable());
+        assertEquals(1, alwaysTrue.getConditions().size());
+        assertEquals("status", alwaysTrue.getConditions().get(0).getFieldName());
+
+        OptimizedConditions alwaysFalse = optimizer.optimize(List.of(
+                new QueryCondition("salary", FilterOperator.RANGE_CLOSED, "9000", "5000"),
+                new QueryCondition("salary", FilterOperator.RANGE_OPEN, "5000", "5000"),
+                new QueryCondition("status", FilterOperator.EQ, "active")));
+        assertTrue(alwaysFalse.isUnsatisfiable());
+    }
+
+    @Test
+    void testLeavesNonNumericValuesUntouched() {
+        List<QueryCondition> conditions = List.of(
+                new QueryCondition("age", FilterOperator.GT, "abc"),
+                new QueryCondition("age", FilterOperator.GT, "10"),
+                new QueryCondition("age", FilterOperator.GT, "20"));
+
+        OptimizedConditions result = optimizer.optimize(conditions);
+
+        assertEquals(2, result.getConditions().size());
+        assertEquals("10", result.getConditions().get(0).getValue1());
+        assertEquals("abc", result.getConditions().get(1).getValue1());
+    }
+
+    @Test
+    void testComparesLargeIdsExactly() {
+        // 超过 2^53 的主键：base 与 base + 1 转为 double 后相同，按 BIGINT 比较时不同
+        long base = 1L << 53;
+        OptimizedConditions in = optimizer.optimize(List.of(
+                QueryCondition.ofValues("id", FilterOperator.IN, List.of(base, base + 1)),
+                new QueryCondition("id", FilterOperator.EQ, base + 1)));
+        assertEquals(1, in.getConditions().size());
+        assertEquals(List.of(base, base + 1), in.getConditions().get(0).getValues());
+
+        OptimizedConditions notIn = optimizer.optimize(List.of(
+                QueryCondition.ofValues("id", FilterOperator.NOT_IN, List.of(base + 1, base))));
+        assertEquals(FilterOperator.NOT_IN, notIn.getConditions().get(0).getOperator());
+        assertEquals(List.of(base, base + 1), notIn.getConditions().get(0).getValues());
+
+        // [base, base + 1) 包含 base，不是空区间
+        OptimizedConditions range = optimizer.optimize(List.of(
+                new QueryCondition("id", FilterOperator.RANGE_RIGHT_OPEN, base, base + 1)));
+        assertFalse(range.isUnsatisfiable());
+        assertEquals(FilterOperator.RANGE_RIGHT_OPEN, range.getConditions().get(0).getOperator());
+
+        OptimizedConditions adjacent = optimizer.optimize(List.of(
+                new QueryCondition("id", FilterOperator.LTE, base),
+                new QueryCondition("id", FilterOperator.GT, base + 1)));
+        assertEquals(2, adjacent.getConditions().size());
+    }
+
+    @Test
+    void testEquivalentOnRandomConditions() {
+        FilterOperator[] operators = FilterOperator.values();
+        Random random = new Random(20240315L);
+        for (int round = 0; round < 20_000; round++) {
+            List<QueryCondition> conditions = new ArrayList<>();
+            int count = 1 + random.nextInt(6);
+            for (int i = 0; i < count; i++) {
+                FilterOperator operator = operators[random.nextInt(operators.length)];
+                String value1 = String.valueOf(random.nextInt(12));
+                String value2 = String.valueOf(random.nextInt(12));
+                if (operator.isSetOperator()) {
+                    List<Object> values = new ArrayList<>();
+                    for (int j = 0, size = 1 + random.nextInt(3); j < size; j++) {
+                        values.add(String.valueOf(random.nextInt(12)));
+                    }
+                    conditions.add(QueryCondition.ofValues("age", operator, values));
+                } else {
+                    conditions.add(operator == FilterOperator.NA
+                            ? new QueryCondition("age", operator, null)
+                            : new QueryCondition("age", operator, value1, operator.isRangeOperator() ? value2 : null));
+                }
+            }
+
+            OptimizedConditions result = optimizer.optimize(conditions);
+            for (int probe = -1; probe <= 24; probe++) {
+                Double value = probe < 0 ? null : probe / 2.0;
+                boolean expected = matchesAny(conditions, value);
+                boolean actual = !result.isUnsatisfiable() && (result.getConditions().isEmpty() || matchesAny(result.getConditions(), value));
+                assertEquals(expected, actual, "conditions: " + conditions + ", value: " + value);
+            }
+            if (result.isUnsatisfiable()) {
+                assertSame(conditions, result.getConditions());
+            }
+        }
+    }
+
+    /**
+     * 字段内 OR 的参照语义（与生成的SQL一致，NULL 只满足 NA）
+     */
+    private boolean matchesAny(List<QueryCondition> conditions, Double value) {
+        for (QueryCondition condition : conditions) {
+            if (matches(condition, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(QueryCondition condition, Double value) {
+        if (condition.getOperator() == FilterOperator.NA) {
+            return value == null;
+        }
+        if (value == null) {
+            return false;
+        }
+        if (condition.getOperator().isSetOperator()) {
+            boolean member = false;
+            for (Object item : condition.getValues()) {
+                member |= value == Double.parseDouble((String) item);
+            }
+            return member == (condition.getOperator() == FilterOperator.IN);
+        }
+        double v1 = Double.parseDouble((String) condition.getValue1());
+        double v2 = condition.getValue2() == null ? 0 : Double.parseDouble((String) condition.getValue2());
+        switch (condition.getOperator()) {
+            case EQ:
+                return value == v1;
+            case NE:
+                return value != v1;
+            case GT:
+                return value > v1;
+            case GTE:
+                return value >= v1;
+            case LT:
+                return value < v1;
+            case LTE:
+                return value <= v1;
+            case RANGE_CLOSED:
+                return value >= v1 && value <= v2;
+            case RANGE_LEFT_OPEN:
+                return value > v1 && value <= v2;
+            case RANGE_RIGHT_OPEN:
+                return value >= v1 && value < v2;
+            case RANGE_OPEN:
+                return value > v1 && value < v2;
+            default:
+                throw new IllegalStateException(condition.getOperator().name());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.mycompany.dynamicquery;
+
+import com.mycompany.dynamicquery.dto.FilterExpression;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import com.mycompany.dynamicquery.util.QueryExpressionParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 手写解析器与原正则解析器的差分测试
+ */
+class QueryExpressionParserDifferentialTest {
+
+    private final QueryExpressionParser parser = new QueryExpressionParser();
+
+    @Test
+    void testMatchesRegexParserOnExamples() {
+        String[] expressions = {
+                "age > 18", "> 18", "name = 张三", "score >= 90.5", "status != active",
+                "5000 <= salary <= 10000", "18 < age <= 65", "60 <= score < 100", "1 < experience < 5",
+                "phone NA", "NA", "年龄>=18", "18<=年龄<65", "age<-1", "x = 1.2.3", "1 < age",
+                "age >> 18", "age >= 18 且", "invalid expression", "phoneNA", "na", "1.5 < age",
+                "1 >= age >= 5", "1 < a.b < 5", "! 1", "age =< 5", "  age   >   18  ", "age\t<=\t5",
+                "department IN", "IN", "status NOT IN", "NOT IN", "NOT NOT IN", "IN IN", "部门 IN",
+                "age NOT", "age IN 5", "age in", "ageIN", "NOT  IN", "NOT IN IN", "a.b IN", "IN > 5"
+        };
+        for (String expression : expressions) {
+            assertSameResult(expression);
+        }
+    }
+
+    @Test
+    void testMatchesRegexParserOnRandomInput() {
+        String[] fragments = {
+                "a", "age", "1", "18", "9.5", "-3", "张三", "且", "NA", "N", "A", " ", "\t",
+                "<", "<=", ">", ">=", "=", "!=", "!", "x_y", "-", ".", "#", "é",
+                "IN", "NOT", "I"
+        };
+        Random random = new Random(20240101L);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder expression = new StringBuilder();
+            int parts = random.nextInt(8);
+            for (int j = 0; j < parts; j++) {
+                expression.append(fragments[random.nextInt(fragments.length)]);
+            }
+            assertSameResult(expression.toString());
+        }
+    }
+
+    @Test
+    void testErrorPosition() {
+        FilterExpression result = parser.parseExpression("age >> 18");
+        assertFalse(result.isValid());
+        assertEquals("表达式格式不正确", result.getErrorMessage());
+        assertEquals(5, result.getErrorPosition());
+
+        result = parser.parseExpression("age >= 18 且");
+        assertEquals(10, result.getErrorPosition());
+        assertEquals("表达式格式不正确（位置 11）", parser.describeError(result));
+
+        result = parser.parseExpression("age # 18");
+        assertEquals(4, result.getErrorPosition());
+
+        result = parser.parseExpression("age >");
+        assertEquals(5, result.getErrorPosition());
+    }
+
+    private void assertSameResult(String expression) {
+        FilterExpression expected = RegexReference.parse(expression);
+        FilterExpression actual = parser.parseExpression(expression);
+        String message = "expression: [" + expression + "]";
+        assertEquals(expected.isValid(), actual.isValid(), message);
+        assertEquals(expected.getFieldName(), actual.getFieldName(), message);
+        assertEquals(expected.getOperator(), actual.getOperator(), message);
+        assertEquals(expected.getValue1(), actual.getValue1(), message);
+        assertEquals(expected.getValue2(), actual.getValue2(), message);
+        assertEquals(expected.getErrorMessage(), actual.getErrorMessage(), message);
+    }
+
+    /**
+     * 原正则实现，作为语义基准
+     */
+    private static final class RegexReference {
+
+        private static final Pattern SINGLE = Pattern.compile("^(?:([\\w\\u4e00-\\u9fa5]+)\\s*)?(>=|<=|!=|>|<|=)\\s*([\\w\\u4e00-\\u9fa5.-]+)$");
+        private static final Pattern RANGE_CLOSED = Pattern.compile("^([\\w\\u4e00-\\u9fa5.-]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5.-]+)$");
+        private static final Pattern RANGE_LEFT_OPEN = Pattern.compile("^([\\w\\u4e00-\\u9fa5.-]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5.-]+)$");
+        private static final Pattern RANGE_RIGHT_OPEN = Pattern.compile("^([\\w\\u4e00-\\u9fa5.-]+)\\s*<=\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5.-]+)$");
+        private static final Pattern RANGE_OPEN = Pattern.compile("^([\\w\\u4e00-\\u9fa5.-]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5]+)\\s*<\\s*([\\w\\u4e00-\\u9fa5.-]+)$");
+        private static final Pattern NA = Pattern.compile("^(?:([\\w\\u4e00-\\u9fa5]+)\\s+)?(NA)$");
+        private static final Pattern NOT_IN = Pattern.compile("^(?:([\\w\\u4e00-\\u9fa5]+)\\s+)?NOT\\s+IN$");
+        private static final Pattern IN = Pattern.compile("^(?:([\\w\\u4e00-\\u9fa5]+)\\s+)?IN$");
+
+        static FilterExpression parse(String expression) {
+            FilterExpression result = new FilterExpression();
+            if (expression == null || expression.chars().allMatch(Character::isWhitespace)) {
+                result.setValid(false);
+                result.setErrorMessage("表达式不能为空");
+                return result;
+            }
+            expression = expression.trim();
+
+            Matcher matcher = NA.matcher(expression);
+            if (matcher.matches()) {
+                result.setFieldName(matcher.group(1) != null ? matcher.group(1) : "field");
+                result.setOperator(FilterOperator.NA);
+                result.setValid(true);
+                return result;
+            }
+            if (keyword(NOT_IN, FilterOperator.NOT_IN, expression, result)
+                    || keyword(IN, FilterOperator.IN, expression, result)) {
+                return result;
+            }
+            if (range(RANGE_CLOSED, FilterOperator.RANGE_CLOSED, expression, result)
+                    || range(RANGE_LEFT_OPEN, FilterOperator.RANGE_LEFT_OPEN, expression, result)
+                    || range(RANGE_RIGHT_OPEN, FilterOperator.RANGE_RIGHT_OPEN, expression, result)
+                    || range(RANGE_OPEN, FilterOperator.RANGE_OPEN, expression, result)) {
+                return result;
+            }
+            matcher = SINGLE.matcher(expression);
+            if (matcher.matches()) {
+                result.setFieldName(matcher.group(1) != null ? matcher.group(1) : "field");
+                result.setOperator(FilterOperator.fromString(matcher.group(2)));
+                result.setValue1(matcher.group(3));
+                result.setValid(true);
+                return result;
+            }
+            result.setValid(false);
+            result.setErrorMessage("表达式格式不正确");
+            return result;
+        }
+
+        private static boolean keyword(Pattern pattern, FilterOperator operator, String expression, FilterExpression result) {
+            Matcher matcher = pattern.matcher(expression);
+            if (!matcher.matches()) {
+                return false;
+            }
+            result.setFieldName(matcher.group(1) != null ? matcher.group(1) : "field");
+            result.setOperator(operator);
+            result.setValid(true);
+            return true;
+        }
+
+        private static boolean range(Pattern pattern, FilterOperator operator, String expression, FilterExpression result) {
+            Matcher matcher = pattern.matcher(expression);
+            if (!matcher.matches()) {
+                return false;
+            }
+            result.setFieldName(matcher.group(2));
+            result.setOperator(operator);
+            result.setValue1(matcher.group(1));
+            result.setValue2(matcher.group(3));
+            result.setValid(true);
+            return true;
+        }
+    }
+}
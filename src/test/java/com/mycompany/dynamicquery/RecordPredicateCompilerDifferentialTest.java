@@ -0,0 +1,290 @@
+package com.mycompany.dynamicquery;
+
+import com.mycompany.dynamicquery.dto.PreparedQuery;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import com.mycompany.dynamicquery.mapper.DataRecordSqlProvider;
+import com.mycompany.dynamicquery.util.CollationComparator;
+import com.mycompany.dynamicquery.util.RecordPredicateCompiler;
+import com.mycompany.dynamicquery.util.SqlPlanCache;
+import org.apache.ibatis.type.JdbcType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内存谓词与SQL语义的差分测试
+ * <p>
+ * MySQL 用例把同一批记录写入临时表，条件经 SqlPlanCache 渲染（调小分块大小与连接阈值，覆盖 IN 拆分与 JSON_TABLE 连接）
+ * 并按占位符声明的类型绑定，比较两边选出的 id；字符串含中文、标点、全角字符与尾部空格，
+ * 内存谓词中无法精确比较的字符串经 DataRecordSqlProvider 的比较语句在同一连接上比较。
+ * 需要已执行 sql/schema.sql 的 MySQL，通过系统属性开启：
+ * <pre>
+ * -Ddynamic-query.test.mysql-url=jdbc:mysql://localhost:3306/dynamic_query
+ * -Ddynamic-query.test.mysql-user=root -Ddynamic-query.test.mysql-password=...
+ * </pre>
+ */
+class RecordPredicateCompilerDifferentialTest {
+
+    private static final DataRecordField[] FIELDS = {
+            DataRecordField.ID, DataRecordField.NAME, DataRecordField.AGE, DataRecordField.STATUS, DataRecordField.SCORE,
+            DataRecordField.DEPARTMENT, DataRecordField.EMAIL, DataRecordField.PHONE, DataRecordField.SALARY,
+            DataRecordField.HIRE_DATE
+    };
+
+    /**
+     * 长度不超过最短的字符串列（phone VARCHAR(20)）
+     */
+    private static final String[] STRINGS = {
+            "IT", "it", "It ", "HR", "hr", "Finance", "finance  ", "", " ", "a b", "ab", "Sales",
+            "张三", "张三 ", "李四", "研发部", "Ｉｔ", "ｉｔ", "a-b", "a_b", "a.b", "a+b",
+            "zs@example.com", "ZS@EXAMPLE.COM ", "+86-138-0000-0000", "138 0000 0000", "Müller", "muller", "é", "e"
+    };
+
+    private static final double[] DOUBLES = {0.0, -0.0, 1.005, 1.004, 1.0, 90.5, 90.499, 90.505, 5000.0, 4999.995, -3.25};
+
+    /**
+     * SQL计划中的 MyBatis 占位符 #{params.pN} 与 #{params.pN,jdbcType=X}
+     */
+    private static final Pattern PLACEHOLDER = Pattern.compile("#\\{params\\.(p\\d+)(?:,jdbcType=(\\w+))?}");
+
+    @Test
+    void testNullsOnlyMatchNa() {
+        RecordPredicateCompiler compiler = new RecordPredicateCompiler(1024, new CollationComparator("utf8mb4_unicode_ci", 16) {
+            @Override
+            protected int compareInDatabase(String left, String right) {
+                throw new AssertionError("ASCII strings must be compared in memory: " + left + " / " + right);
+            }
+        });
+        DataRecord record = new DataRecord();
+        record.setId(1L);
+        record.setDepartment("  ");
+
+        assertFalse(compiler.compile(List.of(new QueryCondition("age", FilterOperator.NE, 30))).test(record));
+        assertFalse(compiler.compile(List.of(QueryCondition.ofValues("age", FilterOperator.NOT_IN, List.of(1, 2)))).test(record));
+        assertTrue(compiler.compile(List.of(new QueryCondition("age", FilterOperator.NA, null))).test(record));
+        assertTrue(compiler.compile(List.of(new QueryCondition("department", FilterOperator.NA, null))).test(record));
+        assertTrue(compiler.compile(List.of(
+                new QueryCondition("age", FilterOperator.GT, "18"),
+                new QueryCondition("age", FilterOperator.NA, null))).test(record));
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile(List.of(new QueryCondition("age", FilterOperator.EQ, "18.5"))));
+    }
+
+    @Test
+    void testComparesNonAsciiStringsInDatabase() {
+        AtomicInteger queries = new AtomicInteger();
+        RecordPredicateCompiler compiler = new RecordPredicateCompiler(1024, new CollationComparator("utf8mb4_unicode_ci", 16) {
+            @Override
+            protected int compareInDatabase(String left, String right) {
+                queries.incrementAndGet();
+                return left.strip().equals(right.strip()) ? 0 : 1;
+            }
+        });
+        Predicate<DataRecord> predicate = compiler.compile(List.of(
+                QueryCondition.ofValues("department", FilterOperator.IN, List.of("IT", "研发部"))));
+        DataRecord record = new DataRecord();
+
+        record.setDepartment("it ");
+        assertTrue(predicate.test(record));
+        assertEquals(0, queries.get());
+
+        record.setDepartment("研发部 ");
+        assertTrue(predicate.test(record));
+        assertTrue(predicate.test(record));
+        // "IT" 与 "研发部 " 各比较一次（内存无法确定），第二次命中比较缓存
+        assertEquals(2, queries.get());
+
+        record.setDepartment("a-b");
+        assertFalse(predicate.test(record));
+        assertEquals(4, queries.get());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "dynamic-query.test.mysql-url", matches = ".+")
+    void testMatchesMySqlOnRandomConditions() throws Exception {
+        Random random = new Random(7);
+        List<DataRecord> records = randomRecords(random, 300);
+        SqlPlanCache sqlPlanCache = new SqlPlanCache(1024);
+        ReflectionTestUtils.setField(sqlPlanCache, "inListChunkSize", 2);
+        ReflectionTestUtils.setField(sqlPlanCache, "inListJoinThreshold", 3);
+        ReflectionTestUtils.setField(sqlPlanCache, "inListCollation", "utf8mb4_unicode_ci");
+
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("dynamic-query.test.mysql-url"),
+                System.getProperty("dynamic-query.test.mysql-user", "root"),
+                System.getProperty("dynamic-query.test.mysql-password", ""))) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TEMPORARY TABLE predicate_test LIKE data_record");
+            }
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO predicate_test "
+                    + "(id, name, age, status, score, department, email, phone, salary, hire_date) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (DataRecord record : records) {
+                    insert.setObject(1, record.getId());
+                    insert.setObject(2, record.getName());
+                    insert.setObject(3, record.getAge());
+                    insert.setObject(4, record.getStatus());
+                    insert.setObject(5, record.getScore());
+                    insert.setObject(6, record.getDepartment());
+                    insert.setObject(7, record.getEmail());
+                    insert.setObject(8, record.getPhone());
+                    insert.setObject(9, record.getSalary());
+                    insert.setObject(10, record.getHireDate());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+
+            RecordPredicateCompiler compiler = new RecordPredicateCompiler(1024, mySqlCollation(connection));
+            for (int round = 0; round < 500; round++) {
+                List<QueryCondition> conditions = randomConditions(random);
+                Set<Long> expected = selectIds(connection, sqlPlanCache.prepare(conditions));
+                Set<Long> actual = new TreeSet<>();
+                for (DataRecord record : compiler.filter(records, conditions)) {
+                    actual.add(record.getId());
+                }
+                assertEquals(expected, actual, conditions::toString);
+            }
+        }
+    }
+
+    /**
+     * 在测试连接上执行 DataRecordSqlProvider 生成的比较语句
+     */
+    private CollationComparator mySqlCollation(Connection connection) {
+        String sql = new DataRecordSqlProvider().compareStrings(Map.of("collation", "utf8mb4_unicode_ci"))
+                .replace("#{left}", "?").replace("#{right}", "?");
+        return new CollationComparator("utf8mb4_unicode_ci", 10_000) {
+            @Override
+            protected int compareInDatabase(String left, String right) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, left);
+                    statement.setString(2, right);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        resultSet.next();
+                        return resultSet.getInt(1);
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * 执行 SqlPlanCache 渲染的条件子句，占位符按声明的 jdbcType 绑定（JSON_TABLE 的 JSON 数组按字符串绑定）
+     */
+    private Set<Long> selectIds(Connection connection, PreparedQuery query) throws SQLException {
+        Matcher matcher = PLACEHOLDER.matcher(query.getPlan().getWhereClause());
+        List<String> names = new ArrayList<>();
+        List<JdbcType> jdbcTypes = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT id FROM predicate_test");
+        while (matcher.find()) {
+            names.add(matcher.group(1));
+            jdbcTypes.add(matcher.group(2) == null ? null : JdbcType.valueOf(matcher.group(2)));
+            matcher.appendReplacement(sql, "?");
+        }
+        matcher.appendTail(sql);
+
+        Set<Long> ids = new TreeSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < names.size(); i++) {
+                Object value = query.getParams().get(names.get(i));
+                if (jdbcTypes.get(i) == null) {
+                    statement.setObject(i + 1, value);
+                } else {
+                    statement.setObject(i + 1, value, jdbcTypes.get(i).TYPE_CODE);
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private List<DataRecord> randomRecords(Random random, int count) {
+        List<DataRecord> records = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            DataRecord record = new DataRecord();
+            record.setId((long) i);
+            record.setName(randomString(random));
+            record.setAge(random.nextInt(8) == 0 ? null : 18 + random.nextInt(10));
+            record.setStatus(randomString(random));
+            record.setScore(random.nextInt(8) == 0 ? null : DOUBLES[random.nextInt(DOUBLES.length)]);
+            record.setDepartment(randomString(random));
+            record.setEmail(randomString(random));
+            record.setPhone(randomString(random));
+            record.setSalary(random.nextInt(8) == 0 ? null : DOUBLES[random.nextInt(DOUBLES.length)]);
+            record.setHireDate(random.nextInt(8) == 0 ? null : LocalDateTime.of(2023, 1, 1 + random.nextInt(5), 0, 0));
+            records.add(record);
+        }
+        return records;
+    }
+
+    private String randomString(Random random) {
+        return random.nextInt(8) == 0 ? null : STRINGS[random.nextInt(STRINGS.length)];
+    }
+
+    private List<QueryCondition> randomConditions(Random random) {
+        List<QueryCondition> conditions = new ArrayList<>();
+        int fields = 1 + random.nextInt(3);
+        for (int f = 0; f < fields; f++) {
+            DataRecordField field = FIELDS[random.nextInt(FIELDS.length)];
+            int count = 1 + random.nextInt(3);
+            for (int c = 0; c < count; c++) {
+                FilterOperator operator = FilterOperator.values()[random.nextInt(FilterOperator.values().length)];
+                if (operator.isSetOperator()) {
+                    // 1~5 个值：不拆分、拆成多个占位符列表、JSON_TABLE 连接
+                    List<Object> values = new ArrayList<>();
+                    int size = 1 + random.nextInt(5);
+                    for (int v = 0; v < size; v++) {
+                        values.add(randomValue(random, field));
+                    }
+                    conditions.add(QueryCondition.ofValues(field.getColumn(), operator, values));
+                } else if (operator == FilterOperator.NA) {
+                    conditions.add(new QueryCondition(field.getColumn(), operator, null));
+                } else {
+                    conditions.add(new QueryCondition(field.getColumn(), operator,
+                            randomValue(random, field), operator.isRangeOperator() ? randomValue(random, field) : null));
+                }
+            }
+        }
+        return conditions;
+    }
+
+    private Object randomValue(Random random, DataRecordField field) {
+        switch (field.getValueType()) {
+            case INTEGER:
+                return String.valueOf(18 + random.nextInt(10));
+            case LONG:
+                return String.valueOf(1 + random.nextInt(300));
+            case DOUBLE:
+                return String.valueOf(DOUBLES[random.nextInt(DOUBLES.length)]);
+            case DATETIME:
+                return "2023-01-0" + (1 + random.nextInt(5));
+            default:
+                return STRINGS[random.nextInt(STRINGS.length)];
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.mycompany.dynamicquery;
+
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.entity.DataRecord;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import com.mycompany.dynamicquery.util.CollationComparator;
+import com.mycompany.dynamicquery.util.RecordPredicateCompiler;
+import com.mycompany.dynamicquery.util.SubscriptionIndex;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订阅候选索引：候选集合必须包含全部满足条件的订阅，且等值/IN 条件能排除不相关的订阅
+ */
+class SubscriptionIndexTest {
+
+    private static final String[] STRINGS = {"IT", "it", "It ", "HR", "hr", "Finance", "", " ", "a b", "研发部", "Ｉｔ", "a-b"};
+
+    private static final FilterOperator[] OPERATORS = {
+            FilterOperator.EQ, FilterOperator.EQ, FilterOperator.IN, FilterOperator.IN,
+            FilterOperator.NE, FilterOperator.GT, FilterOperator.NA, FilterOperator.NOT_IN
+    };
+
+    /**
+     * 非 ASCII 字符串在测试中按忽略大小写与尾部空格的顺序比较，代替数据库；索引只要求候选覆盖谓词，顺序自洽即可
+     */
+    private final RecordPredicateCompiler compiler = new RecordPredicateCompiler(1024,
+            new CollationComparator("utf8mb4_unicode_ci", 1024) {
+                @Override
+                protected int compareInDatabase(String left, String right) {
+                    return String.CASE_INSENSITIVE_ORDER.compare(left.replaceAll(" +$", ""), right.replaceAll(" +$", ""));
+                }
+            });
+
+    @Test
+    void testCandidatesContainEveryMatchingSubscription() {
+        Random random = new Random(11);
+        SubscriptionIndex<Integer> index = new SubscriptionIndex<>();
+        List<Predicate<DataRecord>> predicates = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            List<QueryCondition> conditions = randomConditions(random);
+            predicates.add(compiler.compile(conditions));
+            index.add(i, conditions);
+        }
+        assertTrue(index.indexedSizes().size() > 1);
+
+        long checked = 0;
+        for (int r = 0; r < 2000; r++) {
+            DataRecord record = randomRecord(random);
+            Set<Integer> candidates = index.candidates(record);
+            checked += candidates.size();
+            for (int i = 0; i < predicates.size(); i++) {
+                if (predicates.get(i).test(record)) {
+                    assertTrue(candidates.contains(i), i + " on " + record);
+                }
+            }
+        }
+        // 扫描登记的订阅每次都是候选；按值登记的订阅只在值可能相等时才成为候选
+        long indexedChecked = checked - 2000L * index.scannedSize();
+        long indexed = index.size() - index.scannedSize();
+        assertTrue(indexedChecked < 2000L * indexed / 2, "checked " + indexedChecked + " of " + 2000L * indexed);
+    }
+
+    @Test
+    void testIndexesByMostSelectiveEqualityField() {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("it", List.of(
+                new QueryCondition("department", FilterOperator.EQ, "IT"),
+                QueryCondition.ofValues("age", FilterOperator.IN, List.of(18, 19, 20))));
+        index.add("adults", List.of(new QueryCondition("age", FilterOperator.GT, 18)));
+        assertEquals(Map.of("department", 1), index.indexedSizes());
+        assertEquals(1, index.scannedSize());
+
+        DataRecord record = new DataRecord();
+        record.setDepartment("it  ");
+        assertEquals(Set.of("it", "adults"), index.candidates(record));
+        record.setDepartment("HR");
+        assertEquals(Set.of("adults"), index.candidates(record));
+        // 非 ASCII 值可能在排序规则下与 "IT" 相等，取该字段下的全部订阅
+        record.setDepartment("Ｉｔ");
+        assertEquals(Set.of("it", "adults"), index.candidates(record));
+        record.setDepartment(null);
+        assertEquals(Set.of("adults"), index.candidates(record));
+        assertTrue(index.candidates(null).isEmpty());
+
+        index.remove("it");
+        index.remove("adults");
+        assertEquals(0, index.size());
+        assertTrue(index.indexedSizes().isEmpty());
+    }
+
+    private DataRecord randomRecord(Random random) {
+        DataRecord record = new DataRecord();
+        record.setId((long) random.nextInt(20));
+        record.setAge(random.nextInt(6) == 0 ? null : 18 + random.nextInt(6));
+        record.setDepartment(random.nextInt(6) == 0 ? null : STRINGS[random.nextInt(STRINGS.length)]);
+        record.setStatus(random.nextInt(6) == 0 ? null : STRINGS[random.nextInt(STRINGS.length)]);
+        record.setScore(random.nextInt(6) == 0 ? null : random.nextInt(5) * 1.0);
+        record.setHireDate(LocalDateTime.of(2023, 1, 1 + random.nextInt(3), 0, 0));
+        return record;
+    }
+
+    private List<QueryCondition> randomConditions(Random random) {
+        DataRecordField[] fields = {DataRecordField.ID, DataRecordField.AGE, DataRecordField.DEPARTMENT,
+                DataRecordField.STATUS, DataRecordField.SCORE, DataRecordField.HIRE_DATE};
+        List<QueryCondition> conditions = new ArrayList<>();
+        int count = 1 + random.nextInt(3);
+        for (int c = 0; c < count; c++) {
+            DataRecordField field = fields[random.nextInt(fields.length)];
+            FilterOperator operator = OPERATORS[random.nextInt(OPERATORS.length)];
+            if (operator == FilterOperator.NA) {
+                conditions.add(new QueryCondition(field.getProperty(), operator, null));
+            } else if (operator.isSetOperator()) {
+                List<Object> values = new ArrayList<>();
+                for (int v = 1 + random.nextInt(3); v > 0; v--) {
+                    values.add(randomValue(random, field));
+                }
+                conditions.add(QueryCondition.ofValues(field.getProperty(), operator, values));
+            } else {
+                conditions.add(new QueryCondition(field.getProperty(), operator, randomValue(random, field)));
+            }
+        }
+        return conditions;
+    }
+
+    private Object randomValue(Random random, DataRecordField field) {
+        switch (field) {
+            case ID:
+                return String.valueOf(random.nextInt(20));
+            case AGE:
+                return 18 + random.nextInt(6);
+            case SCORE:
+                return String.valueOf(random.nextInt(5));
+            case HIRE_DATE:
+                return "2023-01-0" + (1 + random.nextInt(3));
+            default:
+                return STRINGS[random.nextInt(STRINGS.length)];
+        }
+    }
+}
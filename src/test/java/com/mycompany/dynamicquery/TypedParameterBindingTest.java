@@ -0,0 +1,140 @@
+package com.mycompany.dynamicquery;
+
+import com.mycompany.dynamicquery.dto.PreparedQuery;
+import com.mycompany.dynamicquery.dto.QueryCondition;
+import com.mycompany.dynamicquery.enums.DataRecordField;
+import com.mycompany.dynamicquery.enums.FieldValueType;
+import com.mycompany.dynamicquery.enums.FilterOperator;
+import com.mycompany.dynamicquery.util.SqlPlanCache;
+import org.apache.ibatis.type.JdbcType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按字段类型解析查询值、以带类型的 JDBC 参数绑定的测试
+ * <p>
+ * EXPLAIN 用例需要已执行 sql/schema.sql 的 MySQL，通过系统属性开启：
+ * <pre>
+ * -Ddynamic-query.test.mysql-url=jdbc:mysql://localhost:3306/dynamic_query
+ * -Ddynamic-query.test.mysql-user=root -Ddynamic-query.test.mysql-password=...
+ * </pre>
+ */
+class TypedParameterBindingTest {
+
+    /**
+     * SQL计划中的 MyBatis 占位符 #{params.pN,jdbcType=X}
+     */
+    private static final Pattern PLACEHOLDER = Pattern.compile("#\\{params\\.(p\\d+),jdbcType=(\\w+)}");
+
+    @Test
+    void testParsesIntegersExactly() {
+        assertEquals(18, FieldValueType.INTEGER.parse("18"));
+        assertEquals(18, FieldValueType.INTEGER.parse(" 18 "));
+        assertEquals(18, FieldValueType.INTEGER.parse("18.0"));
+        assertEquals(18, FieldValueType.INTEGER.parse(18L));
+        assertEquals(9223372036854775807L, FieldValueType.LONG.parse("9223372036854775807"));
+
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.INTEGER.parse("18.5"));
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.INTEGER.parse("abc"));
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.INTEGER.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.INTEGER.parse("99999999999"));
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.LONG.parse("9223372036854775808"));
+    }
+
+    @Test
+    void testParsesFiniteDoublesOnly() {
+        assertEquals(90.5, FieldValueType.DOUBLE.parse("90.5"));
+        assertEquals(5.0, FieldValueType.DOUBLE.parse(5));
+
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.DOUBLE.parse("NaN"));
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.DOUBLE.parse("Infinity"));
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.DOUBLE.parse("1d"));
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.DOUBLE.parse("1e400"));
+    }
+
+    @Test
+    void testParsesDatesAndDateTimes() {
+        assertEquals(LocalDateTime.of(2023, 1, 1, 0, 0), FieldValueType.DATETIME.parse("2023-01-01"));
+        assertEquals(LocalDateTime.of(2023, 1, 1, 10, 20, 30), FieldValueType.DATETIME.parse("2023-01-01 10:20:30"));
+        assertEquals(LocalDateTime.of(2023, 1, 1, 10, 20), FieldValueType.DATETIME.parse("2023-01-01T10:20"));
+
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.DATETIME.parse("2023/01/01"));
+        assertThrows(IllegalArgumentException.class, () -> FieldValueType.DATETIME.parse("2023-02-30"));
+    }
+
+    @Test
+    void testStringsAreNotTrimmedAndDeclaredTypesMap() {
+        assertEquals(" IT ", FieldValueType.STRING.parse(" IT "));
+        assertEquals("5", FieldValueType.STRING.parse(5));
+
+        assertEquals(FieldValueType.INTEGER, DataRecordField.AGE.getValueType());
+        assertEquals(FieldValueType.DOUBLE, DataRecordField.SALARY.getValueType());
+        assertEquals(FieldValueType.DATETIME, DataRecordField.HIRE_DATE.getValueType());
+        assertEquals(FieldValueType.LONG, FieldValueType.fromDeclared("bigint"));
+        assertEquals(FieldValueType.DOUBLE, FieldValueType.fromDeclared("DECIMAL"));
+        assertEquals(FieldValueType.DATETIME, FieldValueType.fromDeclared("date"));
+        assertNull(FieldValueType.fromDeclared("blob"));
+    }
+
+    /**
+     * 经 SqlPlanCache 渲染并按占位符声明的 jdbcType 绑定后，整数、ROUND 比较（附加原始列区间条件）与日期条件
+     * 实际选用对应索引（取值在常见数据范围之外，使索引访问的选择不受表中数据分布影响）
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "dynamic-query.test.mysql-url", matches = ".+")
+    void testTypedConditionsCanUseIndexes() throws Exception {
+        SqlPlanCache sqlPlanCache = new SqlPlanCache(1024);
+        ReflectionTestUtils.setField(sqlPlanCache, "inListChunkSize", 1000);
+        ReflectionTestUtils.setField(sqlPlanCache, "inListJoinThreshold", 2000);
+        ReflectionTestUtils.setField(sqlPlanCache, "inListCollation", "utf8mb4_unicode_ci");
+        Map<String, QueryCondition> cases = new LinkedHashMap<>();
+        cases.put("idx_age", new QueryCondition("age", FilterOperator.EQ, "200"));
+        cases.put("idx_salary", new QueryCondition("salary", FilterOperator.EQ, "987654.32"));
+        cases.put("idx_hire_date", new QueryCondition("hire_date", FilterOperator.GTE, "2999-01-01"));
+
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("dynamic-query.test.mysql-url"),
+                System.getProperty("dynamic-query.test.mysql-user", "root"),
+                System.getProperty("dynamic-query.test.mysql-password", ""))) {
+            for (Map.Entry<String, QueryCondition> testCase : cases.entrySet()) {
+                PreparedQuery query = sqlPlanCache.prepare(List.of(testCase.getValue()));
+                String whereClause = query.getPlan().getWhereClause();
+                Matcher matcher = PLACEHOLDER.matcher(whereClause);
+                List<String> names = new ArrayList<>();
+                List<JdbcType> jdbcTypes = new ArrayList<>();
+                StringBuilder sql = new StringBuilder("EXPLAIN SELECT id FROM data_record");
+                while (matcher.find()) {
+                    names.add(matcher.group(1));
+                    jdbcTypes.add(JdbcType.valueOf(matcher.group(2)));
+                    matcher.appendReplacement(sql, "?");
+                }
+                matcher.appendTail(sql);
+
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < names.size(); i++) {
+                        statement.setObject(i + 1, query.getParams().get(names.get(i)), jdbcTypes.get(i).TYPE_CODE);
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        assertTrue(resultSet.next());
+                        assertEquals(testCase.getKey(), resultSet.getString("key"), sql.toString());
+                    }
+                }
+            }
+        }
+    }
+}